@@ -0,0 +1,33 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Runs the benchmarks with the settings we compare runs by: results are written
+ *			as JSON to jmh-result.json and the GC profiler is on, so every result comes
+ *			with its allocation rate. Any normal JMH option overrides these, for example
+ *			"-rf csv -rff out.csv" or a benchmark name pattern like "DeckBenchmark".
+ */
+public class BenchmarkMain {
+
+	/**
+	 * @param args
+	 * 		JMH command line options
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+		if (!cmd.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+		if (!cmd.getResult().hasValue()) options.result("jmh-result.json");
+		if (cmd.getProfilers().isEmpty()) options.addProfiler(GCProfiler.class);
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bot.GreedyBot;
+import bot.IsmctsBot;
+import bot.MemoryBot;
+import bot.RandomBot;
+import bot.Strategy;
+import goFish.GameType;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			How long each bot takes to pick a move, on a few games in the middle of play.
+ *			Run with the gc profiler, the simple bots must show no allocation. The search
+ *			bot is given {@value #SEARCH_ITERATIONS} iterations on every core, so its
+ *			rollouts per second are that many divided by the time per move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BotBenchmark {
+	private static final int GAMES = 16;
+	static final int SEARCH_ITERATIONS = 1000;
+
+	@Param({"random", "greedy", "memory", "ismcts"})
+	public String bot;
+
+	private final GoFishModel[] games = new GoFishModel[GAMES];
+	private SplittableRandom random;
+	private Strategy strategy;
+	private int next;
+
+	@Setup
+	public void setup() {
+		random = new SplittableRandom(13);
+		switch (bot) {
+		case "greedy":
+			strategy = new GreedyBot();
+			break;
+		case "memory":
+			strategy = new MemoryBot();
+			break;
+		case "ismcts":
+			strategy = new IsmctsBot(60_000, SEARCH_ITERATIONS, ForkJoinPool.getCommonPoolParallelism(),
+					ForkJoinPool.commonPool());
+			break;
+		default:
+			strategy = new RandomBot();
+		}
+		// play every game a few moves in, so the memory bot has something to remember. The
+		// player to move has to have cards to ask with
+		for (int i = 0; i < GAMES; i++) {
+			GoFishModel game;
+			do {
+				game = new GoFishModel(4, GameType.BASIC, random.nextLong());
+				game.setHeadless(true);
+				for (int seat = 0; seat < 4; seat++) {
+					game.setBot(seat, seat == 0 ? strategy : new RandomBot());
+				}
+				game.playBots(8, random);
+			} while (game.checkGameOver() || game.getView().getHandSize(game.getCurrentTurn()) == 0);
+			games[i] = game;
+		}
+	}
+
+	/** One decision, the packed move is returned so it is not optimized away */
+	@Benchmark
+	public int chooseMove() {
+		GoFishModel game = games[next++ & (GAMES - 1)];
+		return strategy.chooseMove(game.getView(), random);
+	}
+}
@@ -0,0 +1,128 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bot.RandomBot;
+import bot.Strategy;
+import goFish.GameType;
+import model.GoFishModel;
+import sim.Column;
+import sim.ColumnStore;
+import sim.ColumnarExporter;
+import sim.GameLog;
+import sim.GameLogReader;
+import sim.GameLogWriter;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			The same questions asked of {@value #GAMES} games in a game log and in their
+ *			columnar export: the average books of seat 0 in variant 2 games, which reads
+ *			two small columns, and how asks turn out, which reads one move column. The log
+ *			has to be read game by game for both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnarBenchmark {
+	private static final int GAMES = 200_000;
+	private static final int PLAYED = 1_000;
+
+	private Path dir;
+	private GameLogReader reader;
+	private ColumnStore store;
+
+	@Setup
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("gofish-columns-bench");
+		Path file = dir.resolve("games.log");
+		SplittableRandom random = new SplittableRandom(25);
+		RandomBot bot = new RandomBot();
+		GoFishModel[] games = new GoFishModel[PLAYED];
+		byte[][] moves = new byte[PLAYED][];
+		int[] counts = new int[PLAYED];
+		for (int i = 0; i < PLAYED; i++) {
+			games[i] = new GoFishModel(2 + i % 3, GameType.values()[i % 3], random.nextLong());
+			games[i].setHeadless(true);
+			moves[i] = new byte[2000];
+			for (; counts[i] < 2000 && !games[i].checkGameOver()
+					&& games[i].getView().getHandSize(games[i].getCurrentTurn()) > 0; counts[i]++) {
+				int move = bot.chooseMove(games[i].getView(), random);
+				moves[i][counts[i]] = GameLog.encodeMove(Strategy.targetSeat(move), Strategy.rank(move));
+				games[i].applyMove(Strategy.targetSeat(move), Strategy.rank(move));
+			}
+		}
+		try (GameLogWriter log = new GameLogWriter(file)) {
+			for (int i = 0; i < GAMES; i++) {
+				log.write(games[i % PLAYED], moves[i % PLAYED], counts[i % PLAYED]);
+			}
+		}
+		ColumnarExporter.export(file, dir.resolve("columns"));
+		reader = new GameLogReader(file);
+		store = new ColumnStore(dir.resolve("columns"));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		reader.close();
+		store.close();
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public double booksFromColumns() throws IOException {
+		return store.query().where(Column.GAME_TYPE, GameType.VARIANT_2.ordinal()).average(Column.BOOKS_0);
+	}
+
+	@Benchmark
+	public double booksFromLog() {
+		long[] totals = new long[2];
+		reader.forEach(game -> {
+			if (game.getGameType() != GameType.VARIANT_2) return;
+			totals[0]++;
+			totals[1] += game.getBooks(0);
+		});
+		return (double) totals[1] / totals[0];
+	}
+
+	@Benchmark
+	public long[] resultsFromColumns() throws IOException {
+		return store.query().countBy(Column.MOVE_RESULT);
+	}
+
+	/** The log does not keep results, so every game is played again */
+	@Benchmark
+	public long[] resultsFromLog() {
+		long[] results = new long[3];
+		reader.forEach(game -> {
+			GoFishModel model = new GoFishModel(game.getNumOfPlayers(), game.getGameType(), game.getSeed());
+			model.setHeadless(true);
+			for (int i = 0; i < game.getMoveCount(); i++) {
+				results[model.applyMove(game.getTargetSeat(i), game.getRank(i))]++;
+			}
+		});
+		return results;
+	}
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import goFish.Deck;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Building and shuffling the 52 card deck
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DeckBenchmark {
+	private SplittableRandom random;
+	private Deck deck;
+
+	@Setup
+	public void setup() {
+		random = new SplittableRandom(1);
+		deck = new Deck(random.split());
+	}
+
+	/** A new shuffled deck, the way every game starts */
+	@Benchmark
+	public Deck construct() {
+		return new Deck(random.split());
+	}
+
+	/** Shuffling a full deck again */
+	@Benchmark
+	public Deck shuffle() {
+		deck.shuffle(random);
+		return deck;
+	}
+}
@@ -0,0 +1,97 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bot.EndgameSolver;
+import bot.RandomBot;
+import bot.Strategy;
+import bot.TranspositionTable;
+import goFish.GameType;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Solving endgames, games played at random until the deck ran out with at most
+ *			{@value EndgameSolver#MAX_RANKS} ranks left. Every solve starts from an empty
+ *			table, so nothing is reused from the one before. The table is small so that
+ *			emptying it is not what is measured. The positions counter is the positions
+ *			searched per second, the score is solves per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EndgameBenchmark {
+	private static final int GAMES = 64;
+
+	@Param({"BASIC", "VARIANT_1", "VARIANT_2"})
+	public GameType gameType;
+
+	@Param({"2", "4"})
+	public int numOfPlayers;
+
+	private final List<GoFishModel> games = new ArrayList<>();
+	private final TranspositionTable<Integer> table = new TranspositionTable<>(1 << 10, 1);
+	private final EndgameSolver solver = new EndgameSolver(table);
+	private int next;
+
+	/**
+	 * Positions searched, reported by JMH as a rate
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long positions;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			positions = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(17);
+		RandomBot bot = new RandomBot();
+		while (games.size() < GAMES) {
+			GoFishModel game = new GoFishModel(numOfPlayers, gameType, random.nextLong());
+			game.setHeadless(true);
+			for (int i = 0; i < 2000 && !EndgameSolver.canSolve(game)
+					&& game.getView().getHandSize(game.getCurrentTurn()) > 0; i++) {
+				int move = bot.chooseMove(game.getView(), random);
+				game.applyMove(Strategy.targetSeat(move), Strategy.rank(move));
+			}
+			if (EndgameSolver.canSolve(game) && !game.checkGameOver()) games.add(game);
+		}
+	}
+
+	/** One endgame solved from an empty table */
+	@Benchmark
+	public int[] solve(Counters counters) {
+		GoFishModel game = games.get(next++ % GAMES);
+		table.clear();
+		long before = solver.getPositions();
+		int[] books = solver.solve(game);
+		counters.positions += solver.getPositions() - before;
+		return books;
+	}
+}
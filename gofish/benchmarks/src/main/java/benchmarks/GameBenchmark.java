@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bot.RandomBot;
+import bot.Strategy;
+import goFish.GameType;
+import model.GoFishModel;
+import sim.Simulator;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Whole games from the deal to the end with random players, on one thread. The
+ *			score is games per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameBenchmark {
+	@Param({"BASIC", "VARIANT_1", "VARIANT_2"})
+	public GameType gameType;
+
+	@Param({"2", "4"})
+	public int numOfPlayers;
+
+	private SplittableRandom random;
+	private Strategy[] seats;
+
+	@Setup
+	public void setup() {
+		random = new SplittableRandom(5);
+		seats = new Strategy[numOfPlayers];
+		for (int i = 0; i < numOfPlayers; i++) {
+			seats[i] = new RandomBot();
+		}
+	}
+
+	/** One full game, the number of moves is returned so it is not optimized away */
+	@Benchmark
+	public int fullGame() {
+		return Simulator.playGame(new GoFishModel(numOfPlayers, gameType, random.nextLong()), seats, random);
+	}
+}
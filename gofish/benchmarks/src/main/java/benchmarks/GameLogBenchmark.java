@@ -0,0 +1,117 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bot.RandomBot;
+import bot.Strategy;
+import goFish.GameType;
+import model.GoFishModel;
+import sim.GameLog;
+import sim.GameLogReader;
+import sim.GameLogWriter;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Scanning a game log of {@value #GAMES} games, about 80MB, for the win rate of
+ *			seat 0. A thousand games are played and written over and over, since playing a
+ *			million would take most of a minute. The file is in the page cache after the
+ *			first scan, so this measures the reader and not the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameLogBenchmark {
+	private static final int GAMES = 1_000_000;
+	private static final int PLAYED = 1_000;
+
+	private Path dir;
+	private GameLogReader reader;
+
+	@Setup
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("gofish-log-bench");
+		Path file = dir.resolve("games.log");
+		SplittableRandom random = new SplittableRandom(24);
+		RandomBot bot = new RandomBot();
+		GoFishModel[] games = new GoFishModel[PLAYED];
+		byte[][] moves = new byte[PLAYED][];
+		int[] counts = new int[PLAYED];
+		for (int i = 0; i < PLAYED; i++) {
+			games[i] = new GoFishModel(2 + i % 3, GameType.values()[i % 3], random.nextLong());
+			games[i].setHeadless(true);
+			moves[i] = new byte[2000];
+			for (; counts[i] < 2000 && !games[i].checkGameOver()
+					&& games[i].getView().getHandSize(games[i].getCurrentTurn()) > 0; counts[i]++) {
+				int move = bot.chooseMove(games[i].getView(), random);
+				moves[i][counts[i]] = GameLog.encodeMove(Strategy.targetSeat(move), Strategy.rank(move));
+				games[i].applyMove(Strategy.targetSeat(move), Strategy.rank(move));
+			}
+		}
+		try (GameLogWriter log = new GameLogWriter(file)) {
+			for (int i = 0; i < GAMES; i++) {
+				log.write(games[i % PLAYED], moves[i % PLAYED], counts[i % PLAYED]);
+			}
+		}
+		reader = new GameLogReader(file);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		reader.close();
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	/** One thread going through every game */
+	@Benchmark
+	public double scan() {
+		long[] totals = new long[2];
+		reader.forEach(game -> {
+			if (!game.isFinished()) return;
+			totals[0]++;
+			if (game.getWinners() == 1) totals[1]++;
+		});
+		return (double) totals[1] / totals[0];
+	}
+
+	/** The same scan as a parallel stream, split by blocks */
+	@Benchmark
+	public double scanParallel() {
+		return reader.stream(true).filter(GameLogReader.Game::isFinished)
+				.mapToInt(game -> game.getWinners() == 1 ? 1 : 0).average().orElse(0);
+	}
+
+	/** Summing every move of every game, which touches every byte of the file */
+	@Benchmark
+	public long scanMoves() {
+		return reader.stream(true).mapToLong(game -> {
+			long sum = 0;
+			for (int i = game.getMoveCount() - 1; i >= 0; i--) {
+				sum += game.getRank(i);
+			}
+			return sum;
+		}).sum();
+	}
+}
@@ -0,0 +1,204 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bot.RandomBot;
+import bot.Strategy;
+import goFish.Card;
+import goFish.GameType;
+import goFish.Player;
+import goFish.Suit;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Dealing a game, single moves for each rule set, copying a game and the book
+ *			check. The models are headless so the numbers are the game logic only, not
+ *			saving or drawing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ModelBenchmark {
+
+	/**
+	 * A recorded game that is played back one move per call. When the game runs out it is
+	 * dealt again from the same seed, which costs one deal every few dozen moves.
+	 */
+	@State(Scope.Thread)
+	public static class Moves {
+		@Param({"BASIC", "VARIANT_1", "VARIANT_2"})
+		public GameType gameType;
+
+		@Param({"4"})
+		public int numOfPlayers;
+
+		private static final long SEED = 2023;
+		private final List<Integer> seats = new ArrayList<>();
+		private final List<String> ids = new ArrayList<>();
+		private final List<Integer> ranks = new ArrayList<>();
+		private GoFishModel model;
+		private int next;
+
+		@Setup
+		public void record() {
+			GoFishModel game = deal();
+			SplittableRandom random = new SplittableRandom(SEED);
+			RandomBot policy = new RandomBot();
+			Player[] players = game.getPlayerDecks();
+			while (!game.checkGameOver() && players[game.getCurrentTurn()].getNumOfCardsInDeck() > 0) {
+				int move = policy.chooseMove(game.getView(), random);
+				Card card = players[game.getCurrentTurn()].firstOfRank(Strategy.rank(move));
+				seats.add(Strategy.targetSeat(move));
+				ids.add(card.getId());
+				ranks.add(card.getRank());
+				game.applyMove(Strategy.targetSeat(move), card.getRank());
+			}
+			model = deal();
+		}
+
+		GoFishModel deal() {
+			GoFishModel game = new GoFishModel(numOfPlayers, gameType, SEED);
+			game.setHeadless(true);
+			return game;
+		}
+
+		/** Returns the index of the next move, dealing again if the game is done */
+		int nextMove() {
+			if (next == seats.size()) {
+				model = deal();
+				next = 0;
+			}
+			return next++;
+		}
+	}
+
+	/**
+	 * The same recorded game with the Zobrist hash kept up to date on every move
+	 */
+	@State(Scope.Thread)
+	public static class HashedMoves extends Moves {
+		@Override
+		GoFishModel deal() {
+			GoFishModel game = super.deal();
+			game.getHash();
+			return game;
+		}
+	}
+
+	/**
+	 * A player and a model for calling the private checkForBooks directly
+	 */
+	@State(Scope.Thread)
+	public static class Books {
+		private MethodHandle checkForBooks;
+		private GoFishModel model;
+		private Player player;
+		private final Card[] sevens = new Card[4];
+
+		@Setup
+		public void setup() throws ReflectiveOperationException {
+			checkForBooks = MethodHandles.privateLookupIn(GoFishModel.class, MethodHandles.lookup())
+					.findVirtual(GoFishModel.class, "checkForBooks",
+							MethodType.methodType(boolean.class, Player.class, int.class));
+			model = new GoFishModel(4, GameType.BASIC, 1);
+			model.setHeadless(true);
+			player = new Player();
+			int i = 0;
+			for (Suit suit : Suit.values()) {
+				sevens[i++] = Card.of(suit, 7);
+			}
+			player.addCard(Card.of(Suit.HEARTS, 2));
+			player.addCard(Card.of(Suit.CLUBS, 2));
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Players {
+		@Param({"2", "3", "4"})
+		public int numOfPlayers;
+		private final SplittableRandom random = new SplittableRandom(7);
+	}
+
+	/** Shuffling and dealing a new game */
+	@Benchmark
+	public GoFishModel deal(Players players) {
+		return new GoFishModel(players.numOfPlayers, GameType.BASIC, players.random.nextLong());
+	}
+
+	/** One move through the card ID API the view uses */
+	@Benchmark
+	public int getUserMove(Moves moves) {
+		int i = moves.nextMove();
+		GoFishModel model = moves.model;
+		return model.getUserMove(model.getPlayerDecks()[moves.seats.get(i)], moves.ids.get(i));
+	}
+
+	/** The same move through the seat and rank API */
+	@Benchmark
+	public int applyMove(Moves moves) {
+		int i = moves.nextMove();
+		return moves.model.applyMove(moves.seats.get(i), moves.ranks.get(i));
+	}
+
+	/** The same move with the hash being kept, the difference is the cost of the hash */
+	@Benchmark
+	public long applyMoveHashed(HashedMoves hashed) {
+		Moves moves = hashed;
+		int i = moves.nextMove();
+		moves.model.applyMove(moves.seats.get(i), moves.ranks.get(i));
+		return moves.model.getHash();
+	}
+
+	/** Forking a game for a search, the deck and books are shared and not copied */
+	@Benchmark
+	public GoFishModel copy(Moves moves) {
+		return moves.model.copy();
+	}
+
+	/** Forking a game and making one move on the fork, which is when the copy is paid for */
+	@Benchmark
+	public int copyAndMove(Moves moves) {
+		int i = moves.nextMove();
+		GoFishModel fork = moves.model.copy();
+		moves.model.applyMove(moves.seats.get(i), moves.ranks.get(i));
+		return fork.getMoveCount();
+	}
+
+	/** The book check after a card comes in that does not make a book, the common case */
+	@Benchmark
+	public boolean checkForBooksMiss(Books books) throws Throwable {
+		return (boolean) books.checkForBooks.invokeExact(books.model, books.player, 2);
+	}
+
+	/** The book check when the hand has all four of a rank */
+	@Benchmark
+	public boolean checkForBooksHit(Books books) throws Throwable {
+		for (Card card : books.sevens) {
+			books.player.addCard(card);
+		}
+		boolean booked = (boolean) books.checkForBooks.invokeExact(books.model, books.player, 7);
+		books.player.getBookedCards().clear();
+		return booked;
+	}
+}
@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import goFish.GameType;
+import model.GameCodec;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Saving and loading a game. The save file is in a temporary directory so a real
+ *			save next to the benchmark is never touched. saveModel forces the file to disk,
+ *			so the round trip numbers depend a lot on the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PersistenceBenchmark {
+	private Path dir;
+	private GoFishModel model;
+	private byte[] encoded;
+
+	@Setup
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("gofish-bench");
+		model = new GoFishModel(4, GameType.BASIC, 99);
+		model.setFileName(dir.resolve("save.bin").toString());
+		encoded = GameCodec.encode(model);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	/** Saving with the Save Game button and loading the save back */
+	@Benchmark
+	public GoFishModel saveLoadRoundTrip() {
+		model.saveModel();
+		return model.loadModel();
+	}
+
+	/** Encoding the game without any disk access */
+	@Benchmark
+	public byte[] encode() throws IOException {
+		return GameCodec.encode(model);
+	}
+
+	/** Decoding the game without any disk access */
+	@Benchmark
+	public GoFishModel decode() throws IOException {
+		return GameCodec.decode(encoded);
+	}
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bot.RandomBot;
+import bot.Strategy;
+import goFish.GameType;
+import model.GoFishModel;
+import sim.GameStats;
+import sim.Simulator;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Recording finished games into one {@link GameStats} from four threads at once,
+ *			alone and in a group with a fifth thread taking snapshots. The games are played in
+ *			setup, so only the recording is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StatsBenchmark {
+	private static final int GAMES = 256;
+
+	private final List<GoFishModel> games = new ArrayList<>();
+	private final GameStats stats = new GameStats();
+
+	/**
+	 * The game each thread records next
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next;
+	}
+
+	@Setup
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(21);
+		for (int i = 0; i < GAMES; i++) {
+			Strategy[] seats = new Strategy[2 + i % 3];
+			Arrays.fill(seats, new RandomBot());
+			GoFishModel game = new GoFishModel(seats.length, GameType.values()[i % 3], random.nextLong());
+			Simulator.playGame(game, seats, random);
+			games.add(game);
+		}
+	}
+
+	/** One game recorded, four threads recording */
+	@Benchmark
+	@Threads(4)
+	public void record(Cursor cursor) {
+		stats.record(games.get(cursor.next++ % GAMES));
+	}
+
+	/** One game recorded, in a group of four recording threads and one reading */
+	@Benchmark
+	@Group("reading")
+	@GroupThreads(4)
+	public void recordWhileReading(Cursor cursor) {
+		stats.record(games.get(cursor.next++ % GAMES));
+	}
+
+	/** One snapshot taken while four threads record */
+	@Benchmark
+	@Group("reading")
+	@GroupThreads(1)
+	public GameStats.Snapshot snapshot() {
+		return stats.snapshot();
+	}
+}
@@ -0,0 +1,353 @@
+package bot;
+
+import goFish.GameType;
+import goFish.Player;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Solves a game exactly once the deck is empty. With no deck every card that is
+ *			not booked is in someone's hand, so a player who has been counting knows every
+ *			hand and the rest of the game has no hidden information. The solver plays the
+ *			rest of the game out with the rules of the game's rule set and tells how many
+ *			books each player ends up with when everyone plays their best.
+ *
+ *			A player who can see every hand always has an ask that takes cards, since the
+ *			other cards of each rank they hold are in other hands, and an ask that takes
+ *			nothing only gives the turn (and in Ruleset 2 a card) away. So the solver only
+ *			plays asks that take cards. Then a player keeps the turn until they have taken
+ *			and booked every rank they hold, and the table after their turn is the same
+ *			whatever order they asked in. The only choice left is in Ruleset 3, where the
+ *			last player asked goes next, so the player picks who that is. The solver goes
+ *			turn by turn instead of ask by ask.
+ *
+ *			Every player looks after their own books first. Among choices that are worth
+ *			the same to them, they take the one that leaves the best of the others the
+ *			fewest books.
+ *
+ *			Results are kept in a {@link TranspositionTable} keyed by a canonical code of
+ *			the position: for each rank left, how its four cards are split between the
+ *			seats. The ranks themselves do not matter, only the splits, so the codes are
+ *			sorted and positions that differ only by which rank is which share an entry.
+ *			The table can be shared by solvers on several threads.
+ */
+public class EndgameSolver {
+	/** Most ranks left in a game that can be solved */
+	public static final int MAX_RANKS = 9;
+	private static final int CODE_BITS = 6;
+	private static final int SEATS = 4;
+	// code for each split of four cards between four seats, indexed by the counts packed
+	// 3 bits per seat. There are 35 splits, numbered from 1
+	private static final byte[] SPLIT_CODES = new byte[1 << 12];
+	static {
+		int code = 0;
+		for (int split = 0; split < SPLIT_CODES.length; split++) {
+			int cards = 0;
+			for (int seat = 0; seat < SEATS; seat++) {
+				cards += split >>> seat * 3 & 7;
+			}
+			if (cards == 4) SPLIT_CODES[split] = (byte) ++code;
+		}
+	}
+
+	private final TranspositionTable<Integer> table;
+	// the cards of each rank each seat holds, changed and put back as turns are played
+	private final int[][] counts = new int[SEATS][14];
+	// the splits of the ranks booked on each turn down the line, to put them back
+	private final int[][] booked = new int[MAX_RANKS + 1][14];
+	private final int[] codes = new int[MAX_RANKS];
+	private int depth;
+	private int seats;
+	private GameType gameType;
+	private int remaining;
+	private long positions;
+
+	/**
+	 * Creates a solver with its own table of 2^16 positions
+	 */
+	public EndgameSolver() {
+		this(new TranspositionTable<>(1 << 16, 1));
+	}
+
+	/**
+	 * Creates a solver that keeps its results in the given table. A solver is used by
+	 * one thread at a time, but several solvers can share a table.
+	 * @param table
+	 * 		the table to keep results in, only used by endgame solvers
+	 */
+	public EndgameSolver(TranspositionTable<Integer> table) {
+		this.table = table;
+	}
+
+	/**
+	 * Tells if a game can be solved: the deck is empty and there are at most
+	 * {@value #MAX_RANKS} ranks left
+	 * @param model
+	 * 		the game
+	 * @return
+	 * 		true if {@link #solve(GoFishModel)} can take it
+	 */
+	public static boolean canSolve(GoFishModel model) {
+		if (model.getDeck().size() != 0) return false;
+		int ranks = 0;
+		for (Player player : model.getPlayerDecks()) {
+			ranks |= ranksOf(player.getHandMask());
+		}
+		return Integer.bitCount(ranks) <= MAX_RANKS;
+	}
+
+	/**
+	 * Works out how many books each player ends the game with when everyone plays
+	 * their best from here
+	 * @param model
+	 * 		a game with an empty deck, it is not changed
+	 * @return
+	 * 		the books each seat has at the end
+	 * @throws IllegalArgumentException
+	 * 		if the deck is not empty, too many ranks are left or cards are missing
+	 */
+	public int[] solve(GoFishModel model) {
+		int value = search(load(model));
+		Player[] players = model.getPlayerDecks();
+		int[] books = new int[seats];
+		for (int seat = 0; seat < seats; seat++) {
+			books[seat] = players[seat].getBookedCards().size() + booksOf(value, seat);
+		}
+		return books;
+	}
+
+	/**
+	 * Finds the best move for the player whose turn it is
+	 * @param model
+	 * 		a game with an empty deck, it is not changed
+	 * @return
+	 * 		the move, see {@link Strategy#move(int, int)}, or -1 if the player can not
+	 * 		move
+	 * @throws IllegalArgumentException
+	 * 		if the deck is not empty, too many ranks are left or cards are missing
+	 */
+	public int bestMove(GoFishModel model) {
+		int turn = load(model);
+		if (remaining == 0 || handEmpty(turn)) return -1;
+		int held = ranksHeld(turn);
+		// in Ruleset 3 the player asked last goes next, so that one is asked last
+		int last = -1;
+		if (gameType == GameType.VARIANT_2) {
+			int bestValue = 0;
+			for (int target = 0; target < seats; target++) {
+				if (target == turn || (ranksHeld(target) & held) == 0) continue;
+				int value = takeTurn(turn, target);
+				if (last < 0 || better(value, bestValue, turn)) {
+					last = target;
+					bestValue = value;
+				}
+			}
+		}
+		int lastAsk = -1;
+		for (int ranks = held; ranks != 0; ranks &= ranks - 1) {
+			int rank = Integer.numberOfTrailingZeros(ranks) + 1;
+			for (int target = 0; target < seats; target++) {
+				if (target == turn || counts[target][rank] == 0) continue;
+				if (target != last) return Strategy.move(target, rank);
+				lastAsk = Strategy.move(target, rank);
+			}
+		}
+		return lastAsk;
+	}
+
+	/**
+	 * Returns how many positions have been searched, not counting the ones found in the
+	 * table
+	 * @return
+	 * 		number of positions
+	 */
+	public long getPositions() {
+		return positions;
+	}
+
+	/**
+	 * Reads the hands of a game into counts
+	 * @return
+	 * 		the seat to move
+	 */
+	private int load(GoFishModel model) {
+		if (model.getDeck().size() != 0) throw new IllegalArgumentException("The deck is not empty");
+		Player[] players = model.getPlayerDecks();
+		seats = players.length;
+		gameType = model.getGameType();
+		remaining = 0;
+		depth = 0;
+		for (int seat = 0; seat < SEATS; seat++) {
+			for (int rank = 1; rank <= 13; rank++) {
+				counts[seat][rank] = seat < seats ? players[seat].countOfRank(rank) : 0;
+			}
+			if (seat < seats) remaining |= ranksOf(players[seat].getHandMask());
+		}
+		if (Integer.bitCount(remaining) > MAX_RANKS) {
+			throw new IllegalArgumentException("More than " + MAX_RANKS + " ranks are left");
+		}
+		for (int ranks = remaining; ranks != 0; ranks &= ranks - 1) {
+			int rank = Integer.numberOfTrailingZeros(ranks) + 1;
+			int cards = 0;
+			for (int seat = 0; seat < seats; seat++) {
+				cards += counts[seat][rank];
+			}
+			if (cards != 4) throw new IllegalArgumentException("Cards of rank " + rank + " are missing");
+		}
+		return model.getCurrentTurn();
+	}
+
+	/**
+	 * Solves the position with the given seat to move
+	 * @return
+	 * 		the books each seat makes from here, 4 bits per seat
+	 */
+	private int search(int turn) {
+		// the game is over, or stalled on a player with no cards as it does in Ruleset 3
+		if (remaining == 0 || handEmpty(turn)) return 0;
+		long key = key(turn);
+		Integer known = table.get(key);
+		if (known != null) return known;
+		positions++;
+		int best;
+		if (gameType == GameType.VARIANT_2) {
+			best = -1;
+			int held = ranksHeld(turn);
+			for (int target = 0; target < seats; target++) {
+				if (target == turn || (ranksHeld(target) & held) == 0) continue;
+				int value = takeTurn(turn, target);
+				if (best < 0 || better(value, best, turn)) best = value;
+			}
+		} else {
+			best = takeTurn(turn, -1);
+		}
+		table.put(key, best);
+		return best;
+	}
+
+	/**
+	 * Plays the rest of a turn: the seat books every rank it holds, then the turn
+	 * passes on. Solves what follows and puts the cards back
+	 * @param last
+	 * 		the player asked last, who goes next in Ruleset 3
+	 * @return
+	 * 		the books each seat makes from before the turn, 4 bits per seat
+	 */
+	private int takeTurn(int seat, int last) {
+		int held = ranksHeld(seat);
+		int[] splits = booked[depth++];
+		for (int ranks = held; ranks != 0; ranks &= ranks - 1) {
+			int rank = Integer.numberOfTrailingZeros(ranks) + 1;
+			int split = 0;
+			for (int other = 0; other < seats; other++) {
+				split |= counts[other][rank] << other * 3;
+				counts[other][rank] = 0;
+			}
+			splits[rank] = split;
+		}
+		remaining &= ~held;
+
+		int value = 0;
+		if (remaining != 0) {
+			if (gameType == GameType.VARIANT_2) {
+				value = search(last);
+			} else {
+				// the next seat that still has cards
+				int next = (seat + 1) % seats;
+				while (handEmpty(next)) next = (next + 1) % seats;
+				value = search(next);
+			}
+		}
+
+		remaining |= held;
+		for (int ranks = held; ranks != 0; ranks &= ranks - 1) {
+			int rank = Integer.numberOfTrailingZeros(ranks) + 1;
+			for (int other = 0; other < seats; other++) {
+				counts[other][rank] = splits[rank] >>> other * 3 & 7;
+			}
+		}
+		depth--;
+		return value + (Integer.bitCount(held) << seat * 4);
+	}
+
+	/**
+	 * Tells if a result is better than another for a seat: more books for the seat,
+	 * then fewer for the best of the others. Any other tie goes to the lower packed
+	 * value, so the choice does not depend on the order the seats are tried in
+	 */
+	private boolean better(int value, int than, int seat) {
+		int own = booksOf(value, seat);
+		int thanOwn = booksOf(than, seat);
+		if (own != thanOwn) return own > thanOwn;
+		int other = bestOther(value, seat);
+		int thanOther = bestOther(than, seat);
+		if (other != thanOther) return other < thanOther;
+		return value < than;
+	}
+
+	private int bestOther(int value, int seat) {
+		int most = 0;
+		for (int other = 0; other < seats; other++) {
+			if (other != seat) most = Math.max(most, booksOf(value, other));
+		}
+		return most;
+	}
+
+	private static int booksOf(int value, int seat) {
+		return value >>> seat * 4 & 0xF;
+	}
+
+	/**
+	 * Returns the ranks left that a seat holds, bit rank - 1 for each
+	 */
+	private int ranksHeld(int seat) {
+		int held = 0;
+		for (int ranks = remaining; ranks != 0; ranks &= ranks - 1) {
+			int rank = Integer.numberOfTrailingZeros(ranks);
+			if (counts[seat][rank + 1] != 0) held |= 1 << rank;
+		}
+		return held;
+	}
+
+	private boolean handEmpty(int seat) {
+		return ranksHeld(seat) == 0;
+	}
+
+	/**
+	 * Makes the canonical code of the position: the split of each rank left, sorted,
+	 * then the seat to move, the number of seats and the rule set
+	 */
+	private long key(int turn) {
+		int n = 0;
+		for (int ranks = remaining; ranks != 0; ranks &= ranks - 1) {
+			int rank = Integer.numberOfTrailingZeros(ranks) + 1;
+			int split = 0;
+			for (int seat = 0; seat < seats; seat++) {
+				split |= counts[seat][rank] << seat * 3;
+			}
+			// insertion sort, there are at most nine
+			int code = SPLIT_CODES[split];
+			int i = n++;
+			for (; i > 0 && codes[i - 1] > code; i--) {
+				codes[i] = codes[i - 1];
+			}
+			codes[i] = code;
+		}
+		long key = 0;
+		for (int i = 0; i < n; i++) {
+			key = key << CODE_BITS | codes[i];
+		}
+		return (key << 2 | turn) << 4 | (seats - 1) << 2 | gameType.ordinal();
+	}
+
+	/**
+	 * Returns the ranks with at least one card in a hand mask, bit rank - 1 for each
+	 */
+	private static int ranksOf(long hand) {
+		int ranks = 0;
+		for (int rank = 0; rank < 13; rank++) {
+			if ((hand & 0xFL << rank * 4) != 0) ranks |= 1 << rank;
+		}
+		return ranks;
+	}
+}
@@ -0,0 +1,113 @@
+package bot;
+
+import java.util.SplittableRandom;
+
+import goFish.GameType;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			What a player at the table can see of a game, for strategies to decide on.
+ *			Only the hand of the player whose turn it is is shown, everyone else is a
+ *			number of cards and books. Hands are 52 bit card masks (bit
+ *			{@link goFish.Card#ordinal()} for each card) and sets of ranks are 13 bit
+ *			masks (bit rank - 1 for each rank). Nothing here allocates
+ *			but {@link #determinize(int[], int[], SplittableRandom)}.
+ */
+public interface GameView {
+
+	/**
+	 * @return
+	 * 		number of players in the game
+	 */
+	int getNumOfSeats();
+
+	/**
+	 * @return
+	 * 		index of the player whose turn it is
+	 */
+	int getCurrentTurn();
+
+	/**
+	 * @return
+	 * 		the rule set being played
+	 */
+	GameType getGameType();
+
+	/**
+	 * @return
+	 * 		number of cards left in the main deck
+	 */
+	int getDeckSize();
+
+	/**
+	 * Returns how many cards a player is holding
+	 * @param seat
+	 * 		index of the player
+	 * @return
+	 * 		number of cards in the hand
+	 */
+	int getHandSize(int seat);
+
+	/**
+	 * Returns how many books a player has made
+	 * @param seat
+	 * 		index of the player
+	 * @return
+	 * 		number of books
+	 */
+	int getBookCount(int seat);
+
+	/**
+	 * @return
+	 * 		mask of the ranks booked by anyone
+	 */
+	int getBookedRanks();
+
+	/**
+	 * @return
+	 * 		the hand of the player whose turn it is
+	 */
+	long getHandMask();
+
+	/**
+	 * @return
+	 * 		mask of the ranks the player whose turn it is holds
+	 */
+	int getRanksHeld();
+
+	/**
+	 * Returns how many cards of a rank the player whose turn it is holds
+	 * @param rank
+	 * 		the rank, 1 - 13
+	 * @return
+	 * 		number of cards of that rank
+	 */
+	int countOfRank(int rank);
+
+	/**
+	 * @return
+	 * 		true if every rank has been booked
+	 */
+	boolean isGameOver();
+
+	/**
+	 * Makes a headless copy of the game with the cards the player whose turn it is
+	 * cannot see dealt again at random. Every hand keeps its size, the deck keeps its
+	 * size, and the books and the current player's hand stay as they are, so the copy
+	 * is a game that could be behind what the player sees. See
+	 * {@link GoFishModel#copy()}. Safe to call from several threads while the game is
+	 * not changing.
+	 * @param known
+	 * 		for each seat, a mask of ranks the seat is known to hold, or null. Each gets
+	 * 		at least one card of its known ranks that are still hidden
+	 * @param lacking
+	 * 		for each seat, a mask of ranks the seat is known not to hold, or null. They
+	 * 		are left out of its hand when there are enough other cards
+	 * @param random
+	 * 		random source for the deal
+	 * @return
+	 * 		the copy
+	 */
+	GoFishModel determinize(int[] known, int[] lacking, SplittableRandom random);
+}
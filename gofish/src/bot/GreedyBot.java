@@ -0,0 +1,67 @@
+package bot;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Asks for the rank it holds the most of, since that is the rank closest to a
+ *			book. It asks opponents with more cards more often, since they are the most
+ *			likely to have it. Ties between ranks are broken at random.
+ */
+public class GreedyBot implements Strategy {
+
+	@Override
+	public int chooseMove(GameView view, SplittableRandom random) {
+		return Strategy.move(largestHand(view, random), largestRank(view, view.getRanksHeld(), random));
+	}
+
+	/**
+	 * Finds the rank out of a set that the current player holds the most of
+	 * @param view
+	 * 		the game
+	 * @param ranks
+	 * 		mask of the ranks to choose from, not empty
+	 * @param random
+	 * 		breaks ties
+	 * @return
+	 * 		the rank
+	 */
+	static int largestRank(GameView view, int ranks, SplittableRandom random) {
+		int best = 0;
+		int bestCount = 0;
+		int ties = 0;
+		for (; ranks != 0; ranks &= ranks - 1) {
+			int rank = Integer.numberOfTrailingZeros(ranks) + 1;
+			int count = view.countOfRank(rank);
+			if (count > bestCount) {
+				best = rank;
+				bestCount = count;
+				ties = 1;
+			} else if (count == bestCount && random.nextInt(++ties) == 0) {
+				best = rank;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Picks an opponent of the current player at random, weighted by how many cards
+	 * they hold. Always asking the biggest hand could ask the same player for the same
+	 * rank forever once the deck is empty.
+	 */
+	private static int largestHand(GameView view, SplittableRandom random) {
+		int seat = view.getCurrentTurn();
+		int total = 0;
+		for (int i = 0; i < view.getNumOfSeats(); i++) {
+			if (i != seat) total += view.getHandSize(i);
+		}
+		if (total == 0) return (seat + 1) % view.getNumOfSeats();
+		int pick = random.nextInt(total);
+		for (int i = 0; i < view.getNumOfSeats(); i++) {
+			if (i == seat) continue;
+			pick -= view.getHandSize(i);
+			if (pick < 0) return i;
+		}
+		throw new IllegalStateException("No opponent found");
+	}
+}
@@ -0,0 +1,350 @@
+package bot;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import goFish.Player;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Searches for its move with information set Monte Carlo tree search. Every
+ *			iteration deals the cards it cannot see again at random (see
+ *			{@link GameView#determinize(int[], int[], SplittableRandom)}), keeping to what
+ *			it remembers of who asked for what, walks down one shared tree of moves choosing
+ *			with UCB among the moves that are possible in that deal, adds one new node,
+ *			and plays the rest of the game out on the copy with every seat playing like
+ *			{@link MemoryBot}. A node counts a win for whoever made the move into it. The
+ *			move {@link MemoryBot} would make gets a bonus in the tree, so the search only
+ *			moves away from it when the play outs clearly favor another move.
+ *
+ *			Several threads search the same tree until the time budget for the move runs
+ *			out. A thread counts its visit on the way down, before it knows the result,
+ *			so the other threads see the path as a loss for a moment (a virtual loss) and
+ *			spread out over other moves instead of all following the same one.
+ *
+ *			Unlike the other bots this one builds a tree on every move and is meant for
+ *			playing against people, not for bulk simulations.
+ */
+public class IsmctsBot implements Strategy {
+	/** Time budget per move when none is given, in milliseconds */
+	public static final long DEFAULT_BUDGET_MILLIS = 50;
+	// rewards are kept as fixed point so they can be added atomically
+	private static final long REWARD_SCALE = 1 << 20;
+	private static final double EXPLORATION = 0.7;
+	// bonus for the move the memory heuristic would make, fading with its visits
+	private static final double HINT_BONUS = 1;
+	private static final int MAX_DEPTH = 64;
+	// play outs stop after this many moves and the table is scored as it stands
+	private static final int MAX_ROLLOUT_MOVES = 1000;
+
+	private final long budgetNanos;
+	private final int maxIterations;
+	private final int threads;
+	private final Executor executor;
+	private final MemoryBot memory = new MemoryBot();
+	private volatile int lastIterations;
+
+	/**
+	 * Creates a bot that searches for {@value #DEFAULT_BUDGET_MILLIS} ms per move on
+	 * every core of the common fork/join pool
+	 */
+	public IsmctsBot() {
+		this(DEFAULT_BUDGET_MILLIS, Integer.MAX_VALUE, ForkJoinPool.getCommonPoolParallelism(),
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a bot
+	 * @param budgetMillis
+	 * 		time to search for each move
+	 * @param maxIterations
+	 * 		most iterations per move, the search stops at whichever limit comes first
+	 * @param threads
+	 * 		number of threads searching at once
+	 * @param executor
+	 * 		runs the searching threads
+	 */
+	public IsmctsBot(long budgetMillis, int maxIterations, int threads, Executor executor) {
+		if (threads < 1) throw new IllegalArgumentException("Need at least one thread");
+		this.budgetNanos = budgetMillis * 1_000_000;
+		this.maxIterations = maxIterations;
+		this.threads = threads;
+		this.executor = executor;
+	}
+
+	@Override
+	public void newGame(GameView view, int seat) {
+		memory.newGame(view, seat);
+	}
+
+	@Override
+	public void moveMade(GameView view, int seat, int targetSeat, int rank, int result) {
+		memory.moveMade(view, seat, targetSeat, rank, result);
+	}
+
+	@Override
+	public int chooseMove(GameView view, SplittableRandom random) {
+		int seats = view.getNumOfSeats();
+		Node root = new Node(seats);
+		long deadline = System.nanoTime() + budgetNanos;
+		AtomicInteger iterations = new AtomicInteger();
+		int[] known = memory.known().clone();
+		int[] lacking = memory.lacking().clone();
+		CompletableFuture<?>[] searches = new CompletableFuture<?>[threads];
+		for (int i = 0; i < threads; i++) {
+			Search search = new Search(view, root, known, lacking, random.split(), deadline, iterations);
+			searches[i] = CompletableFuture.runAsync(search, executor);
+		}
+		CompletableFuture.allOf(searches).join();
+		lastIterations = Math.min(iterations.get(), maxIterations);
+
+		// the move tried the most is the one the search trusts the most
+		int seat = view.getCurrentTurn();
+		boolean anyCards = false;
+		for (int i = 0; i < seats; i++) {
+			if (i != seat && view.getHandSize(i) > 0) anyCards = true;
+		}
+		int best = -1;
+		int bestVisits = -1;
+		for (int action = 0; action < seats * 13; action++) {
+			int target = action / 13;
+			int rank = action % 13 + 1;
+			if (target == seat || view.countOfRank(rank) == 0) continue;
+			if (anyCards ? view.getHandSize(target) == 0 : target != (seat + 1) % seats) continue;
+			Node child = root.children.get(action);
+			int visits = child == null ? 0 : child.visits.get();
+			if (visits > bestVisits) {
+				best = action;
+				bestVisits = visits;
+			}
+		}
+		return Strategy.move(best / 13, best % 13 + 1);
+	}
+
+	/**
+	 * Returns how many iterations the last search made. Every iteration is one rollout.
+	 * @return
+	 * 		number of iterations
+	 */
+	public int getLastIterations() {
+		return lastIterations;
+	}
+
+	/**
+	 * Scores a game for every seat. When the game is over the seats with the most books
+	 * share a reward of 1. Otherwise every seat gets its share of what is on the table:
+	 * a point per book and up to half a point for each rank it is collecting, more the
+	 * closer it is to a book.
+	 */
+	private static void score(GoFishModel game, double[] rewards) {
+		Player[] players = game.getPlayerDecks();
+		if (game.checkGameOver()) {
+			int most = 0;
+			int leaders = 0;
+			for (Player player : players) {
+				int books = player.getBookedCards().size();
+				if (books > most) {
+					most = books;
+					leaders = 1;
+				} else if (books == most) {
+					leaders++;
+				}
+			}
+			for (int i = 0; i < players.length; i++) {
+				rewards[i] = players[i].getBookedCards().size() == most ? 1.0 / leaders : 0;
+			}
+			return;
+		}
+		double total = 0;
+		for (int i = 0; i < players.length; i++) {
+			double points = players[i].getBookedCards().size();
+			for (int rank = 1; rank <= 13; rank++) {
+				int count = players[i].countOfRank(rank);
+				points += count * count / 32.0;
+			}
+			rewards[i] = points;
+			total += points;
+		}
+		for (int i = 0; i < players.length; i++) {
+			rewards[i] = total == 0 ? 1.0 / players.length : rewards[i] / total;
+		}
+	}
+
+	/**
+	 * A move in the tree, reached by asking seat action / 13 for rank action % 13 + 1
+	 */
+	private static final class Node {
+		final AtomicReferenceArray<Node> children;
+		final AtomicInteger visits = new AtomicInteger();
+		// how often the move was possible when its parent was visited
+		final AtomicInteger available = new AtomicInteger();
+		final AtomicLong reward = new AtomicLong();
+
+		Node(int seats) {
+			children = new AtomicReferenceArray<>(seats * 13);
+		}
+
+		Node child(int action, int seats) {
+			Node child = children.get(action);
+			if (child != null) return child;
+			children.compareAndSet(action, null, new Node(seats));
+			return children.get(action);
+		}
+
+		double ucb() {
+			int n = visits.get();
+			if (n == 0) return Double.POSITIVE_INFINITY;
+			double mean = (double) reward.get() / REWARD_SCALE / n;
+			return mean + EXPLORATION * Math.sqrt(Math.log(Math.max(available.get(), 1)) / n);
+		}
+	}
+
+	/**
+	 * One searching thread
+	 */
+	private final class Search implements Runnable {
+		private final GameView view;
+		private final Node root;
+		private final int[] known;
+		private final int[] lacking;
+		private final SplittableRandom random;
+		private final long deadline;
+		private final AtomicInteger iterations;
+		private final MemoryBot rollout = new MemoryBot();
+		private final Node[] path = new Node[MAX_DEPTH + 1];
+		private final int[] movers = new int[MAX_DEPTH + 1];
+		private final int[] legal;
+		private final int[] untried;
+		private final double[] rewards;
+
+		Search(GameView view, Node root, int[] known, int[] lacking, SplittableRandom random,
+				long deadline, AtomicInteger iterations) {
+			this.view = view;
+			this.root = root;
+			this.known = known;
+			this.lacking = lacking;
+			this.random = random;
+			this.deadline = deadline;
+			this.iterations = iterations;
+			this.legal = new int[view.getNumOfSeats() * 13];
+			this.untried = new int[legal.length];
+			this.rewards = new double[view.getNumOfSeats()];
+		}
+
+		@Override
+		public void run() {
+			while (System.nanoTime() < deadline && iterations.getAndIncrement() < maxIterations) {
+				iterate();
+			}
+		}
+
+		private void iterate() {
+			GoFishModel game = view.determinize(known, lacking, random);
+			GameView gameView = game.getView();
+			rollout.remember(known, lacking);
+			int seats = game.getPlayerDecks().length;
+			Node node = root;
+			root.visits.incrementAndGet();
+			int depth = 0;
+			boolean expanded = false;
+			while (depth < MAX_DEPTH && !expanded && canMove(game)) {
+				int seat = game.getCurrentTurn();
+				int count = legalMoves(game, seat);
+				// the move the memory heuristic would make is tried first and gets a bonus that
+				// fades as the visits come in
+				int hint = rollout.chooseMove(gameView, random);
+				int hinted = Strategy.targetSeat(hint) * 13 + Strategy.rank(hint) - 1;
+				boolean hintUntried = false;
+				int untriedCount = 0;
+				for (int i = 0; i < count; i++) {
+					Node child = node.children.get(legal[i]);
+					if (child == null) {
+						untried[untriedCount++] = legal[i];
+						if (legal[i] == hinted) hintUntried = true;
+					} else {
+						child.available.incrementAndGet();
+					}
+				}
+				int action;
+				if (untriedCount > 0) {
+					// add one new node and play out from it. Another thread may add the same
+					// node first, then both play out from it
+					action = hintUntried ? hinted : untried[random.nextInt(untriedCount)];
+					node = node.child(action, seats);
+					node.available.incrementAndGet();
+					expanded = true;
+				} else {
+					action = legal[0];
+					double best = Double.NEGATIVE_INFINITY;
+					for (int i = 0; i < count; i++) {
+						Node child = node.children.get(legal[i]);
+						double ucb = child.ucb();
+						if (legal[i] == hinted) ucb += HINT_BONUS / Math.sqrt(child.visits.get() + 1);
+						if (ucb > best) {
+							best = ucb;
+							action = legal[i];
+						}
+					}
+					node = node.children.get(action);
+				}
+				// the virtual loss: the visit counts now, the reward comes after the rollout
+				node.visits.incrementAndGet();
+				path[depth] = node;
+				movers[depth] = seat;
+				depth++;
+				play(game, gameView, action / 13, action % 13 + 1);
+			}
+
+			for (int moves = 0; moves < MAX_ROLLOUT_MOVES && canMove(game); moves++) {
+				int move = rollout.chooseMove(gameView, random);
+				play(game, gameView, Strategy.targetSeat(move), Strategy.rank(move));
+			}
+			score(game, rewards);
+			for (int i = 0; i < depth; i++) {
+				path[i].reward.addAndGet((long) (rewards[movers[i]] * REWARD_SCALE));
+			}
+		}
+
+		/**
+		 * Makes a move on the copy. Everyone in the play out remembers what was asked for,
+		 * starting from what this bot remembers of the real game
+		 */
+		private void play(GoFishModel game, GameView gameView, int targetSeat, int rank) {
+			int seat = game.getCurrentTurn();
+			int result = game.applyMove(targetSeat, rank);
+			rollout.moveMade(gameView, seat, targetSeat, rank, result);
+		}
+
+		/**
+		 * Fills legal with every move the seat can make, asking only opponents that have
+		 * cards unless nobody does
+		 */
+		private int legalMoves(GoFishModel game, int seat) {
+			Player[] players = game.getPlayerDecks();
+			int count = 0;
+			for (int target = 0; target < players.length; target++) {
+				if (target == seat || players[target].getNumOfCardsInDeck() == 0) continue;
+				for (int rank = 1; rank <= 13; rank++) {
+					if (players[seat].hasRank(rank)) legal[count++] = target * 13 + rank - 1;
+				}
+			}
+			if (count == 0) {
+				int target = (seat + 1) % players.length;
+				for (int rank = 1; rank <= 13; rank++) {
+					if (players[seat].hasRank(rank)) legal[count++] = target * 13 + rank - 1;
+				}
+			}
+			return count;
+		}
+
+		private boolean canMove(GoFishModel game) {
+			return !game.checkGameOver() && game.getPlayerDecks()[game.getCurrentTurn()].getNumOfCardsInDeck() > 0;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package bot;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import goFish.GameType;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Remembers what everyone asks for. A player asking for a rank is holding it, and
+ *			a player who was asked for a rank is not holding it anymore, whether they gave
+ *			cards up or had none, until they next draw. On its turn it asks an opponent
+ *			known to hold one of its ranks, taking the rank it holds the most of. When it
+ *			knows of nobody it plays like {@link GreedyBot}, but never asks a player for a
+ *			rank they are known not to have.
+ */
+public class MemoryBot implements Strategy {
+	private final Strategy fallback = new GreedyBot();
+	// the ranks each seat is known to hold, and known not to hold
+	private int[] known = new int[4];
+	private int[] lacking = new int[4];
+
+	@Override
+	public void newGame(GameView view, int seat) {
+		if (known.length < view.getNumOfSeats()) {
+			known = new int[view.getNumOfSeats()];
+			lacking = new int[view.getNumOfSeats()];
+		}
+		Arrays.fill(known, 0);
+		Arrays.fill(lacking, 0);
+	}
+
+	@Override
+	public int chooseMove(GameView view, SplittableRandom random) {
+		int seat = view.getCurrentTurn();
+		int held = view.getRanksHeld();
+		int bestSeat = -1;
+		int bestRank = 0;
+		int bestCount = 0;
+		for (int i = 0; i < view.getNumOfSeats(); i++) {
+			int wanted = known[i] & held;
+			if (i == seat || wanted == 0 || view.getHandSize(i) == 0) continue;
+			int rank = GreedyBot.largestRank(view, wanted, random);
+			if (view.countOfRank(rank) > bestCount) {
+				bestSeat = i;
+				bestRank = rank;
+				bestCount = view.countOfRank(rank);
+			}
+		}
+		if (bestSeat >= 0) return Strategy.move(bestSeat, bestRank);
+
+		// the ranks some opponent with cards could still have
+		int possible = 0;
+		int cards = 0;
+		for (int i = 0; i < view.getNumOfSeats(); i++) {
+			if (i == seat || view.getHandSize(i) == 0) continue;
+			possible |= held & ~lacking[i];
+		}
+		if (possible == 0) return fallback.chooseMove(view, random);
+		int rank = GreedyBot.largestRank(view, possible, random);
+		int bit = 1 << (rank - 1);
+		for (int i = 0; i < view.getNumOfSeats(); i++) {
+			if (i != seat && (lacking[i] & bit) == 0) cards += view.getHandSize(i);
+		}
+		// ask one of the players who could have it, bigger hands more often
+		int pick = random.nextInt(cards);
+		for (int i = 0; i < view.getNumOfSeats(); i++) {
+			if (i == seat || (lacking[i] & bit) != 0) continue;
+			pick -= view.getHandSize(i);
+			if (pick < 0) return Strategy.move(i, rank);
+		}
+		throw new IllegalStateException("No opponent found");
+	}
+
+	/**
+	 * Returns what has been remembered so far
+	 * @return
+	 * 		for each seat, a mask of the ranks it is known to hold
+	 */
+	int[] known() {
+		return known;
+	}
+
+	/**
+	 * Returns what has been remembered so far
+	 * @return
+	 * 		for each seat, a mask of the ranks it is known not to hold
+	 */
+	int[] lacking() {
+		return lacking;
+	}
+
+	/**
+	 * Replaces what has been remembered
+	 * @param known
+	 * 		for each seat, a mask of the ranks it is known to hold
+	 * @param lacking
+	 * 		for each seat, a mask of the ranks it is known not to hold
+	 */
+	void remember(int[] known, int[] lacking) {
+		System.arraycopy(known, 0, this.known, 0, known.length);
+		System.arraycopy(lacking, 0, this.lacking, 0, lacking.length);
+	}
+
+	@Override
+	public void moveMade(GameView view, int seat, int targetSeat, int rank, int result) {
+		int bit = 1 << (rank - 1);
+		if (result == GoFishModel.NO_CARDS && view.getGameType() == GameType.VARIANT_1) {
+			// the asker handed over the card they asked with
+			known[targetSeat] |= bit;
+			lacking[targetSeat] &= ~bit;
+		} else {
+			known[targetSeat] &= ~bit;
+			lacking[targetSeat] |= bit;
+		}
+		known[seat] |= bit;
+		lacking[seat] &= ~bit;
+		// the asker drew and could have drawn anything
+		if (result == GoFishModel.NO_CARDS) lacking[seat] = 0;
+		// a booked rank is out of the game
+		int booked = view.getBookedRanks();
+		for (int i = 0; i < known.length; i++) {
+			known[i] &= ~booked;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package bot;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			The simplest bot. It asks a random opponent that still has cards for the rank
+ *			of a random card in its hand, so ranks it holds more of are asked for more
+ *			often.
+ */
+public class RandomBot implements Strategy {
+
+	@Override
+	public int chooseMove(GameView view, SplittableRandom random) {
+		long hand = view.getHandMask();
+		// drop a random number of the lowest cards, the lowest one left is the pick
+		for (int skip = random.nextInt(Long.bitCount(hand)); skip > 0; skip--) {
+			hand &= hand - 1;
+		}
+		int rank = Long.numberOfTrailingZeros(hand) / 4 + 1;
+		return Strategy.move(Strategy.randomOpponent(view, random), rank);
+	}
+}
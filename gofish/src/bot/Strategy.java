@@ -0,0 +1,118 @@
+package bot;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			A strategy plays one seat. On its turn it picks the opponent to ask and the
+ *			rank to ask for, packed into a single int, and it is told about every move
+ *			made at the table so it can remember what it has seen. Strategies are called
+ *			on every move of every simulated game, so they must not allocate while
+ *			playing; anything they need is made once, in the constructor or in
+ *			{@link #newGame(GameView, int)}.
+ *
+ *			One strategy object plays one seat of one game at a time and is only called
+ *			by the thread making the moves, so it does not need to be thread safe.
+ */
+public interface Strategy {
+
+	/**
+	 * Called when the strategy is seated, before any move it sees. Strategies that
+	 * remember the game forget it here.
+	 * @param view
+	 * 		the game
+	 * @param seat
+	 * 		the seat this strategy plays
+	 */
+	default void newGame(GameView view, int seat) {
+	}
+
+	/**
+	 * Chooses the move for the player whose turn it is. The rank has to be a rank the
+	 * player is holding.
+	 * @param view
+	 * 		the game as the player sees it
+	 * @param random
+	 * 		random source owned by the calling thread
+	 * @return
+	 * 		the move, made with {@link #move(int, int)}
+	 */
+	int chooseMove(GameView view, SplittableRandom random);
+
+	/**
+	 * Called after every move made at the table, by any player
+	 * @param view
+	 * 		the game after the move
+	 * @param seat
+	 * 		index of the player who asked
+	 * @param targetSeat
+	 * 		index of the player who was asked
+	 * @param rank
+	 * 		the rank asked for
+	 * @param result
+	 * 		{@link model.GoFishModel#NO_CARDS}, {@link model.GoFishModel#ACQUIRED} or
+	 * 		{@link model.GoFishModel#BOOKED}
+	 */
+	default void moveMade(GameView view, int seat, int targetSeat, int rank, int result) {
+	}
+
+	/**
+	 * Packs a target seat and a rank into a move
+	 * @param targetSeat
+	 * 		index of the player being asked
+	 * @param rank
+	 * 		rank being asked for, 1 - 13
+	 * @return
+	 * 		the packed move
+	 */
+	static int move(int targetSeat, int rank) {
+		return (targetSeat << 8) | rank;
+	}
+
+	/**
+	 * Gets the target seat out of a packed move
+	 * @param move
+	 * 		the packed move
+	 * @return
+	 * 		index of the player being asked
+	 */
+	static int targetSeat(int move) {
+		return move >>> 8;
+	}
+
+	/**
+	 * Gets the rank out of a packed move
+	 * @param move
+	 * 		the packed move
+	 * @return
+	 * 		rank being asked for
+	 */
+	static int rank(int move) {
+		return move & 0xFF;
+	}
+
+	/**
+	 * Picks a random opponent of the current player that is holding cards. If nobody
+	 * is, the next player is picked.
+	 * @param view
+	 * 		the game
+	 * @param random
+	 * 		random source
+	 * @return
+	 * 		index of the opponent
+	 */
+	static int randomOpponent(GameView view, SplittableRandom random) {
+		int seat = view.getCurrentTurn();
+		int seats = view.getNumOfSeats();
+		int candidates = 0;
+		for (int i = 0; i < seats; i++) {
+			if (i != seat && view.getHandSize(i) > 0) candidates++;
+		}
+		if (candidates == 0) return (seat + 1) % seats;
+		int pick = random.nextInt(candidates);
+		for (int i = 0; i < seats; i++) {
+			if (i != seat && view.getHandSize(i) > 0 && pick-- == 0) return i;
+		}
+		throw new IllegalStateException("No opponent found");
+	}
+}
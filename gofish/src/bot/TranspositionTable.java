@@ -0,0 +1,106 @@
+package bot;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			A fixed size cache from position hashes ({@link model.GoFishModel#getHash()})
+ *			to whatever a search found out about the position. Every hash has one slot,
+ *			picked by its low bits, and a new entry always takes the slot over, so the
+ *			table never grows and the newest results are the ones kept.
+ *
+ *			The slots are split into stripes that each have their own lock, so threads
+ *			searching at the same time only wait for each other when they touch the same
+ *			stripe. A lookup compares the whole 64 bit hash, never the game itself.
+ * @param <V>
+ * 		what is stored for a position
+ */
+public final class TranspositionTable<V> {
+	private final long[] hashes;
+	private final Object[] values;
+	private final Object[] locks;
+	private final int slotMask;
+	private final int stripeShift;
+
+	/**
+	 * Creates a table
+	 * @param capacity
+	 * 		most positions kept, rounded up to a power of two
+	 * @param stripes
+	 * 		number of locks, rounded up to a power of two and at most the capacity
+	 */
+	public TranspositionTable(int capacity, int stripes) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+		}
+		if (stripes < 1) throw new IllegalArgumentException("Need at least one stripe");
+		int slots = powerOfTwo(capacity);
+		int locked = Math.min(powerOfTwo(stripes), slots);
+		hashes = new long[slots];
+		values = new Object[slots];
+		locks = new Object[locked];
+		for (int i = 0; i < locked; i++) {
+			locks[i] = new Object();
+		}
+		slotMask = slots - 1;
+		// the high bits of the slot pick the stripe, so neighbouring slots share a lock
+		stripeShift = Integer.numberOfTrailingZeros(slots) - Integer.numberOfTrailingZeros(locked);
+	}
+
+	/**
+	 * Looks a position up
+	 * @param hash
+	 * 		hash of the position
+	 * @return
+	 * 		what was stored for it, or null if nothing is, or it was pushed out
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long hash) {
+		int slot = (int) hash & slotMask;
+		synchronized (locks[slot >>> stripeShift]) {
+			return hashes[slot] == hash ? (V) values[slot] : null;
+		}
+	}
+
+	/**
+	 * Stores what is known about a position, pushing out whatever shared its slot
+	 * @param hash
+	 * 		hash of the position
+	 * @param value
+	 * 		what to store, not null
+	 */
+	public void put(long hash, V value) {
+		if (value == null) throw new IllegalArgumentException("Value can not be null");
+		int slot = (int) hash & slotMask;
+		synchronized (locks[slot >>> stripeShift]) {
+			hashes[slot] = hash;
+			values[slot] = value;
+		}
+	}
+
+	/**
+	 * Empties the table
+	 */
+	public void clear() {
+		for (int stripe = 0; stripe < locks.length; stripe++) {
+			synchronized (locks[stripe]) {
+				int from = stripe << stripeShift;
+				for (int slot = from; slot < from + (1 << stripeShift); slot++) {
+					hashes[slot] = 0;
+					values[slot] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of slots
+	 * @return
+	 * 		most positions the table can hold
+	 */
+	public int capacity() {
+		return values.length;
+	}
+
+	private static int powerOfTwo(int n) {
+		return n == 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+	}
+}
@@ -40,6 +40,30 @@ public class GoFishController {
 
 	}
 	
+	/**
+	 * This method handles a move given as seats and ranks instead of objects and card IDs. 
+	 * Used by bots and replays. 
+	 * @param targetSeat
+	 * 		index of the player being asked
+	 * @param rank
+	 * 		the rank being asked for, 1 - 13
+	 * @return
+	 * 		the same result codes as {@link #handleUserMove(Player, String)}
+	 */
+	public int handleUserMove(int targetSeat, int rank) {
+		return model.applyMove(targetSeat, rank);
+	}
+	
+	/**
+	 * Lets the bots at the table play until it is a person's turn. Called after every 
+	 * move a person makes. 
+	 * @return
+	 * 		number of moves the bots made
+	 */
+	public int playBots() {
+		return model.playBots();
+	}
+	
 	/**
 	 * This is called from the view by the user to save the game.
 	 */
@@ -47,6 +71,32 @@ public class GoFishController {
 		model.saveModel();
 	}
 	
+	/**
+	 * This writes any moves that have not been saved yet. Called when the game closes.
+	 */
+	public void flushSave() {
+		model.flushSave();
+	}
+	
+	/**
+	 * Returns the seed the current game was dealt from. Together with the moves it is 
+	 * enough to play the game again exactly. 
+	 * @return
+	 * 		the seed, only meaningful if {@link #hasSeed()}
+	 */
+	public long getSeed() {
+		return model.getSeed();
+	}
+	
+	/**
+	 * Tells if the current game was dealt from a seed
+	 * @return
+	 * 		false if the game was dealt from a custom deck
+	 */
+	public boolean hasSeed() {
+		return model.hasSeed();
+	}
+	
 	/**
 	 * This grabs the model from the controller 
 	 * @return
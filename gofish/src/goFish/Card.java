@@ -8,17 +8,37 @@ import java.io.Serializable;
  * suit. It also has an ID that is a combination of the first letter 
  * of the suit and the rank. 
  * 
+ * There are only 52 different cards, so one instance of each is made 
+ * up front and shared. Use {@link #of(Suit, int)}, {@link #ofId(String)} 
+ * or {@link #ofOrdinal(int)} to get them. Every card also has an ordinal 
+ * from 0 to 51, (rank - 1) * 4 + suit ordinal, so the four cards of a 
+ * rank sit next to each other. 
+ * 
  * @author Jackson, Davlat, Matthew, Zach
  *
  */
 public class Card implements Serializable{
+	private static final long serialVersionUID = -3931683569419505510L;
+	/** Number of cards in a deck */
+	public static final int DECK_SIZE = 52;
 	private int rank; 
 	private String id; 
 	private Suit suit;
 	private static char[] names = {'0', 'A', '2', '3', '4', '5', '6', '7', '8', '9', 'T', 'J', 'Q', 'K'};
+	private static final Suit[] SUITS = Suit.values();
+	private static final Card[] CARDS = new Card[DECK_SIZE];
+	
+	static {
+		for (int rank = 1; rank <= 13; rank++) {
+			for (Suit suit : SUITS) {
+				CARDS[ordinal(suit, rank)] = new Card(suit, rank);
+			}
+		}
+	}
 
 	/**
-	 * Constructor for the card object. Takes in a suit and rank
+	 * Constructor for the card object. Takes in a suit and rank. Prefer 
+	 * {@link #of(Suit, int)}, which returns the shared instance. 
 	 * @param suit
 	 * 		this is the suit of the card
 	 * @param rank
@@ -30,6 +50,65 @@ public class Card implements Serializable{
 		this.id = ""+names[rank] + suit.getSuit().charAt(0);
 	}
 	
+	/**
+	 * Returns the shared instance of a card
+	 * @param suit
+	 * 		the suit of the card
+	 * @param rank
+	 * 		the rank of the card, 1 - 13
+	 * @return
+	 * 		the card
+	 */
+	public static Card of(Suit suit, int rank) {
+		if (rank < 1 || rank > 13) {
+			throw new IllegalArgumentException("Rank must be between 1 and 13: " + rank);
+		}
+		return CARDS[ordinal(suit, rank)];
+	}
+	
+	/**
+	 * Returns the card with the given ordinal
+	 * @param ordinal
+	 * 		the ordinal, 0 - 51
+	 * @return
+	 * 		the card
+	 */
+	public static Card ofOrdinal(int ordinal) {
+		return CARDS[ordinal];
+	}
+	
+	/**
+	 * Returns the card with the given ID, like "QH" or "TS"
+	 * @param id
+	 * 		the ID of the card
+	 * @return
+	 * 		the card
+	 */
+	public static Card ofId(String id) {
+		if (id == null || id.length() != 2) {
+			throw new IllegalArgumentException("Not a card id: " + id);
+		}
+		int rank = 1;
+		while (rank <= 13 && names[rank] != id.charAt(0)) rank++;
+		for (Suit suit : SUITS) {
+			if (rank <= 13 && suit.getSuit().charAt(0) == id.charAt(1)) return CARDS[ordinal(suit, rank)];
+		}
+		throw new IllegalArgumentException("Not a card id: " + id);
+	}
+	
+	private static int ordinal(Suit suit, int rank) {
+		return (rank - 1) * 4 + suit.ordinal();
+	}
+	
+	/**
+	 * Returns the 0 - 51 number of this card
+	 * @return
+	 * 		the ordinal
+	 */
+	public int ordinal() {
+		return ordinal(suit, rank);
+	}
+	
 	/**
 	 * Getter for the rank
 	 * @return
@@ -67,6 +146,29 @@ public class Card implements Serializable{
 		return id;
 	}
 	
+	/**
+	 * Two cards are equal if they have the same rank and suit 
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof Card)) return false;
+		Card other = (Card) o;
+		return rank == other.rank && suit == other.suit;
+	}
+	
+	@Override
+	public int hashCode() {
+		return ordinal();
+	}
+	
+	/**
+	 * Replaces a deserialized card with the shared instance 
+	 */
+	private Object readResolve() {
+		return of(suit, rank);
+	}
+	
 	
 	
 }
@@ -1,73 +1,187 @@
 package goFish;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
 import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.Stack;
 
 /**
- * This is the deck that contains all 52 cards of a standard deck. 
- * It uses a stack so that the cards can only be pulled and pushed from 
- * the top. There is only one instance of this in the game. 
- * 
+ * This is the deck that contains all 52 cards of a standard deck.
+ * Cards can only be pulled and pushed from the top. There is only one
+ * instance of this in the game.
+ *
+ * The cards are kept as an array of card ordinals (see {@link Card#ordinal()})
+ * with the top of the deck at the end, so pulling and pushing a card is one
+ * array access and nothing is locked. A 52 bit mask of the cards in the deck
+ * answers {@link #contains(Object)} without searching. Shuffling is a
+ * Fisher-Yates shuffle driven by the deck's own SplittableRandom, so decks
+ * made with the same seed are dealt the same way and parallel games do not
+ * share a random number generator.
+ *
+ * A copy of a deck shares the card array with the original until one of them
+ * pushes a card or shuffles. Pulling cards only moves the top and clears a bit
+ * of the mask, so a copy that is only drawn from never copies the array.
+ *
  * @author Davlat, Jackson, Zach, Matthew
  */
 public class Deck  implements Serializable{
-	private Stack<Card> stack;
-	private final Set<Card> totalCards = new HashSet<>();
-	
-	
+	private static final long serialVersionUID = -6462090806392171185L;
+	// saved with the same fields as when the deck was a Stack, so old saves still load
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("stack", Stack.class),
+			new ObjectStreamField("totalCards", Set.class)
+	};
+
+	private transient byte[] cards = new byte[Card.DECK_SIZE];
+	private transient int top;
+	private transient long mask;
+	// number of copies of each card, only made when a card is pushed twice
+	private transient byte[] copies;
+	// true while cards and copies may also belong to a copy of this deck
+	private transient boolean shared;
+	private transient SplittableRandom random;
+	private transient CardsView cardsView;
+
+
 	/**
-	 * This constructor is used to create the 52 card deck. 
+	 * This constructor is used to create the 52 card deck.
 	 */
 	public Deck() {
-		stack = new Stack<>();
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * Creates the 52 card deck and shuffles it with the given random source.
+	 * The same source state always gives the same deck.
+	 * @param random
+	 * 		random source used by this deck for shuffling
+	 */
+	public Deck(SplittableRandom random) {
+		this.random = random;
 		final int[] ranks = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13};
 		final Suit[] suits = {Suit.CLUBS, Suit.SPADES, Suit.DIAMONDS, Suit.HEARTS};
-		for (int rank : ranks) { 
+		for (int rank : ranks) {
 			for (Suit suit : suits) {
-				Card card = new Card(suit, rank);
-				totalCards.add(card);
-				stack.push(card);
+				addToDeck(Card.of(suit, rank));
 			}
 		}
 		this.shuffle();
 	}
-	
+
 	/**
 	 * The constructor that is mainly meant for testing. Does not shuffle, because
-	 * random orders of card would make testing near impossible. 
-	 * 
+	 * random orders of card would make testing near impossible. The cards are
+	 * copied, the top of the stack is the top of the deck.
+	 *
 	 * @param prebuiltStack a Stack&lt;Card&gt; that you already built.
 	 */
 	public Deck(Stack<Card> prebuiltStack) {
-		stack = prebuiltStack;
+		for (Card card : prebuiltStack) {
+			addToDeck(card);
+		}
 	}
-	
+
+	/**
+	 * Makes a copy of a deck, in the same order. The copy has its own random source
+	 * if it is shuffled. The cards are only copied when one of the decks first pushes
+	 * a card or shuffles.
+	 * @param other
+	 * 		the deck to copy
+	 */
+	public Deck(Deck other) {
+		other.shared = true;
+		shared = true;
+		cards = other.cards;
+		top = other.top;
+		mask = other.mask;
+		copies = other.copies;
+	}
+
 	/**
 	 * This adds the card to the deck stack
 	 * @param card
 	 * 		card to be added
 	 */
 	public void addToDeck(Card card) {
-		stack.push(card);
+		if (shared) unshare();
+		if (top == cards.length) cards = Arrays.copyOf(cards, top * 2);
+		int ordinal = card.ordinal();
+		long bit = 1L << ordinal;
+		if (copies == null && (mask & bit) != 0) countCopies();
+		if (copies != null) copies[ordinal]++;
+		cards[top++] = (byte) ordinal;
+		mask |= bit;
 	}
-	
+
 	/**
 	 * This takes a card from the top of the stack
 	 * @return
 	 * 		returns card from top
+	 * @throws EmptyStackException
+	 * 		if the deck is empty
 	 */
 	public Card pullCard() {
-		return stack.pop();
+		if (top == 0) throw new EmptyStackException();
+		int ordinal = cards[--top];
+		if (copies == null) {
+			mask &= ~(1L << ordinal);
+		} else {
+			if (shared) unshare();
+			if (--copies[ordinal] == 0) mask &= ~(1L << ordinal);
+		}
+		return Card.ofOrdinal(ordinal);
+	}
+
+	/**
+	 * Starts counting the copies of each card, the first time a card is pushed twice
+	 */
+	private void countCopies() {
+		copies = new byte[Card.DECK_SIZE];
+		for (int i = 0; i < top; i++) {
+			copies[cards[i]]++;
+		}
+	}
+
+	/**
+	 * Gives this deck its own arrays before it changes them
+	 */
+	private void unshare() {
+		cards = cards.clone();
+		if (copies != null) copies = copies.clone();
+		shared = false;
 	}
-	
+
 	/**
-	 * Shuffles the deck. Used during initialization
+	 * Shuffles the deck with its own random source. Used during initialization
 	 */
 	public void shuffle() {
-		Collections.shuffle(stack);
+		if (random == null) random = new SplittableRandom();
+		shuffle(random);
+	}
+
+	/**
+	 * Shuffles the deck with a Fisher-Yates shuffle
+	 * @param random
+	 * 		random source for the shuffle
+	 */
+	public void shuffle(SplittableRandom random) {
+		if (shared) unshare();
+		for (int i = top - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			byte swap = cards[i];
+			cards[i] = cards[j];
+			cards[j] = swap;
+		}
 	}
 
 	/**
@@ -75,27 +189,85 @@ public class Deck  implements Serializable{
 	 * @return
 	 */
 	public int size() {
-		return stack.size();
+		return top;
 	}
-	
+
 	/**
-	 * Checks to see if the deck contains the object 
+	 * Checks to see if the deck contains the object
 	 * @param o
-	 * 		object being checked for 
+	 * 		object being checked for
 	 * @return
 	 * 		boolean that tells us if the object is in the deck
 	 */
 	public boolean contains(Object o) {
-		return stack.contains(o);
+		return o instanceof Card && (mask & 1L << ((Card) o).ordinal()) != 0;
+	}
+
+	/**
+	 * Returns the cards in the deck as a mask with bit {@link Card#ordinal()} set for
+	 * every card in it
+	 * @return
+	 * 		the deck mask
+	 */
+	public long getMask() {
+		return mask;
 	}
-	
+
+	/**
+	 * Returns the cards in the deck, from the bottom to the top
+	 * @return
+	 * 		read only view of the cards
+	 */
+	public List<Card> getCards() {
+		if (cardsView == null) cardsView = new CardsView();
+		return cardsView;
+	}
+
 	/**
-	 * Simple to string for the stack 
+	 * Simple to string for the stack
 	 */
 	@Override
 	public String toString() {
-		return stack.toString();
+		return getCards().toString();
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		Stack<Card> stack = new Stack<>();
+		stack.addAll(getCards());
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("stack", stack);
+		fields.put("totalCards", new HashSet<Card>());
+		out.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		cards = new byte[Card.DECK_SIZE];
+		Stack<Card> stack = (Stack<Card>) fields.get("stack", null);
+		if (stack != null) {
+			for (Card card : stack) {
+				addToDeck(card);
+			}
+		}
+	}
+
+	/**
+	 * Read only list of the cards in the array, bottom to top
+	 */
+	private final class CardsView extends AbstractList<Card> implements RandomAccess {
+		@Override
+		public Card get(int index) {
+			if (index < 0 || index >= top) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + top);
+			}
+			return Card.ofOrdinal(cards[index]);
+		}
+
+		@Override
+		public int size() {
+			return top;
+		}
 	}
-	
 
 }
@@ -1,57 +1,288 @@
 package goFish;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
- * This is the player class. It holds the hand of player and the 
+ * This is the player class. It holds the hand of player and the
  * booked cards of the player.
- * 
+ *
+ * The hand is kept as a 52 bit mask with one bit per card ordinal (see
+ * {@link Card#ordinal()}). The four cards of a rank are next to each other
+ * in the mask, so asking for a rank, counting a rank, handing over every
+ * card of a rank and checking for a book are all a few bit operations.
+ * {@link #getHand()} is a read only list view of the mask for the view and
+ * the tests.
+ *
+ * A copy of a player shares the booked cards with the original until one of
+ * them books a rank, so copying a player is one mask and one reference.
+ *
  * @author Jackson, Davlat, Matthew, Zach
  *
  */
 
 public class Player  implements Serializable{
-	private List<Card> hand;
+	private static final long serialVersionUID = 4583714526514807653L;
+	// saved with the same fields as before the hand was a mask, so old saves still load
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("hand", List.class),
+			new ObjectStreamField("bookedCards", List.class)
+	};
+	private static final long RANK_MASK = 0xFL;
+
+	private transient long handMask;
+	private transient HandView handView;
 	private List<Card> bookedCards;
-	
-	
+	// true while bookedCards may also belong to a copy of this player
+	private transient boolean booksShared;
+
+
 	public Player() {
-		hand = new ArrayList<>();
 		bookedCards = new ArrayList<>();
 	}
-	
+
+	/**
+	 * Makes a copy of a player
+	 * @param other
+	 * 		the player to copy
+	 */
+	public Player(Player other) {
+		this(other, other.handMask);
+	}
+
+	/**
+	 * Makes a player with the books of another player and a different hand. Used to
+	 * try out hands that could be behind the cards of an opponent.
+	 * @param other
+	 * 		the player whose books are copied
+	 * @param hand
+	 * 		mask of the cards in the new hand
+	 */
+	public Player(Player other, long hand) {
+		other.booksShared = true;
+		booksShared = true;
+		bookedCards = other.bookedCards;
+		handMask = hand;
+	}
+
 	/**
 	 * This returns the size of the hand
 	 * @return
 	 * 		returns size of the hand
 	 */
 	public int getNumOfCardsInDeck() {
-		return hand.size();
+		return Long.bitCount(handMask);
 	}
-	
+
 	/**
-	 * This returns the hand of the player 
+	 * This returns the hand of the player. The list is a read only view that
+	 * follows the hand as it changes. Cards are in ordinal order, so cards of
+	 * the same rank are next to each other.
 	 * @return
 	 * 		returns the hand of the player
 	 */
 	public List<Card> getHand(){
-		return hand;
+		if (handView == null) handView = new HandView();
+		return handView;
 	}
-	
+
 	/**
-	 * This returns booked cards 
+	 * This returns booked cards. The list can be shared with copies of this
+	 * player, so it must not be changed.
 	 * @return
 	 * 		returns the booked cards
 	 */
 	public List<Card> getBookedCards() {
 		return bookedCards;
 	}
-	
+
+	/**
+	 * Replaces the hand with the given cards
+	 * @param hand
+	 * 		the new hand
+	 */
 	public void setHand(List<Card> hand) {
-		this.hand = hand;
+		handMask = 0;
+		for (Card card : hand) {
+			addCard(card);
+		}
 	}
-	
+
+	/**
+	 * Returns the hand as a mask with bit {@link Card#ordinal()} set for every card held
+	 * @return
+	 * 		the hand mask
+	 */
+	public long getHandMask() {
+		return handMask;
+	}
+
+	/**
+	 * Returns how many cards of a rank are in the hand
+	 * @param rank
+	 * 		the rank, 1 - 13
+	 * @return
+	 * 		number of cards of that rank
+	 */
+	public int countOfRank(int rank) {
+		return Long.bitCount(handMask & RANK_MASK << shift(rank));
+	}
+
+	/**
+	 * Tells if the hand has a card of the rank. This is "Do you have any Xs?"
+	 * @param rank
+	 * 		the rank, 1 - 13
+	 * @return
+	 * 		true if at least one card of that rank is held
+	 */
+	public boolean hasRank(int rank) {
+		return (handMask & RANK_MASK << shift(rank)) != 0;
+	}
+
+	/**
+	 * Tells if the card is in the hand
+	 * @param card
+	 * 		the card
+	 * @return
+	 * 		true if it is held
+	 */
+	public boolean holds(Card card) {
+		return (handMask & 1L << card.ordinal()) != 0;
+	}
+
+	/**
+	 * Returns the card of a rank with the lowest ordinal in the hand
+	 * @param rank
+	 * 		the rank, 1 - 13
+	 * @return
+	 * 		the card, or null if no card of that rank is held
+	 */
+	public Card firstOfRank(int rank) {
+		long cards = handMask & RANK_MASK << shift(rank);
+		return cards == 0 ? null : Card.ofOrdinal(Long.numberOfTrailingZeros(cards));
+	}
+
+	/**
+	 * Adds a card to the hand. Adding a card that is already held does nothing.
+	 * @param card
+	 * 		the card to add
+	 */
+	public void addCard(Card card) {
+		handMask |= 1L << card.ordinal();
+	}
+
+	/**
+	 * Removes a card from the hand
+	 * @param card
+	 * 		the card to remove
+	 * @return
+	 * 		true if the card was held
+	 */
+	public boolean removeCard(Card card) {
+		long bit = 1L << card.ordinal();
+		if ((handMask & bit) == 0) return false;
+		handMask &= ~bit;
+		return true;
+	}
+
+	/**
+	 * Removes every card of a rank from the hand
+	 * @param rank
+	 * 		the rank, 1 - 13
+	 * @return
+	 * 		mask of the cards removed, 0 if there were none
+	 */
+	public long takeRank(int rank) {
+		long taken = handMask & RANK_MASK << shift(rank);
+		handMask &= ~taken;
+		return taken;
+	}
+
+	/**
+	 * Adds every card in a mask to the hand. Used with {@link #takeRank(int)} to
+	 * hand cards from one player to another.
+	 * @param cards
+	 * 		mask of the cards to add
+	 */
+	public void addCards(long cards) {
+		handMask |= cards;
+	}
+
+	/**
+	 * Moves all four cards of a rank out of the hand and into the books. One card of
+	 * the rank is kept in the booked cards to stand for the book.
+	 * @param rank
+	 * 		the rank, which has to be a book
+	 * @return
+	 * 		the card kept in the booked cards
+	 */
+	public Card bookRank(int rank) {
+		long cards = takeRank(rank);
+		Card card = Card.ofOrdinal(Long.numberOfTrailingZeros(cards));
+		if (booksShared) {
+			bookedCards = new ArrayList<>(bookedCards);
+			booksShared = false;
+		}
+		bookedCards.add(card);
+		return card;
+	}
+
+	private static int shift(int rank) {
+		return (rank - 1) * 4;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("hand", new ArrayList<>(getHand()));
+		fields.put("bookedCards", bookedCards);
+		out.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		bookedCards = (List<Card>) fields.get("bookedCards", null);
+		if (bookedCards == null) bookedCards = new ArrayList<>();
+		List<Card> hand = (List<Card>) fields.get("hand", null);
+		setHand(hand == null ? List.of() : hand);
+	}
+
+	/**
+	 * Read only list of the cards in the hand mask. The cards are only looked up again
+	 * after the mask changes, so reading the hand does not allocate.
+	 */
+	private final class HandView extends AbstractList<Card> implements RandomAccess {
+		private final Card[] cards = new Card[Card.DECK_SIZE];
+		private long cachedMask;
+
+		@Override
+		public Card get(int index) {
+			if (cachedMask != handMask) {
+				long mask = handMask;
+				int i = 0;
+				for (long m = mask; m != 0; m &= m - 1) {
+					cards[i++] = Card.ofOrdinal(Long.numberOfTrailingZeros(m));
+				}
+				cachedMask = mask;
+			}
+			if (index < 0 || index >= Long.bitCount(cachedMask)) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			}
+			return cards[index];
+		}
+
+		@Override
+		public int size() {
+			return Long.bitCount(handMask);
+		}
+	}
+
 }
 
@@ -0,0 +1,31 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			A book made, recorded by JDK Flight Recorder
+ */
+@Name("gofish.Book")
+@Label("Book")
+@Category("Go Fish")
+@Description("A player put down all four cards of a rank")
+@StackTrace(false)
+@Enabled(false)
+public class BookEvent extends Event {
+	@Label("Seat")
+	public int seat;
+
+	@Label("Rank")
+	public int rank;
+
+	@Label("Books")
+	@Description("Books made in the game so far, this one included")
+	public int books;
+}
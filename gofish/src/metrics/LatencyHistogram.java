@@ -0,0 +1,171 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Latencies in nanoseconds, counted in buckets that grow with the value the way
+ *			an HDR histogram's do. Every power of two is split into {@value #SUB_BUCKETS}
+ *			buckets, so a value is known to within about 6% whatever its size, from a few
+ *			nanoseconds up to minutes, in a fixed array of 960 counts per stripe.
+ *
+ *			Recording is one atomic increment and does not lock, so any number of threads
+ *			can record while others read. The counts are striped: each thread records into
+ *			the stripe its id picks, so threads on different cores do not fight over the
+ *			same cache lines, and a reading adds the stripes up. A reading taken while
+ *			values are being recorded may miss the newest of them.
+ */
+public final class LatencyHistogram {
+	/** Buckets each power of two is split into */
+	public static final int SUB_BUCKETS = 16;
+	private static final int SUB_BITS = 4;
+	// values below SUB_BUCKETS get a bucket each, then SUB_BUCKETS for each power of two
+	// up to the top bit of a positive long
+	private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+	// a power of two at least the number of cores, up to 32 stripes of 7.5KB each
+	private static final int STRIPES = Math.min(Integer.highestOneBit(
+			Runtime.getRuntime().availableProcessors() * 2 - 1), 32);
+
+	private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Creates an empty histogram
+	 */
+	public LatencyHistogram() {
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new AtomicLongArray(BUCKETS);
+		}
+	}
+
+	/**
+	 * Records a latency
+	 * @param nanos
+	 * 		the latency, negative values count as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		stripe().getAndIncrement(bucketOf(value));
+		max.accumulate(value);
+	}
+
+	/**
+	 * Picks the calling thread's stripe by mixing the bits of its id
+	 */
+	private AtomicLongArray stripe() {
+		if (STRIPES == 1) return stripes[0];
+		long id = Thread.currentThread().getId();
+		return stripes[(int) (id * 0x9E3779B97F4A7C15L >>> 32) & (STRIPES - 1)];
+	}
+
+	/**
+	 * @return
+	 * 		the counts of every bucket, added up over the stripes
+	 */
+	private long[] snapshot() {
+		long[] counts = new long[BUCKETS];
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < BUCKETS; i++) {
+				counts[i] += stripe.get(i);
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * @return
+	 * 		number of latencies recorded
+	 */
+	public long getCount() {
+		long count = 0;
+		for (long c : snapshot()) {
+			count += c;
+		}
+		return count;
+	}
+
+	/**
+	 * @return
+	 * 		the largest latency recorded, 0 if there are none
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Works out the average from the bucket each latency is in
+	 * @return
+	 * 		the average latency to within the width of its buckets, 0 if there are none
+	 */
+	public double getMean() {
+		long[] counts = snapshot();
+		long count = 0;
+		double total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			long c = counts[i];
+			if (c == 0) continue;
+			count += c;
+			total += c * (double) (lowestOf(i) + highestOf(i)) / 2;
+		}
+		return count == 0 ? 0 : total / count;
+	}
+
+	/**
+	 * Finds the latency that a given share of the latencies are at or below
+	 * @param percentile
+	 * 		0 - 100
+	 * @return
+	 * 		the top of the bucket it is in, and never more than the largest latency
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = snapshot();
+		long count = 0;
+		for (long c : snapshot) {
+			count += c;
+		}
+		long rank = Math.max((long) Math.ceil(count * percentile / 100), 1);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) return Math.min(highestOf(i), getMax());
+		}
+		return getMax();
+	}
+
+	/**
+	 * Forgets every latency recorded. Latencies recorded at the same time may or may
+	 * not be kept.
+	 */
+	public void reset() {
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < BUCKETS; i++) {
+				stripe.set(i, 0);
+			}
+		}
+		max.reset();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("n=%d mean=%.0fns p50=%dns p99=%dns max=%dns",
+				getCount(), getMean(), getPercentile(50), getPercentile(99), getMax());
+	}
+
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	static long lowestOf(int bucket) {
+		if (bucket < SUB_BUCKETS) return bucket;
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+	}
+
+	static long highestOf(int bucket) {
+		return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestOf(bucket + 1) - 1;
+	}
+}
@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			A saved game loaded, recorded by JDK Flight Recorder. The event lasts as long
+ *			as reading the files and replaying the journal.
+ */
+@Name("gofish.Load")
+@Label("Load Game")
+@Category("Go Fish")
+@Description("A saved game was read back")
+public class LoadEvent extends Event {
+	@Label("File")
+	public String file;
+
+	@Label("Requested Move")
+	@Description("Number of moves asked for, -1 for the latest state")
+	public int requestedMove;
+
+	@Label("Move Count")
+	@Description("Moves in the loaded game")
+	public int moveCount;
+
+	@Label("Loaded")
+	@Description("False if there was nothing to load or it could not be read")
+	public boolean loaded;
+}
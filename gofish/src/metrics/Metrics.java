@@ -0,0 +1,239 @@
+package metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Latencies and counts from the busy parts of the game: moves, checking for
+ *			books, saving, loading and redrawing the view. They are read over JMX as
+ *			{@value #OBJECT_NAME} and can be printed every few seconds.
+ *
+ *			Metrics are off unless the JVM is started with -Dgofish.metrics=true.
+ *			{@link #ENABLED} is a static final, so when it is false the JIT drops the
+ *			calls to {@link #start(Timer)}, {@link #stop(Timer, long)} and
+ *			{@link #count(Counter, long)} and they cost nothing. When it is true a count
+ *			is an add to a {@link LongAdder}. Reading the clock can cost tens of
+ *			nanoseconds, more than a move itself, so calls made on every move are timed
+ *			one in {@value #SAMPLE_RATE}, picked by a random bit test on the calling
+ *			thread so threads share nothing to decide. The others are timed every time,
+ *			and a timed call costs two reads of the clock and an atomic increment in the
+ *			calling thread's stripe of the histogram.
+ */
+public final class Metrics {
+	/** True if metrics are being recorded, set with -Dgofish.metrics=true */
+	public static final boolean ENABLED = Boolean.getBoolean("gofish.metrics");
+	/** Name the metrics are registered under in JMX */
+	public static final String OBJECT_NAME = "gofish:type=Metrics";
+	/** One in this many calls of a sampled timer is timed */
+	public static final int SAMPLE_RATE = 16;
+
+	/**
+	 * The calls that are timed
+	 */
+	public enum Timer {
+		/** A move made with GoFishModel.getUserMove, by a player or while replaying a save */
+		MOVE(true),
+		/** Checking a hand for a book after cards come in */
+		BOOK_CHECK(true),
+		/** Saving the game from the "Save Game" button */
+		SAVE(false),
+		/** Loading a saved game */
+		LOAD(false),
+		/** The view redrawing after a change in the model */
+		VIEW_UPDATE(false);
+
+		private final int sampleMask;
+
+		Timer(boolean sampled) {
+			sampleMask = sampled ? SAMPLE_RATE - 1 : 0;
+		}
+
+		/**
+		 * @return
+		 * 		true if only one in {@value Metrics#SAMPLE_RATE} calls is timed
+		 */
+		public boolean isSampled() {
+			return sampleMask != 0;
+		}
+	}
+
+	/**
+	 * The events that are counted
+	 */
+	public enum Counter {
+		/** Moves made by anyone, players, bots or replays */
+		MOVES,
+		/** Books made */
+		BOOKS,
+		/** Saves and background writes */
+		SAVES,
+		/** Bytes written to save files and journals */
+		BYTES_WRITTEN,
+		/** Observers told about a move */
+		NOTIFICATIONS
+	}
+
+	private static final LatencyHistogram[] TIMERS = new LatencyHistogram[Timer.values().length];
+	private static final LongAdder[] COUNTERS = new LongAdder[Counter.values().length];
+	static {
+		for (int i = 0; i < TIMERS.length; i++) {
+			TIMERS[i] = new LatencyHistogram();
+		}
+		for (int i = 0; i < COUNTERS.length; i++) {
+			COUNTERS[i] = new LongAdder();
+		}
+	}
+
+	private static ScheduledExecutorService dumper;
+
+	private Metrics() {
+	}
+
+	/**
+	 * Starts timing a call
+	 * @param timer
+	 * 		the call
+	 * @return
+	 * 		the time to hand to {@link #stop(Timer, long)}, 0 if metrics are off or
+	 * 		this call is not in the sample
+	 */
+	public static long start(Timer timer) {
+		if (!ENABLED || (ThreadLocalRandom.current().nextInt() & timer.sampleMask) != 0) return 0;
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records how long a call took
+	 * @param timer
+	 * 		the call
+	 * @param start
+	 * 		what {@link #start(Timer)} returned when the call began
+	 */
+	public static void stop(Timer timer, long start) {
+		if (ENABLED && start != 0) TIMERS[timer.ordinal()].record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Adds to a count
+	 * @param counter
+	 * 		the count
+	 * @param amount
+	 * 		how much to add
+	 */
+	public static void count(Counter counter, long amount) {
+		if (ENABLED) COUNTERS[counter.ordinal()].add(amount);
+	}
+
+	/**
+	 * @param timer
+	 * 		the call
+	 * @return
+	 * 		the latencies of the call so far, only of the sample if the timer is sampled
+	 */
+	public static LatencyHistogram get(Timer timer) {
+		return TIMERS[timer.ordinal()];
+	}
+
+	/**
+	 * @param counter
+	 * 		the count
+	 * @return
+	 * 		the count so far
+	 */
+	public static long get(Counter counter) {
+		return COUNTERS[counter.ordinal()].sum();
+	}
+
+	/**
+	 * Forgets everything recorded so far
+	 */
+	public static void reset() {
+		for (LatencyHistogram timer : TIMERS) {
+			timer.reset();
+		}
+		for (LongAdder counter : COUNTERS) {
+			counter.reset();
+		}
+	}
+
+	/**
+	 * Writes every latency and count as text, one per line
+	 * @return
+	 * 		the text
+	 */
+	public static String dump() {
+		StringBuilder sb = new StringBuilder();
+		for (Timer timer : Timer.values()) {
+			sb.append(timer).append(' ').append(get(timer)).append(System.lineSeparator());
+		}
+		for (Counter counter : Counter.values()) {
+			sb.append(counter).append(' ').append(get(counter)).append(System.lineSeparator());
+		}
+		long moves = get(Counter.MOVES);
+		sb.append(String.format("NOTIFICATIONS_PER_MOVE %.2f",
+				moves == 0 ? 0 : (double) get(Counter.NOTIFICATIONS) / moves));
+		return sb.append(System.lineSeparator()).toString();
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server. Registering twice does
+	 * nothing.
+	 * @throws IllegalStateException
+	 * 		if JMX refuses the bean
+	 */
+	public static void register() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.registerMBean(new MetricsBean(), new ObjectName(OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException e) {
+			// already registered
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+		}
+	}
+
+	/**
+	 * Prints {@link #dump()} on a background thread every given number of seconds,
+	 * until the process ends. Only one dump runs at a time, starting another stops
+	 * the one before.
+	 * @param seconds
+	 * 		time between dumps
+	 * @param out
+	 * 		where to print
+	 * @return
+	 * 		the scheduled dump, which can be cancelled
+	 */
+	public static synchronized ScheduledFuture<?> startDump(long seconds, PrintStream out) {
+		if (dumper != null) dumper.shutdownNow();
+		dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "metrics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		return dumper.scheduleAtFixedRate(() -> out.print(dump()), seconds, seconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Sets up metrics for a program started from the command line: if they are
+	 * enabled, registers them with JMX, and prints them every -Dgofish.metrics.dump
+	 * seconds if that is set
+	 */
+	public static void install() {
+		if (!ENABLED) return;
+		register();
+		long seconds = Long.getLong("gofish.metrics.dump", 0);
+		if (seconds > 0) startDump(seconds, System.out);
+	}
+}
@@ -0,0 +1,81 @@
+package metrics;
+
+import metrics.Metrics.Counter;
+import metrics.Metrics.Timer;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Reads {@link Metrics} for JMX. Registered by {@link Metrics#register()}.
+ */
+class MetricsBean implements MetricsMXBean {
+	@Override
+	public boolean isEnabled() {
+		return Metrics.ENABLED;
+	}
+
+	@Override
+	public long getMoves() {
+		return Metrics.get(Counter.MOVES);
+	}
+
+	@Override
+	public long getBooks() {
+		return Metrics.get(Counter.BOOKS);
+	}
+
+	@Override
+	public long getSaves() {
+		return Metrics.get(Counter.SAVES);
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return Metrics.get(Counter.BYTES_WRITTEN);
+	}
+
+	@Override
+	public long getNotifications() {
+		return Metrics.get(Counter.NOTIFICATIONS);
+	}
+
+	@Override
+	public double getNotificationsPerMove() {
+		long moves = getMoves();
+		return moves == 0 ? 0 : (double) getNotifications() / moves;
+	}
+
+	@Override
+	public Latency getMoveLatency() {
+		return new Latency(Metrics.get(Timer.MOVE));
+	}
+
+	@Override
+	public Latency getBookCheckLatency() {
+		return new Latency(Metrics.get(Timer.BOOK_CHECK));
+	}
+
+	@Override
+	public Latency getSaveLatency() {
+		return new Latency(Metrics.get(Timer.SAVE));
+	}
+
+	@Override
+	public Latency getLoadLatency() {
+		return new Latency(Metrics.get(Timer.LOAD));
+	}
+
+	@Override
+	public Latency getViewUpdateLatency() {
+		return new Latency(Metrics.get(Timer.VIEW_UPDATE));
+	}
+
+	@Override
+	public String dump() {
+		return Metrics.dump();
+	}
+
+	@Override
+	public void reset() {
+		Metrics.reset();
+	}
+}
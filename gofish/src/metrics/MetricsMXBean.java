@@ -0,0 +1,137 @@
+package metrics;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			What {@link Metrics} shows over JMX. Every latency is in nanoseconds. Moves and
+ *			book checks are timed one in {@value Metrics#SAMPLE_RATE}, so their counts are
+ *			of the sample, and the exact number of moves is {@link #getMoves()}.
+ */
+public interface MetricsMXBean {
+	/**
+	 * @return
+	 * 		true if metrics are being recorded
+	 */
+	boolean isEnabled();
+
+	/**
+	 * @return
+	 * 		number of moves made
+	 */
+	long getMoves();
+
+	/**
+	 * @return
+	 * 		number of books made
+	 */
+	long getBooks();
+
+	/**
+	 * @return
+	 * 		number of saves written
+	 */
+	long getSaves();
+
+	/**
+	 * @return
+	 * 		bytes written to save files and journals
+	 */
+	long getBytesWritten();
+
+	/**
+	 * @return
+	 * 		number of times an observer was told about a move
+	 */
+	long getNotifications();
+
+	/**
+	 * @return
+	 * 		observers told per move on average
+	 */
+	double getNotificationsPerMove();
+
+	/**
+	 * @return
+	 * 		latencies of moves made with GoFishModel.getUserMove
+	 */
+	Latency getMoveLatency();
+
+	/**
+	 * @return
+	 * 		latencies of checking for books
+	 */
+	Latency getBookCheckLatency();
+
+	/**
+	 * @return
+	 * 		latencies of saving from the "Save Game" button
+	 */
+	Latency getSaveLatency();
+
+	/**
+	 * @return
+	 * 		latencies of loading a game
+	 */
+	Latency getLoadLatency();
+
+	/**
+	 * @return
+	 * 		latencies of the view redrawing
+	 */
+	Latency getViewUpdateLatency();
+
+	/**
+	 * @return
+	 * 		every latency and count as text
+	 */
+	String dump();
+
+	/**
+	 * Forgets everything recorded so far
+	 */
+	void reset();
+
+	/**
+	 * A summary of one {@link LatencyHistogram}, shown in JMX as composite data
+	 */
+	final class Latency {
+		private final long count;
+		private final double mean;
+		private final long p50;
+		private final long p90;
+		private final long p99;
+		private final long max;
+
+		Latency(LatencyHistogram histogram) {
+			this.count = histogram.getCount();
+			this.mean = histogram.getMean();
+			this.p50 = histogram.getPercentile(50);
+			this.p90 = histogram.getPercentile(90);
+			this.p99 = histogram.getPercentile(99);
+			this.max = histogram.getMax();
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public double getMean() {
+			return mean;
+		}
+
+		public long getP50() {
+			return p50;
+		}
+
+		public long getP90() {
+			return p90;
+		}
+
+		public long getP99() {
+			return p99;
+		}
+
+		public long getMax() {
+			return max;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			A move, recorded by JDK Flight Recorder. The event lasts as long as the move
+ *			took to play, so a slow move shows up next to what the JVM was doing then.
+ *			Like every event in this package it is turned on and off by its name in the
+ *			JFR settings and costs nothing when it is off. Moves, books and turn changes
+ *			come millions of times a second in the simulator, so they are off unless
+ *			turned on, for example with the settings in gofish.jfc.
+ */
+@Name("gofish.Move")
+@Label("Move")
+@Category("Go Fish")
+@Description("A player asked another player for a rank")
+@StackTrace(false)
+@Enabled(false)
+public class MoveEvent extends Event {
+	@Label("Seat")
+	@Description("Index of the player who asked")
+	public int seat;
+
+	@Label("Target Seat")
+	@Description("Index of the player who was asked")
+	public int targetSeat;
+
+	@Label("Rank")
+	public int rank;
+
+	@Label("Result")
+	@Description("0 - no cards, 1 - cards were taken, 2 - cards were taken and booked")
+	public int result;
+}
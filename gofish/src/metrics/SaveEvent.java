@@ -0,0 +1,26 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			A save from the "Save Game" button, recorded by JDK Flight Recorder. The event
+ *			lasts as long as the save, which waits for the disk.
+ */
+@Name("gofish.Save")
+@Label("Save Game")
+@Category("Go Fish")
+@Description("The game was written to its save file and journal")
+public class SaveEvent extends Event {
+	@Label("File")
+	public String file;
+
+	@Label("Bytes Written")
+	@DataAmount
+	public long bytes;
+}
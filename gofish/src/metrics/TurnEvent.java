@@ -0,0 +1,31 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			The turn passing to another player, recorded by JDK Flight Recorder
+ */
+@Name("gofish.TurnChange")
+@Label("Turn Change")
+@Category("Go Fish")
+@Description("The turn passed from one player to another")
+@StackTrace(false)
+@Enabled(false)
+public class TurnEvent extends Event {
+	@Label("From Seat")
+	public int fromSeat;
+
+	@Label("To Seat")
+	public int toSeat;
+
+	@Label("Move Count")
+	@Description("Moves made in the game so far")
+	public int moveCount;
+}
@@ -0,0 +1,26 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			The view showing a whole game again, for a new or loaded game, recorded by
+ *			JDK Flight Recorder. The updates after ordinary moves only touch what changed
+ *			and are not recorded.
+ */
+@Name("gofish.ViewRebuild")
+@Label("View Rebuild")
+@Category("Go Fish")
+@Description("The table view was filled in from the whole model")
+public class ViewRebuildEvent extends Event {
+	@Label("Players")
+	public int players;
+
+	@Label("Node Count")
+	@Description("Cards and placeholders in the hand and book panes afterwards")
+	public int nodes;
+}
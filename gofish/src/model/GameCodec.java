@@ -0,0 +1,215 @@
+package model;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Stack;
+
+import goFish.Card;
+import goFish.Deck;
+import goFish.GameType;
+import goFish.Player;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Writes a GoFishModel as a few dozen bytes instead of a Java serialized object
+ *			graph. Every card is a 6 bit number (0 - 51), and the deck, each hand and each
+ *			player's books are a count followed by their cards in order, so a whole game
+ *			fits in well under 100 bytes.
+ *
+ *			Layout, version 2. The first three bytes are the magic number "GF" and the
+ *			version, the rest is packed bits, most significant bit first:
+ *			players - 1 (2), rule set (2), current turn (2), books (6), booked ranks (13),
+ *			move count (32), has seed (1) and the seed (64, only if it has one), deck
+ *			size (6) and deck cards bottom to top (6 each), then for each player: hand
+ *			size (6), hand cards (6 each), book count (4), book cards (6 each).
+ *			Version 1 is the same without the seed, and can still be decoded.
+ */
+public final class GameCodec {
+	/** First two bytes of an encoded game, "GF" */
+	public static final int MAGIC = 0x4746;
+	public static final int VERSION = 2;
+	private static final int CARD_BITS = 6;
+	private static final GameType[] TYPES = GameType.values();
+
+	private GameCodec() {
+	}
+
+	/**
+	 * Encodes a model
+	 * @param model
+	 * 		the model to encode
+	 * @return
+	 * 		the encoded bytes
+	 */
+	public static byte[] encode(GoFishModel model) {
+		BitWriter out = new BitWriter();
+		out.write(MAGIC, 16);
+		out.write(VERSION, 8);
+		Player[] players = model.getPlayerDecks();
+		out.write(players.length - 1, 2);
+		out.write(model.getGameType().ordinal(), 2);
+		out.write(model.getCurrentTurn(), 2);
+		out.write(model.getNumOfBooks(), 6);
+		int bookedMask = 0;
+		for (int rank = 1; rank <= GoFishModel.MAX_BOOKS; rank++) {
+			if (model.isRankBooked(rank)) bookedMask |= 1 << (rank - 1);
+		}
+		out.write(bookedMask, 13);
+		out.write(model.getMoveCount(), 32);
+		out.write(model.hasSeed() ? 1 : 0, 1);
+		if (model.hasSeed()) {
+			out.write(model.getSeed() >>> 32, 32);
+			out.write(model.getSeed(), 32);
+		}
+		writeCards(out, model.getDeck().getCards(), 6);
+		for (Player player : players) {
+			writeCards(out, player.getHand(), 6);
+			writeCards(out, player.getBookedCards(), 4);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes a model written by {@link #encode(GoFishModel)}
+	 * @param bytes
+	 * 		the encoded bytes
+	 * @return
+	 * 		the model
+	 * @throws IOException
+	 * 		if the bytes are not an encoded game or were written by a newer version
+	 */
+	public static GoFishModel decode(byte[] bytes) throws IOException {
+		if (!isEncoded(bytes)) {
+			throw new IOException("Not an encoded game");
+		}
+		int version = bytes[2] & 0xFF;
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Unknown game encoding version " + version);
+		}
+		BitReader in = new BitReader(bytes, 3);
+		try {
+			int numOfPlayers = in.read(2) + 1;
+			GameType type = TYPES[in.read(2)];
+			int currTurn = in.read(2);
+			int numOfBooks = in.read(6);
+			int bookedMask = in.read(13);
+			int moveCount = (int) in.readLong(32);
+			boolean seeded = version >= 2 && in.read(1) == 1;
+			long seed = seeded ? in.readLong(32) << 32 | in.readLong(32) : 0;
+			Stack<Card> stack = new Stack<>();
+			readCards(in, stack, 6);
+			Player[] players = new Player[numOfPlayers];
+			for (int i = 0; i < numOfPlayers; i++) {
+				players[i] = new Player();
+				int handSize = in.read(6);
+				for (int j = 0; j < handSize; j++) {
+					players[i].addCard(readCard(in));
+				}
+				readCards(in, players[i].getBookedCards(), 4);
+			}
+			int[] bookedRanks = new int[GoFishModel.MAX_BOOKS + 1];
+			for (int rank = 1; rank <= GoFishModel.MAX_BOOKS; rank++) {
+				if ((bookedMask & 1 << (rank - 1)) != 0) bookedRanks[rank] = rank;
+			}
+			if (currTurn >= numOfPlayers) {
+				throw new IOException("Corrupt encoded game");
+			}
+			return new GoFishModel(players, new Deck(stack), type, currTurn, numOfBooks, bookedRanks, moveCount,
+					seeded, seed);
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Encoded game is truncated", e);
+		}
+	}
+
+	/**
+	 * Tells if the bytes start with the magic number of an encoded game
+	 * @param bytes
+	 * 		the bytes to check
+	 * @return
+	 * 		true if they look like an encoded game
+	 */
+	public static boolean isEncoded(byte[] bytes) {
+		return bytes.length >= 3 && ((bytes[0] & 0xFF) << 8 | (bytes[1] & 0xFF)) == MAGIC;
+	}
+
+	private static void writeCards(BitWriter out, List<Card> cards, int countBits) {
+		if (cards.size() >= 1 << countBits) {
+			throw new IllegalArgumentException("Too many cards to encode: " + cards.size());
+		}
+		out.write(cards.size(), countBits);
+		for (int i = 0; i < cards.size(); i++) {
+			out.write(cards.get(i).ordinal(), CARD_BITS);
+		}
+	}
+
+	private static void readCards(BitReader in, List<Card> cards, int countBits) throws IOException {
+		int count = in.read(countBits);
+		for (int i = 0; i < count; i++) {
+			cards.add(readCard(in));
+		}
+	}
+
+	private static Card readCard(BitReader in) throws IOException {
+		int ordinal = in.read(CARD_BITS);
+		if (ordinal >= Card.DECK_SIZE) {
+			throw new IOException("Corrupt encoded game");
+		}
+		return Card.ofOrdinal(ordinal);
+	}
+
+	/**
+	 * Packs bits into a growing byte array, most significant bit first. Values are at
+	 * most 32 bits, so they always fit in the accumulator next to a partial byte.
+	 */
+	private static final class BitWriter {
+		private byte[] bytes = new byte[96];
+		private int length;
+		private long acc;
+		private int accBits;
+
+		void write(long value, int bits) {
+			acc = acc << bits | (value & (1L << bits) - 1);
+			accBits += bits;
+			while (accBits >= 8) {
+				accBits -= 8;
+				if (length == bytes.length) bytes = Arrays.copyOf(bytes, length * 2);
+				bytes[length++] = (byte) (acc >>> accBits);
+			}
+		}
+
+		byte[] toByteArray() {
+			byte[] result = Arrays.copyOf(bytes, length + (accBits > 0 ? 1 : 0));
+			if (accBits > 0) result[length] = (byte) (acc << (8 - accBits));
+			return result;
+		}
+	}
+
+	/**
+	 * Reads bits written by a BitWriter
+	 */
+	private static final class BitReader {
+		private final byte[] bytes;
+		private int position;
+		private long acc;
+		private int accBits;
+
+		BitReader(byte[] bytes, int offset) {
+			this.bytes = bytes;
+			this.position = offset;
+		}
+
+		int read(int bits) {
+			return (int) readLong(bits);
+		}
+
+		long readLong(int bits) {
+			while (accBits < bits) {
+				acc = acc << 8 | (bytes[position++] & 0xFF);
+				accBits += 8;
+			}
+			accBits -= bits;
+			return acc >>> accBits & (1L << bits) - 1;
+		}
+	}
+}
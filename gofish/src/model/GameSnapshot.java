@@ -0,0 +1,119 @@
+package model;
+
+import goFish.GameType;
+import goFish.Player;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			A game as it was at one moment. Nothing in a snapshot changes, so it can be
+ *			kept to go back to (undo), handed to other threads to watch the game, or
+ *			turned into as many games as needed to try out different moves.
+ *
+ *			Taking a snapshot and making a game from one are both a
+ *			{@link GoFishModel#copy()}: a card mask per hand, while the deck and the booked
+ *			cards are shared until the game made from the snapshot changes them. The
+ *			snapshot itself never changes them, so it stays as it was taken.
+ */
+public final class GameSnapshot {
+	private final GoFishModel state;
+
+	GameSnapshot(GoFishModel state) {
+		this.state = state;
+	}
+
+	/**
+	 * Makes a game that starts where the snapshot was taken. The game is headless,
+	 * see {@link GoFishModel#copy()}, call {@link GoFishModel#setHeadless(boolean)} to
+	 * play it with a view. Safe to call from several threads.
+	 * @return
+	 * 		a new game
+	 */
+	public GoFishModel toModel() {
+		return state.copy();
+	}
+
+	/**
+	 * Returns the number of seats at the table
+	 * @return
+	 * 		2 - 4
+	 */
+	public int getNumOfSeats() {
+		return state.getPlayerDecks().length;
+	}
+
+	/**
+	 * Returns whose turn it was
+	 * @return
+	 * 		the seat to move
+	 */
+	public int getCurrentTurn() {
+		return state.getCurrentTurn();
+	}
+
+	/**
+	 * Returns the rule set
+	 * @return
+	 * 		the rule set of the game
+	 */
+	public GameType getGameType() {
+		return state.getGameType();
+	}
+
+	/**
+	 * Returns the number of moves made before the snapshot
+	 * @return
+	 * 		number of moves
+	 */
+	public int getMoveCount() {
+		return state.getMoveCount();
+	}
+
+	/**
+	 * Returns the cards left in the deck
+	 * @return
+	 * 		number of cards
+	 */
+	public int getDeckSize() {
+		return state.getDeck().size();
+	}
+
+	/**
+	 * Returns the cards in the deck as a mask, see {@link goFish.Deck#getMask()}
+	 * @return
+	 * 		the deck mask
+	 */
+	public long getDeckMask() {
+		return state.getDeck().getMask();
+	}
+
+	/**
+	 * Returns the hand of a seat as a mask, see {@link Player#getHandMask()}
+	 * @param seat
+	 * 		the seat
+	 * @return
+	 * 		the hand mask
+	 */
+	public long getHandMask(int seat) {
+		return state.getPlayerDecks()[seat].getHandMask();
+	}
+
+	/**
+	 * Returns the number of books a seat has made
+	 * @param seat
+	 * 		the seat
+	 * @return
+	 * 		number of books
+	 */
+	public int getBookCount(int seat) {
+		return state.getPlayerDecks()[seat].getBookedCards().size();
+	}
+
+	/**
+	 * Tells if the game was over
+	 * @return
+	 * 		true if every rank had been booked
+	 */
+	public boolean isGameOver() {
+		return state.checkGameOver();
+	}
+}
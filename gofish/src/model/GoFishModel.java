@@ -1,21 +1,39 @@
 package model;
 
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Observable;
+import java.util.SplittableRandom;
+import java.util.Stack;
 
+import jdk.jfr.EventType;
+
+import bot.GameView;
+import bot.Strategy;
 import goFish.Card;
 import goFish.Deck;
 import goFish.GameType;
 import goFish.Player;
+import metrics.BookEvent;
+import metrics.LoadEvent;
+import metrics.Metrics;
+import metrics.Metrics.Counter;
+import metrics.Metrics.Timer;
+import metrics.MoveEvent;
+import metrics.SaveEvent;
+import metrics.TurnEvent;
+import persistence.MoveJournal;
+import persistence.SaveFile;
+import persistence.WriteBehindWriter;
 /**
  * @author Jackson, Matthew, Zach, Davlat
  *			This is the model for the game of Go Fish. It contains all of the game logic 
@@ -25,16 +43,71 @@ import goFish.Player;
  *			current ruleset this game is being played on. 
  */
 public class GoFishModel extends Observable implements Serializable{
+	private static final long serialVersionUID = -3418428463843947494L;
 	private Player[] playerDecks;
 	private int currTurn;
 	private int numOfBooks;
 	private int[] bookedRanks = new int[14];
 	public static final int MAX_BOOKS = 13;
+	/** Move result: no card was acquired */
+	public static final int NO_CARDS = 0;
+	/** Move result: 1 or more cards were acquired */
+	public static final int ACQUIRED = 1;
+	/** Move result: 1 or more cards were acquired AND booked */
+	public static final int BOOKED = 2;
+	/** Fewest players a game can have */
+	public static final int MIN_PLAYERS = 2;
+	/** Most players a game can have, the hash and the save formats have room for no more */
+	public static final int MAX_PLAYERS = 4;
 	private Deck mainDeck;
 	private int numOfPlayers;
 	private String fileName = "save.bin";
 
 	private GameType gameType;
+	private int moveCount;
+	private long seed;
+	private boolean seeded;
+	private transient boolean headless;
+	// read by the background writer without the model's lock
+	private transient volatile MoveJournal journal;
+	private transient WriteBehindWriter saver;
+	private transient Strategy[] bots;
+	private transient SplittableRandom botRandom;
+	private transient GameView view;
+	// the change made by the last move, handed to the observers once the lock is let go
+	private transient ModelChange pendingChange;
+	// the Zobrist hash, only kept up to date once it has been asked for
+	private transient long hash;
+	private transient boolean hashed;
+	
+	// Zobrist keys: one for each card in each place it can be, one for each seat to move 
+	// and one for each rule set. The places are the deck, then a hand for each seat, then 
+	// the books of each seat. The seed is fixed so hashes are the same in every run. 
+	private static final int DECK = 0;
+	private static final int HAND = 1;
+	private static final int BOOKS = HAND + MAX_PLAYERS;
+	private static final long[][] CARD_KEYS = new long[BOOKS + MAX_PLAYERS][Card.DECK_SIZE];
+	private static final long[] TURN_KEYS = new long[MAX_PLAYERS];
+	private static final long[] TYPE_KEYS = new long[GameType.values().length];
+	// the events fired on every move, checked before one is made so that a move does 
+	// not allocate unless a recording has turned them on
+	private static final EventType MOVE_EVENT = EventType.getEventType(MoveEvent.class);
+	private static final EventType TURN_EVENT = EventType.getEventType(TurnEvent.class);
+	private static final EventType BOOK_EVENT = EventType.getEventType(BookEvent.class);
+	static {
+		SplittableRandom keys = new SplittableRandom(0x60F15L);
+		for (long[] place : CARD_KEYS) {
+			for (int i = 0; i < place.length; i++) {
+				place[i] = keys.nextLong();
+			}
+		}
+		for (int i = 0; i < TURN_KEYS.length; i++) {
+			TURN_KEYS[i] = keys.nextLong();
+		}
+		for (int i = 0; i < TYPE_KEYS.length; i++) {
+			TYPE_KEYS[i] = keys.nextLong();
+		}
+	}
 	
 	
 	/**
@@ -44,13 +117,31 @@ public class GoFishModel extends Observable implements Serializable{
 	 * of the players, the number of cards for each player depending on number of player, and 
 	 * which rule set is going to be used 
 	 * @param NumOfPlayers
-	 * 			this is the number of players 
+	 * 			this is the number of players, {@value #MIN_PLAYERS} - {@value #MAX_PLAYERS} 
 	 * @param ruleset
 	 *			this is the ruleset we are set to 
 	 */
 	public GoFishModel(int NumOfPlayers, GameType ruleset) {
+		this(NumOfPlayers, ruleset, new SplittableRandom().nextLong());
+	}
+	
+	/**
+	 * Constructor for the GoFishModel that takes in the number of players, the ruleset and 
+	 * the seed the deck is shuffled with. Two games made with the same seed are dealt the 
+	 * same way, so a game can be played again exactly from its seed and its moves. 
+	 * @param NumOfPlayers
+	 * 			this is the number of players, {@value #MIN_PLAYERS} - {@value #MAX_PLAYERS} 
+	 * @param ruleset
+	 *			this is the ruleset we are set to 
+	 * @param seed
+	 * 			the seed for the shuffle
+	 */
+	public GoFishModel(int NumOfPlayers, GameType ruleset, long seed) {
+		checkNumOfPlayers(NumOfPlayers);
 		numOfPlayers = NumOfPlayers;
-		mainDeck = new Deck();
+		mainDeck = new Deck(new SplittableRandom(seed));
+		this.seed = seed;
+		this.seeded = true;
 		playerDecks = new Player[NumOfPlayers];
 		for (int i = 0; i < NumOfPlayers; i++) {
 			playerDecks[i] = new Player();
@@ -69,7 +160,7 @@ public class GoFishModel extends Observable implements Serializable{
 			for (int i = 0; i < numOfCards; i++) {
 	
 				Card pulledCard = mainDeck.pullCard();
-				player.getHand().add(pulledCard);
+				player.addCard(pulledCard);
 				checkForBooks(player, pulledCard.getRank());
 
 			}
@@ -85,13 +176,14 @@ public class GoFishModel extends Observable implements Serializable{
 	 * main deck is custom
 	 * 
 	 * @param NumOfPlayers
-	 * 			Number of players 
+	 * 			Number of players, {@value #MIN_PLAYERS} - {@value #MAX_PLAYERS} 
 	 * @param customDeck
 	 * 			The custom deck object 
 	 * @param ruleset
 	 * 			Which ruleset we want to use 
 	 */
 	public GoFishModel(int NumOfPlayers, Deck customDeck, GameType ruleset) {
+		checkNumOfPlayers(NumOfPlayers);
 		numOfPlayers = NumOfPlayers;
 		mainDeck = customDeck;
 		playerDecks = new Player[NumOfPlayers];
@@ -112,7 +204,7 @@ public class GoFishModel extends Observable implements Serializable{
 			for (int i = 0; i < numOfCards; i++) {
 				
 				Card pulledCard = mainDeck.pullCard();
-				player.getHand().add(pulledCard);
+				player.addCard(pulledCard);
 				checkForBooks(player, pulledCard.getRank());
 			}
 
@@ -122,6 +214,7 @@ public class GoFishModel extends Observable implements Serializable{
 	}
 	
 	public GoFishModel(int NumOfPlayers, Deck customDeck, GameType ruleset, boolean customHands) {
+		checkNumOfPlayers(NumOfPlayers);
 		numOfPlayers = NumOfPlayers;
 		mainDeck = customDeck;
 		playerDecks = new Player[NumOfPlayers];
@@ -135,10 +228,41 @@ public class GoFishModel extends Observable implements Serializable{
 
 	}
 	
+	/**
+	 * Constructor used when a saved game is decoded. Takes every part of the state 
+	 * as it was saved, nothing is dealt. 
+	 */
+	GoFishModel(Player[] players, Deck deck, GameType ruleset, int currTurn, int numOfBooks, 
+			int[] bookedRanks, int moveCount, boolean seeded, long seed) {
+		checkNumOfPlayers(players.length);
+		this.seeded = seeded;
+		this.seed = seed;
+		this.numOfPlayers = players.length;
+		this.playerDecks = players;
+		this.mainDeck = deck;
+		this.gameType = ruleset;
+		this.currTurn = currTurn;
+		this.numOfBooks = numOfBooks;
+		this.bookedRanks = bookedRanks;
+		this.moveCount = moveCount;
+	}
+	
+	/**
+	 * Throws unless a game can have this many players
+	 */
+	private static void checkNumOfPlayers(int numOfPlayers) {
+		if (numOfPlayers < MIN_PLAYERS || numOfPlayers > MAX_PLAYERS) {
+			throw new IllegalArgumentException("Number of players must be between " + MIN_PLAYERS 
+					+ " and " + MAX_PLAYERS);
+		}
+	}
+	
 	 /**
 	 * This is called from the controller when a move is made on another player
 	 * @param player
 	 * 		the player the move is being made on
+	 * @param cardIdRequested
+	 * 		the ID of a card in the current player's hand, whose rank is asked for
 	 * 
 	 * @return
 	 * 			0 - no card was acquired
@@ -146,50 +270,210 @@ public class GoFishModel extends Observable implements Serializable{
 	 * 			2 - 1 or more cards were acquired AND booked
 	 */
 	public int getUserMove(Player player, String cardIdRequested) {
-		// first find the card that was clicked on by the current player. rankRequested 
-		// is the rank we are looking for in the player/opponent object
-		int rankRequested = -1;
-		for (goFish.Card c : playerDecks[currTurn].getHand()) {
-			if (c.getId().equals(cardIdRequested)) {
-				rankRequested = c.getRank();
-				break;
+		// first find the card that was clicked on by the current player
+		Card requestedCard = Card.ofId(cardIdRequested);
+		int result;
+		ModelChange change;
+		synchronized (this) {
+			if (!playerDecks[currTurn].holds(requestedCard)) {
+				throw new IllegalArgumentException
+				("Requested Card not found in the Player's deck");
 			}
+			long start = Metrics.start(Timer.MOVE);
+			result = move(seatOf(player), requestedCard);
+			Metrics.stop(Timer.MOVE, start);
+			change = takeChange();
+		}
+		publish(change);
+		return result;
+	}
+	
+	/**
+	 * Makes a move by seat and rank. This is the same move as 
+	 * {@link #getUserMove(Player, String)} without looking up card IDs or players, and 
+	 * on a headless model it does not allocate unless a flight recording has the move 
+	 * events turned on. Bots, replays and the simulator use it. 
+	 * @param targetSeat
+	 * 		index of the player being asked
+	 * @param rank
+	 * 		the rank being asked for, which the current player has to hold
+	 * @return
+	 * 		{@link #NO_CARDS}, {@link #ACQUIRED} or {@link #BOOKED}
+	 */
+	public int applyMove(int targetSeat, int rank) {
+		int result;
+		ModelChange change;
+		synchronized (this) {
+			result = checkedMove(targetSeat, rank);
+			change = takeChange();
 		}
-		if (rankRequested == -1) {
+		publish(change);
+		return result;
+	}
+	
+	/**
+	 * Checks and makes a move by seat and rank. The caller holds the lock and 
+	 * publishes the change afterwards. 
+	 */
+	private int checkedMove(int targetSeat, int rank) {
+		if (targetSeat < 0 || targetSeat >= numOfPlayers) {
+			throw new IllegalArgumentException("No player at seat " + targetSeat);
+		}
+		if (rank < 1 || rank > 13 || !playerDecks[currTurn].hasRank(rank)) {
 			throw new IllegalArgumentException
-			("Requested Card not found in the Player's deck");
+			("Requested rank not found in the Player's deck");
 		}
+		return move(targetSeat, playerDecks[currTurn].firstOfRank(rank));
+	}
+	
+	/**
+	 * Takes the change made by the last move, called under the lock 
+	 */
+	private ModelChange takeChange() {
+		ModelChange change = pendingChange;
+		pendingChange = null;
+		return change;
+	}
+	
+	/**
+	 * Tells the observers about a move. Called after the lock is let go, so an 
+	 * observer can call back into the model or wait on the save writer, which takes 
+	 * the lock from another thread. 
+	 * @param change
+	 * 		the change, or null if nobody was to be told
+	 */
+	private void publish(ModelChange change) {
+		if (change == null) return;
+		setChanged();
+		Metrics.count(Counter.NOTIFICATIONS, countObservers());
+		notifyObservers(change);
+	}
+	
+	/**
+	 * Finds the seat of a player
+	 */
+	private int seatOf(Player player) {
+		for (int i = 0; i < playerDecks.length; i++) {
+			if (playerDecks[i] == player) return i;
+		}
+		throw new IllegalArgumentException("Player is not in this game");
+	}
+	
+	/**
+	 * Does a move once it has been checked. The current player asks the player at 
+	 * targetSeat for the rank of requestedCard, which the current player holds. Unless 
+	 * the model is headless, the move leaves one {@link ModelChange} for the whole move 
+	 * for the observers, which the caller hands to them after letting go of the lock. 
+	 * The change is not worked out at all when nobody is observing. 
+	 */
+	private int move(int targetSeat, Card requestedCard) {
+		MoveEvent event = null;
+		if (MOVE_EVENT.isEnabled()) {
+			event = new MoveEvent();
+			event.begin();
+		}
+		int seat = currTurn;
+		Metrics.count(Counter.MOVES, 1);
+		if (headless || countObservers() == 0) {
+			int result = play(targetSeat, requestedCard);
+			checkpointIfDue();
+			tellBots(seat, targetSeat, requestedCard.getRank(), result);
+			return commitMove(event, seat, targetSeat, requestedCard.getRank(), result);
+		}
+		long[] handsBefore = new long[numOfPlayers];
+		int[] booksBefore = new int[numOfPlayers];
+		for (int i = 0; i < numOfPlayers; i++) {
+			handsBefore[i] = playerDecks[i].getHandMask();
+			booksBefore[i] = playerDecks[i].getBookedCards().size();
+		}
+		int deckBefore = mainDeck.size();
+		int result = play(targetSeat, requestedCard);
+		checkpointIfDue();
+		tellBots(seat, targetSeat, requestedCard.getRank(), result);
 		
-		// go through player's / opponent's hand and add any cards from their deck that match
-		// the requested rank. Then remove those cards from the opponent's hand, if any match
-		int retVal = 0;
-		
-		List<goFish.Card> acquired = new LinkedList<goFish.Card>();
-		for (goFish.Card c: player.getHand()) {
-			if (c.getRank() == rankRequested) {
-				acquired.add(c);
-				retVal = 1;
+		long[] added = new long[numOfPlayers];
+		long[] removed = new long[numOfPlayers];
+		int[] booksMade = new int[numOfPlayers];
+		for (int i = 0; i < numOfPlayers; i++) {
+			long hand = playerDecks[i].getHandMask();
+			added[i] = hand & ~handsBefore[i];
+			removed[i] = handsBefore[i] & ~hand;
+			List<Card> books = playerDecks[i].getBookedCards();
+			for (int j = booksBefore[i]; j < books.size(); j++) {
+				booksMade[i] |= 1 << (books.get(j).getRank() - 1);
 			}
 		}
-		for(goFish.Card c: acquired)
-			player.getHand().remove(c);
+		pendingChange = new ModelChange(seat, targetSeat, requestedCard.getRank(), result, added, removed, 
+				booksMade, deckBefore - mainDeck.size(), currTurn, checkGameOver());
+		return commitMove(event, seat, targetSeat, requestedCard.getRank(), result);
+	}
+	
+	/**
+	 * Records a move with JFR, if the event is turned on
+	 * @param event
+	 * 		the event begun when the move started, null if the event was off
+	 * @return
+	 * 		the result, so the move can return it
+	 */
+	private static int commitMove(MoveEvent event, int seat, int targetSeat, int rank, int result) {
+		if (event != null && event.shouldCommit()) {
+			event.seat = seat;
+			event.targetSeat = targetSeat;
+			event.rank = rank;
+			event.result = result;
+			event.commit();
+		}
+		return result;
+	}
+	
+	/**
+	 * Records the turn passing with JFR, if the event is turned on
+	 */
+	private void commitTurn(int fromSeat) {
+		if (!TURN_EVENT.isEnabled()) return;
+		TurnEvent event = new TurnEvent();
+		if (event.isEnabled()) {
+			event.fromSeat = fromSeat;
+			event.toSeat = currTurn;
+			event.moveCount = moveCount;
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Tells every bot at the table about a move
+	 */
+	private void tellBots(int seat, int targetSeat, int rank, int result) {
+		if (bots == null) return;
+		for (Strategy bot : bots) {
+			if (bot != null) bot.moveMade(getView(), seat, targetSeat, rank, result);
+		}
+	}
+	
+	/**
+	 * Plays out a move without notifying anyone
+	 */
+	private int play(int targetSeat, Card requestedCard) {
+		Player current = playerDecks[currTurn];
+		Player player = playerDecks[targetSeat];
+		int rankRequested = requestedCard.getRank();
+		if (!headless) recordMove(targetSeat, requestedCard);
+		moveCount++;
+		
+		// take every card of the requested rank out of the player's / opponent's hand
+		int retVal = NO_CARDS;
+		long acquired = player.takeRank(rankRequested);
+		if (acquired != 0) retVal = ACQUIRED;
 		
 		// if no cards of matching rank were taken from the opponent
-		if (retVal == 0) {
+		if (retVal == NO_CARDS) {
 			// if we are on ruleset 2, then give the card requested to the opponent  
 				// Give them the card you asked for then get and remove requested 
 				// card from curr player then add to opponent's hand
-				// get and remove requested card from curr player then add to opponent's hand
 				if (gameType == GameType.VARIANT_1) {
-					Card cardToGive = null;
-					for(Card c: playerDecks[currTurn].getHand()) {
-						if (c.getId().equals(cardIdRequested)) {
-							cardToGive = c;
-							playerDecks[currTurn].getHand().remove(cardToGive);
-							break;
-						}
-					}
-					player.getHand().add(cardToGive);
+					current.removeCard(requestedCard);
+					player.addCard(requestedCard);
+					hashMove(1L << requestedCard.ordinal(), HAND + currTurn, HAND + targetSeat);
 				}
 
 			
@@ -198,34 +482,23 @@ public class GoFishModel extends Observable implements Serializable{
 			if(mainDeck.size()>0) { 
 				// if deck is not empty, pull card then check for book 
 				fishCard = mainDeck.pullCard();
-				playerDecks[currTurn].getHand().add(fishCard);
-				checkForBooks(playerDecks[currTurn],fishCard.getRank());
+				current.addCard(fishCard);
+				hashMove(1L << fishCard.ordinal(), DECK, HAND + currTurn);
+				checkForBooks(current,fishCard.getRank());
 			}
 			if(fishCard!=null && fishCard.getRank()==rankRequested) { 
 				// if deck was not empty and pulled card is same as requested card 
 				// then check if the players hand is empty aka the pulled card resulted in a book. 
 				// Then check if the main deck is empty, if it isn't then pull card, else update turn 
 				// if players' hand is not empty then just go ahead 
-				saveModel();
-				while(playerDecks[currTurn].getHand().size()==0) {
-					if(mainDeck.size()>0) {
-						Card pulledCard = mainDeck.pullCard();
-						playerDecks[currTurn].getHand().add(pulledCard);
-						checkForBooks(playerDecks[currTurn],pulledCard.getRank());
-					} else {
-						if (gameType == GameType.VARIANT_2) updateCurrTurn(player);
-						else updateCurrTurn();
-						break;
-					}
-				}
-				setChanged();
-				notifyObservers();
+				autoSave();
+				refillOrPass(targetSeat);
 				return retVal;
 			} else {
 				// if fishCard was null/deck was empty or fish card was not the same as requested rank, 
 				// then save the model and update the player turn according to ruleset and end turn
-				saveModel();
-				if (gameType == GameType.VARIANT_2) updateCurrTurn(player);
+				autoSave();
+				if (gameType == GameType.VARIANT_2) updateCurrTurn(targetSeat);
 				else updateCurrTurn();
 				return retVal;
 			}
@@ -235,26 +508,36 @@ public class GoFishModel extends Observable implements Serializable{
 		// then check if deck is empty. If not then pull and card and don't called updateTurn. This 
 		// lets the current player go again. If the deck is empty, the player is out of the game and 
 		// the game continues
-		playerDecks[currTurn].getHand().addAll(acquired);
-		if(checkForBooks(playerDecks[currTurn],rankRequested)) {
-			retVal = 2;
+		current.addCards(acquired);
+		hashMove(acquired, HAND + targetSeat, HAND + currTurn);
+		if(checkForBooks(current,rankRequested)) {
+			retVal = BOOKED;
 		}
-		this.saveModel();
-		while(playerDecks[currTurn].getHand().size()==0) {
+		autoSave();
+		refillOrPass(targetSeat);
+		return retVal;
+		
+	}
+	
+	/**
+	 * Called when the current player keeps their turn. If their hand is empty they draw 
+	 * until they have a card, and if the deck runs out the turn passes instead. 
+	 * @param targetSeat
+	 * 		the player that was asked, who goes next in Ruleset 3
+	 */
+	private void refillOrPass(int targetSeat) {
+		while(playerDecks[currTurn].getNumOfCardsInDeck()==0) {
 			if(mainDeck.size()>0) {
 				Card pulledCard = mainDeck.pullCard();
-				playerDecks[currTurn].getHand().add(pulledCard);
+				playerDecks[currTurn].addCard(pulledCard);
+				hashMove(1L << pulledCard.ordinal(), DECK, HAND + currTurn);
 				checkForBooks(playerDecks[currTurn],pulledCard.getRank());
 			} else {
-				if (gameType == GameType.VARIANT_2) updateCurrTurn(player);
+				if (gameType == GameType.VARIANT_2) updateCurrTurn(targetSeat);
 				else updateCurrTurn();
 				break;
 			}
 		}
-		setChanged();
-		notifyObservers();
-		return retVal;
-		
 	}
 	
 	/**
@@ -264,54 +547,46 @@ public class GoFishModel extends Observable implements Serializable{
 	private void updateCurrTurn() {
 		// First checks to see if game is over. If so it returns
 		if(checkGameOver()) {
-			setChanged();
-			notifyObservers();
 			return;
 		}
 		
 		// Calculates the current turn. 
+		int previousTurn = currTurn;
 		currTurn = (currTurn + 1) % numOfPlayers;
 		
 		// Check to see if current player's hand is empty, add card if so
-		if(playerDecks[currTurn].getHand().size()==0 && mainDeck.size()>0) {
-			playerDecks[currTurn].getHand().add(mainDeck.pullCard());
+		if(playerDecks[currTurn].getNumOfCardsInDeck()==0 && mainDeck.size()>0) {
+			Card pulledCard = mainDeck.pullCard();
+			playerDecks[currTurn].addCard(pulledCard);
+			hashMove(1L << pulledCard.ordinal(), DECK, HAND + currTurn);
 		}
 		
 		// check to see if main deck is empty. If so then it searches for whoever still has cards
 		if(mainDeck.size()==0) {
-			while(playerDecks[currTurn].getHand().size()==0) {
+			while(playerDecks[currTurn].getNumOfCardsInDeck()==0) {
 				currTurn = (currTurn + 1) % numOfPlayers;
 			}
 		}
-		setChanged();
-		notifyObservers();
+		if (hashed) hash ^= TURN_KEYS[previousTurn] ^ TURN_KEYS[currTurn];
+		if (previousTurn != currTurn) commitTurn(previousTurn);
 	}
 	
 	/**
 	 * This override of updateCurrentTurn makes the player who is passed in go next. 
 	 * It is used in Ruleset 3, popcorn goFish
-	 * @param player
-	 * 			This is the opponent who is going to go next. 
+	 * @param seat
+	 * 			This is the index of the opponent who is going to go next. 
 	 */
-	private void updateCurrTurn(Player player) {
+	private void updateCurrTurn(int seat) {
 		if(checkGameOver()) {
-			setChanged();
-			notifyObservers();
 			return;
 		}
-		int indexOfThatPlayer = 0;
-		while (indexOfThatPlayer < playerDecks.length) {
-			if (playerDecks[indexOfThatPlayer] == player) {
-				break;
-			}
-			indexOfThatPlayer++;
-		}
-		
-		currTurn = indexOfThatPlayer;
-		setChanged();
-		notifyObservers();
+		if (hashed) hash ^= TURN_KEYS[currTurn] ^ TURN_KEYS[seat];
+		int previousTurn = currTurn;
+		currTurn = seat;
+		if (previousTurn != currTurn) commitTurn(previousTurn);
 	}
-
+	
 	/**
 	 * 
 	 * After a move has been made, there is the possibility of a book. So this
@@ -323,30 +598,278 @@ public class GoFishModel extends Observable implements Serializable{
 	 * @return True if a book was found
 	 */
 	private boolean checkForBooks(Player player, int rankToCheck) {
+		long start = Metrics.start(Timer.BOOK_CHECK);
 		boolean retVal = false;
-		List<Card> cardsOfRank = new LinkedList<Card>();
-		for (Card card : player.getHand()) {
-			int curCardRank = card.getRank();
-			if (curCardRank==rankToCheck) {
-				cardsOfRank.add(card);
+		if(player.countOfRank(rankToCheck)==4) {
+			if (hashed) {
+				int seat = seatOf(player);
+				hashMove(player.getHandMask() & rankMask(rankToCheck), HAND + seat, BOOKS + seat);
 			}
-		}
-		if(cardsOfRank.size()==4) {
-			player.getBookedCards().add(cardsOfRank.get(0));
-			player.getHand().removeAll(cardsOfRank);
+			player.bookRank(rankToCheck);
 			numOfBooks++;
 			bookedRanks[rankToCheck] = rankToCheck;
 			retVal = true;
+			Metrics.count(Counter.BOOKS, 1);
+			if (BOOK_EVENT.isEnabled()) {
+				BookEvent event = new BookEvent();
+				event.seat = seatOf(player);
+				event.rank = rankToCheck;
+				event.books = numOfBooks;
+				event.commit();
+			}
 		}
-		checkGameOver();
-		setChanged();
-		notifyObservers();
+		Metrics.stop(Timer.BOOK_CHECK, start);
 		return retVal;
 	}
 
 
 	/**
-	 * This returns the player decks 
+	 * Moves cards from one place to another in the hash, if the hash is being kept
+	 * @param cards
+	 * 		mask of the cards moved
+	 * @param from
+	 * 		where they were: {@link #DECK}, {@link #HAND} + seat or {@link #BOOKS} + seat
+	 * @param to
+	 * 		where they are now
+	 */
+	private void hashMove(long cards, int from, int to) {
+		if (!hashed) return;
+		long[] fromKeys = CARD_KEYS[from];
+		long[] toKeys = CARD_KEYS[to];
+		for (; cards != 0; cards &= cards - 1) {
+			int card = Long.numberOfTrailingZeros(cards);
+			hash ^= fromKeys[card] ^ toKeys[card];
+		}
+	}
+	
+	/**
+	 * Works out the hash from scratch
+	 */
+	private long computeHash() {
+		long h = TURN_KEYS[currTurn] ^ TYPE_KEYS[gameType.ordinal()] ^ keysOf(DECK, mainDeck.getMask());
+		for (int i = 0; i < numOfPlayers; i++) {
+			h ^= keysOf(HAND + i, playerDecks[i].getHandMask());
+			for (Card card : playerDecks[i].getBookedCards()) {
+				h ^= keysOf(BOOKS + i, rankMask(card.getRank()));
+			}
+		}
+		return h;
+	}
+	
+	private static long keysOf(int place, long cards) {
+		long h = 0;
+		for (; cards != 0; cards &= cards - 1) {
+			h ^= CARD_KEYS[place][Long.numberOfTrailingZeros(cards)];
+		}
+		return h;
+	}
+	
+	/**
+	 * Returns the mask of all four cards of a rank
+	 */
+	private static long rankMask(int rank) {
+		return 0xFL << (rank - 1) * 4;
+	}
+
+	/**
+	 * Marks the model as changed after a move so the background writer saves it, 
+	 * unless the model is headless
+	 */
+	private void autoSave() {
+		if (!headless) saver().markDirty();
+	}
+	
+	/**
+	 * Hands the journal a checkpoint once enough moves were made since the last one. 
+	 * The state is taken here, after the move and under the lock, so the background 
+	 * writer never has to take the lock. 
+	 */
+	private void checkpointIfDue() {
+		if (!headless && journal().isCheckpointDue()) journal().checkpoint(toBytes());
+	}
+
+	/**
+	 * Adds a move to the journal, starting the journal with the current state if this 
+	 * is the first move being saved. Must be called before the move changes anything. 
+	 * @param seat
+	 * 		index of the player being asked
+	 * @param requestedCard
+	 * 		the card the current player asked with
+	 * @throws UncheckedIOException
+	 * 		if the journal could not be started, in which case the move is not made
+	 */
+	private void recordMove(int seat, Card requestedCard) {
+		try {
+			startJournal();
+		}
+		catch (IOException e) {
+			// nothing has changed yet, so the move is refused rather than made unsaved
+			throw new UncheckedIOException("Could not start the journal for " + fileName, e);
+		}
+		journal().record(seat, MoveJournal.cardCode(requestedCard.getRank(), requestedCard.getSuit().ordinal()));
+	}
+	
+	/**
+	 * Starts the journal with the current state, unless it has already been started
+	 * @throws IOException
+	 * 		if the journal could not be started
+	 */
+	private synchronized void startJournal() throws IOException {
+		if (journal().isStarted()) return;
+		journal().start(toBytes());
+	}
+	
+	/**
+	 * Hands a seat to a bot, or back to a person. Bots are not saved, a loaded game has 
+	 * people in every seat until they are set again. 
+	 * @param seat
+	 * 		index of the player
+	 * @param strategy
+	 * 		the bot playing the seat, or null for a person
+	 */
+	public synchronized void setBot(int seat, Strategy strategy) {
+		if (bots == null) bots = new Strategy[numOfPlayers];
+		bots[seat] = strategy;
+		if (strategy != null) strategy.newGame(getView(), seat);
+	}
+	
+	/**
+	 * Returns the bot playing a seat
+	 * @param seat
+	 * 		index of the player
+	 * @return
+	 * 		the bot, or null if a person plays the seat
+	 */
+	public Strategy getBot(int seat) {
+		return bots == null ? null : bots[seat];
+	}
+	
+	/**
+	 * Tells if a seat is played by a bot
+	 * @param seat
+	 * 		index of the player
+	 * @return
+	 * 		true if a bot plays the seat
+	 */
+	public boolean isBot(int seat) {
+		return getBot(seat) != null;
+	}
+	
+	/**
+	 * Lets the bots play until it is a person's turn or the game is over. The bots draw 
+	 * from a random source seeded from the game's seed, so a seeded game with the same 
+	 * bots is played the same way every time. 
+	 * @return
+	 * 		number of moves the bots made
+	 */
+	public int playBots() {
+		synchronized (this) {
+			if (botRandom == null) botRandom = new SplittableRandom(~seed);
+		}
+		return playBots(Integer.MAX_VALUE, botRandom);
+	}
+	
+	/**
+	 * Lets the bots play until it is a person's turn, the game is over, the current bot 
+	 * has no cards and nothing to draw, or the bots have made maxMoves moves. 
+	 * @param maxMoves
+	 * 		most moves to make
+	 * @param random
+	 * 		random source handed to the bots
+	 * @return
+	 * 		number of moves the bots made
+	 */
+	public int playBots(int maxMoves, SplittableRandom random) {
+		int moves = 0;
+		while (moves < maxMoves) {
+			ModelChange change;
+			synchronized (this) {
+				if (checkGameOver()) break;
+				Strategy bot = getBot(currTurn);
+				if (bot == null || playerDecks[currTurn].getNumOfCardsInDeck() == 0) break;
+				int move = bot.chooseMove(getView(), random);
+				checkedMove(Strategy.targetSeat(move), Strategy.rank(move));
+				change = takeChange();
+			}
+			publish(change);
+			moves++;
+		}
+		return moves;
+	}
+	
+	/**
+	 * Makes a copy of the game to play moves on without touching this one. The copy is 
+	 * headless, has no observers, bots or journal, and never saves, so moves on it cost 
+	 * only the move itself. Used by bots that search ahead. The cards are not copied: 
+	 * hands are masks, and the deck and booked cards are shared with this game until 
+	 * one of the two changes them. 
+	 * @return
+	 * 		the copy
+	 */
+	public GoFishModel copy() {
+		Player[] players = new Player[numOfPlayers];
+		for (int i = 0; i < numOfPlayers; i++) {
+			players[i] = new Player(playerDecks[i]);
+		}
+		GoFishModel copy = copyWith(players, new Deck(mainDeck));
+		copy.hash = hash;
+		copy.hashed = hashed;
+		return copy;
+	}
+	
+	/**
+	 * Takes a snapshot of the game as it is now. Later moves on this game do not 
+	 * change the snapshot. 
+	 * @return
+	 * 		the snapshot
+	 */
+	public synchronized GameSnapshot snapshot() {
+		return new GameSnapshot(copy());
+	}
+	
+	/**
+	 * Makes a headless copy of the game with other hands and another deck
+	 */
+	private GoFishModel copyWith(Player[] players, Deck deck) {
+		GoFishModel copy = new GoFishModel(players, deck, gameType, currTurn, numOfBooks, 
+				bookedRanks.clone(), moveCount, seeded, seed);
+		copy.headless = true;
+		return copy;
+	}
+	
+	/**
+	 * Returns the game as the player whose turn it is sees it. The view reads the model 
+	 * as it is, it is not a copy. 
+	 * @return
+	 * 		the view, the same object every time
+	 */
+	public GameView getView() {
+		if (view == null) view = new View();
+		return view;
+	}
+
+	/**
+	 * Puts the model in headless mode. A headless model does not save after every move
+	 * and does not notify its observers. It is used by the simulator to play games
+	 * as fast as possible.
+	 * @param headless
+	 * 		true to stop saving and notifying on every move
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	/**
+	 * Tells if the model is headless
+	 * @return
+	 * 		true if the model does not save or notify on every move
+	 */
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	/**
+	 * This returns the player decks
 	 * @return
 	 * 		playerDecks
 	 */
@@ -383,52 +906,454 @@ public class GoFishModel extends Observable implements Serializable{
 	}
 
 	/**
-	 * This is called from the view by the user to save the game. The player chooses 
-	 * where to save the file and the name of the file. 
+	 * This is called from the view by the user to save the game. The save is written 
+	 * right away on the calling thread. 
 	 */
 	public void saveModel() {
-		// Send the model out to the file
+		long start = Metrics.start(Timer.SAVE);
+		SaveEvent event = new SaveEvent();
+		event.begin();
+		long bytesBefore = journal().getBytesWritten();
 		try {
-			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(fileName));
-			out.writeObject(this);
-			out.close();
+			synchronized (this) {
+				startJournal();
+				journal().checkpoint(toBytes());
+			}
+			saver().markDirty();
+			saver().flush();
 		}
-		catch (FileNotFoundException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} 
 		catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
+		Metrics.stop(Timer.SAVE, start);
+		if (event.shouldCommit()) {
+			event.file = fileName;
+			event.bytes = journal().getBytesWritten() - bytesBefore;
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Writes any moves that have not been saved yet. Called when the game is closed so 
+	 * the last moves are not lost. 
+	 * @throws UncheckedIOException
+	 * 		if the moves could not be written, now or by an earlier background write 
+	 */
+	public void flushSave() {
+		try {
+			saver().flush();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Could not save " + fileName, e);
+		}
+	}
+	
+	/**
+	 * Gets the writer that saves this model in the background, creating it the first 
+	 * time it is needed. It is transient, so a loaded model makes a new one. The writer 
+	 * never takes the model's lock, since whoever flushes it may be holding the lock. 
+	 */
+	private synchronized WriteBehindWriter saver() {
+		if (saver == null) {
+			saver = new WriteBehindWriter(() -> {
+				MoveJournal current = journal;
+				if (current != null) current.sync();
+			});
+		}
+		return saver;
+	}
+	
+	/**
+	 * Gets the journal the moves of this game are saved to, creating it the first 
+	 * time it is needed. 
+	 */
+	private synchronized MoveJournal journal() {
+		if (journal == null) {
+			journal = new MoveJournal(Paths.get(fileName));
+		}
+		return journal;
 	}
 	
 	/**
-	 * This method loads the last saved save file.
+	 * Encodes the model with {@link GameCodec}. Synchronized with the moves so the 
+	 * save never sees a move that is half done. 
+	 */
+	private synchronized byte[] toBytes() {
+		return GameCodec.encode(this);
+	}
+	
+	/**
+	 * Reads a model written by {@link #toBytes()}. Models that were saved with Java 
+	 * serialization by older versions are still read. 
+	 */
+	private static GoFishModel fromBytes(byte[] bytes) throws IOException, ClassNotFoundException {
+		if (GameCodec.isEncoded(bytes)) {
+			return GameCodec.decode(bytes);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (GoFishModel) in.readObject();
+		}
+	}
+	
+	/**
+	 * This method loads the last saved save file. 
 	 */
 	public GoFishModel loadModel() {
+		return loadModel(-1);
+	}
+	
+	/**
+	 * This method loads the saved game as it was after the given number of moves. The 
+	 * game is rebuilt from the last checkpoint before that point by replaying the moves 
+	 * in the journal. Save files written before there was a journal are still read. 
+	 * @param moveNumber
+	 * 		number of moves to replay, or -1 for the latest state
+	 * @return
+	 * 		the loaded model, or null if there was nothing to load
+	 */
+	public GoFishModel loadModel(int moveNumber) {
+		try {
+			return load(Paths.get(fileName), moveNumber);
+		} catch (UncheckedIOException e) {
+			// the game being played is kept
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * Loads the last saved state of the game saved to a file. The loaded game keeps 
+	 * saving to that file. 
+	 * @param file
+	 * 		the save file
+	 * @return
+	 * 		the loaded model, or null if there is no save file or journal
+	 * @throws UncheckedIOException
+	 * 		if the save could not be read
+	 */
+	public static GoFishModel load(Path file) {
+		return load(file, -1);
+	}
+	
+	/**
+	 * Loads the game saved to a file as it was after the given number of moves, see 
+	 * {@link #loadModel(int)} 
+	 * @param file
+	 * 		the save file
+	 * @param moveNumber
+	 * 		number of moves to replay, or -1 for the latest state
+	 * @return
+	 * 		the loaded model, or null if there is no save file or journal
+	 * @throws UncheckedIOException
+	 * 		if the save could not be read, or is not a saved game
+	 */
+	public static GoFishModel load(Path file, int moveNumber) {
+		long start = Metrics.start(Timer.LOAD);
+		LoadEvent event = new LoadEvent();
+		event.begin();
 		GoFishModel model = null;
+		String fileName = file.toString();
 		try {
-			ObjectInputStream in = new ObjectInputStream(new FileInputStream(fileName));
-			model = (GoFishModel) in.readObject();
-			in.close();
+			if (!Files.exists(MoveJournal.journalFileFor(file)) && !Files.exists(file)) return null;
+			MoveJournal.Contents contents = MoveJournal.read(file);
+			if (contents != null) {
+				model = replay(contents, moveNumber, fileName);
+			}
+			else if (SaveFile.hasHeader(file)) {
+				model = fromBytes(SaveFile.read(file));
+			}
+			else {
+				try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(fileName))) {
+					model = (GoFishModel) in.readObject();
+				}
+			}
+			model.fileName = fileName;
+			return model;
 		}
-		catch (FileNotFoundException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} 
 		catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (ClassNotFoundException e) {
-			// TODO Auto-generated catch block
+			throw new UncheckedIOException("Could not load " + fileName + ": " + e.getMessage(), e);
+		}
+		catch (ClassNotFoundException | ClassCastException e) {
+			throw new UncheckedIOException("Could not load " + fileName + ": not a saved game", 
+					new IOException(e));
+		}
+		finally {
+			Metrics.stop(Timer.LOAD, start);
+			if (event.shouldCommit()) {
+				event.file = fileName;
+				event.requestedMove = moveNumber;
+				event.loaded = model != null;
+				event.moveCount = model == null ? 0 : model.moveCount;
+				event.commit();
+			}
+		}
+	}
+	
+	/**
+	 * Rebuilds a game from its journal. Starts from the checkpoint if it is not past the 
+	 * requested move, otherwise from the deal, and replays the moves after it. 
+	 */
+	private static GoFishModel replay(MoveJournal.Contents contents, int moveNumber, String fileName) 
+			throws IOException, ClassNotFoundException {
+		int target = contents.getMoveCount();
+		if (moveNumber >= 0 && moveNumber < target) target = moveNumber;
+		
+		// journal move i is move (first + i) of the model, in case moves were made 
+		// before the journal was started
+		GoFishModel model = fromBytes(contents.getInitialState());
+		int first = model.moveCount;
+		if (contents.getCheckpointState() != null) {
+			GoFishModel checkpoint = fromBytes(contents.getCheckpointState());
+			int checkpointMove = checkpoint.moveCount - first;
+			if (checkpointMove >= 0 && checkpointMove <= target) model = checkpoint;
+		}
+		
+		model.headless = true;
+		int move = model.moveCount - first;
+		try {
+			for (; move < target; move++) {
+				Card card = Card.ofOrdinal((contents.getRank(move) - 1) * 4 + contents.getSuit(move));
+				model.getUserMove(model.playerDecks[contents.getTargetSeat(move)], card.getId());
+			}
+		}
+		catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			// a damaged move ends the replay; the game is loaded up to the last good move
 			e.printStackTrace();
 		}
+		model.headless = false;
+		model.fileName = fileName;
+		model.journal().resume(contents, move);
 		return model;
 	}
+	
+	/**
+	 * Returns the rule set this game is played with
+	 * @return
+	 * 		the rule set
+	 */
+	public GameType getGameType() {
+		return gameType;
+	}
+	
+	/**
+	 * Returns the name of the file this game is saved to
+	 * @return
+	 * 		the save file name
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+	
+	/**
+	 * Changes the file this game is saved to. Pending moves are written to the old file 
+	 * first, and the next save starts a new journal next to the new file. 
+	 * @param fileName
+	 * 		the new save file name
+	 */
+	public void setFileName(String fileName) {
+		flushSave();
+		synchronized (this) {
+			this.fileName = fileName;
+			journal = null;
+		}
+	}
+	
+	/**
+	 * Returns the seed the deck was shuffled with. Only meaningful if {@link #hasSeed()}
+	 * @return
+	 * 		the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Tells if the game was dealt from a seed. Games dealt from a custom deck have no seed.
+	 * @return
+	 * 		true if {@link #getSeed()} can be used to deal this game again
+	 */
+	public boolean hasSeed() {
+		return seeded;
+	}
+	
+	/**
+	 * Returns the number of books made so far
+	 */
+	int getNumOfBooks() {
+		return numOfBooks;
+	}
+	
+	/**
+	 * Tells if a rank has been booked
+	 * @param rank
+	 * 		the rank, 1 - 13
+	 */
+	boolean isRankBooked(int rank) {
+		return bookedRanks[rank] != 0;
+	}
+	
+	/**
+	 * Returns a 64 bit Zobrist hash of the position: where every card is (the deck, a 
+	 * hand or someone's books), whose turn it is and the rule set. The order of the deck 
+	 * and the number of moves are not part of it, so games that reach the same cards in 
+	 * the same places by different moves have the same hash. 
+	 * 
+	 * The hash is worked out the first time it is asked for and then kept up to date by 
+	 * every move, a few XORs per card moved. Changing hands or the deck directly, other 
+	 * than through moves, is not seen by it. 
+	 * @return
+	 * 		the hash
+	 */
+	public long getHash() {
+		if (!hashed) {
+			hash = computeHash();
+			hashed = true;
+		}
+		return hash;
+	}
+	
+	/**
+	 * Returns the number of moves made in this game
+	 * @return
+	 * 		number of moves
+	 */
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	/**
+	 * The model seen through {@link GameView}
+	 */
+	private final class View implements GameView {
+		@Override
+		public int getNumOfSeats() {
+			return numOfPlayers;
+		}
+
+		@Override
+		public int getCurrentTurn() {
+			return currTurn;
+		}
+
+		@Override
+		public GameType getGameType() {
+			return gameType;
+		}
+
+		@Override
+		public int getDeckSize() {
+			return mainDeck.size();
+		}
+
+		@Override
+		public int getHandSize(int seat) {
+			return playerDecks[seat].getNumOfCardsInDeck();
+		}
+
+		@Override
+		public int getBookCount(int seat) {
+			return playerDecks[seat].getBookedCards().size();
+		}
+
+		@Override
+		public int getBookedRanks() {
+			int ranks = 0;
+			for (int rank = 1; rank <= MAX_BOOKS; rank++) {
+				if (bookedRanks[rank] != 0) ranks |= 1 << (rank - 1);
+			}
+			return ranks;
+		}
+
+		@Override
+		public long getHandMask() {
+			return playerDecks[currTurn].getHandMask();
+		}
+
+		@Override
+		public int getRanksHeld() {
+			Player current = playerDecks[currTurn];
+			int ranks = 0;
+			for (int rank = 1; rank <= MAX_BOOKS; rank++) {
+				if (current.hasRank(rank)) ranks |= 1 << (rank - 1);
+			}
+			return ranks;
+		}
+
+		@Override
+		public int countOfRank(int rank) {
+			return playerDecks[currTurn].countOfRank(rank);
+		}
+
+		@Override
+		public boolean isGameOver() {
+			return checkGameOver();
+		}
+
+		@Override
+		public GoFishModel determinize(int[] known, int[] lacking, SplittableRandom random) {
+			// every card the current player cannot see goes back in the pool
+			long hidden = mainDeck.getMask();
+			for (int i = 0; i < numOfPlayers; i++) {
+				if (i != currTurn) hidden |= playerDecks[i].getHandMask();
+			}
+			Player[] players = new Player[numOfPlayers];
+			for (int i = 0; i < numOfPlayers; i++) {
+				if (i == currTurn) {
+					players[i] = new Player(playerDecks[i]);
+					continue;
+				}
+				int size = playerDecks[i].getNumOfCardsInDeck();
+				long hand = 0;
+				// a card of each rank the player is known to hold, if one is left
+				int ranks = known == null || i >= known.length ? 0 : known[i];
+				for (; ranks != 0 && Long.bitCount(hand) < size; ranks &= ranks - 1) {
+					long ofRank = hidden & 0xFL << Integer.numberOfTrailingZeros(ranks) * 4;
+					if (ofRank == 0) continue;
+					long card = pick(ofRank, random);
+					hand |= card;
+					hidden &= ~card;
+				}
+				// the rest from the ranks the player could have, unless there are too few of them
+				long allowed = hidden;
+				int notHeld = lacking == null || i >= lacking.length ? 0 : lacking[i];
+				for (; notHeld != 0; notHeld &= notHeld - 1) {
+					allowed &= ~(0xFL << Integer.numberOfTrailingZeros(notHeld) * 4);
+				}
+				if (Long.bitCount(allowed) < size - Long.bitCount(hand)) allowed = hidden;
+				while (Long.bitCount(hand) < size) {
+					long card = pick(allowed, random);
+					allowed &= ~card;
+					hand |= card;
+					hidden &= ~card;
+				}
+				players[i] = new Player(playerDecks[i], hand);
+			}
+			Deck deck = new Deck(new Stack<>());
+			while (hidden != 0) {
+				long card = pick(hidden, random);
+				deck.addToDeck(Card.ofOrdinal(Long.numberOfTrailingZeros(card)));
+				hidden &= ~card;
+			}
+			return copyWith(players, deck);
+		}
+	}
+	
+	/**
+	 * Picks one card out of a mask at random
+	 * @return
+	 * 		the card as a mask with one bit set
+	 */
+	private static long pick(long cards, SplittableRandom random) {
+		for (int skip = random.nextInt(Long.bitCount(cards)); skip > 0; skip--) {
+			cards &= cards - 1;
+		}
+		return Long.lowestOneBit(cards);
+	}
 
 	/**
-	 * This is used to tell which player is the winner at the end of the game 
+	 * This is used to tell which player is the winner at the end of the game. When 
+	 * players tie the first of them is returned, see {@link #getWinners()}. 
 	 * @return
 	 * 		index of the winning player. 
 	 */
@@ -443,5 +1368,24 @@ public class GoFishModel extends Observable implements Serializable{
 		}
 		return maxBookIndex;
 	}
+	
+	/**
+	 * Tells which players have the most books. More than one of them means a tie. 
+	 * @return
+	 * 		mask with bit seat set for every player with the most books, 0 if nobody has 
+	 * 		a book yet
+	 */
+	public int getWinners() {
+		int most = 1;
+		int winners = 0;
+		for (int i = 0; i < playerDecks.length; i++) {
+			int books = playerDecks[i].getBookedCards().size();
+			if (books > most) {
+				most = books;
+				winners = 0;
+			}
+			if (books == most) winners |= 1 << i;
+		}
+		return winners;
+	}
 }
-
@@ -0,0 +1,175 @@
+package model;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Everything one move changed in a GoFishModel. The model sends exactly one of
+ *			these to its observers after each move, as the argument of notifyObservers,
+ *			so a view can update only the parts of the table that changed instead of
+ *			redrawing all of it.
+ *
+ *			Hands are given as 52 bit card masks (bit {@link goFish.Card#ordinal()} for
+ *			each card) and books as 13 bit rank masks (bit rank - 1 for each rank). The
+ *			masks are the net change over the whole move, so a card that was drawn and
+ *			then booked in the same move only shows up in the books.
+ */
+public final class ModelChange {
+	private final int seat;
+	private final int targetSeat;
+	private final int rank;
+	private final int result;
+	private final long[] cardsAdded;
+	private final long[] cardsRemoved;
+	private final int[] booksMade;
+	private final int cardsDrawn;
+	private final int previousTurn;
+	private final int currentTurn;
+	private final boolean gameOver;
+
+	ModelChange(int seat, int targetSeat, int rank, int result, long[] cardsAdded, long[] cardsRemoved,
+			int[] booksMade, int cardsDrawn, int currentTurn, boolean gameOver) {
+		this.seat = seat;
+		this.targetSeat = targetSeat;
+		this.rank = rank;
+		this.result = result;
+		this.cardsAdded = cardsAdded;
+		this.cardsRemoved = cardsRemoved;
+		this.booksMade = booksMade;
+		this.cardsDrawn = cardsDrawn;
+		this.previousTurn = seat;
+		this.currentTurn = currentTurn;
+		this.gameOver = gameOver;
+	}
+
+	/**
+	 * @return
+	 * 		index of the player who made the move
+	 */
+	public int getSeat() {
+		return seat;
+	}
+
+	/**
+	 * @return
+	 * 		index of the player who was asked
+	 */
+	public int getTargetSeat() {
+		return targetSeat;
+	}
+
+	/**
+	 * @return
+	 * 		the rank that was asked for, 1 - 13
+	 */
+	public int getRank() {
+		return rank;
+	}
+
+	/**
+	 * @return
+	 * 		{@link GoFishModel#NO_CARDS}, {@link GoFishModel#ACQUIRED} or {@link GoFishModel#BOOKED}
+	 */
+	public int getResult() {
+		return result;
+	}
+
+	/**
+	 * Returns the cards that are now in a hand and were not before the move
+	 * @param seat
+	 * 		index of the player
+	 * @return
+	 * 		mask of the cards added
+	 */
+	public long getCardsAdded(int seat) {
+		return cardsAdded[seat];
+	}
+
+	/**
+	 * Returns the cards that were in a hand before the move and are not anymore
+	 * @param seat
+	 * 		index of the player
+	 * @return
+	 * 		mask of the cards removed
+	 */
+	public long getCardsRemoved(int seat) {
+		return cardsRemoved[seat];
+	}
+
+	/**
+	 * Tells if a player's hand changed
+	 * @param seat
+	 * 		index of the player
+	 * @return
+	 * 		true if any card was added to or removed from the hand
+	 */
+	public boolean isHandChanged(int seat) {
+		return (cardsAdded[seat] | cardsRemoved[seat]) != 0;
+	}
+
+	/**
+	 * Returns the books a player made during the move
+	 * @param seat
+	 * 		index of the player
+	 * @return
+	 * 		mask with bit rank - 1 set for every rank booked
+	 */
+	public int getBooksMade(int seat) {
+		return booksMade[seat];
+	}
+
+	/**
+	 * @return
+	 * 		number of cards drawn from the main deck during the move
+	 */
+	public int getCardsDrawn() {
+		return cardsDrawn;
+	}
+
+	/**
+	 * @return
+	 * 		whose turn it was when the move was made
+	 */
+	public int getPreviousTurn() {
+		return previousTurn;
+	}
+
+	/**
+	 * @return
+	 * 		whose turn it is after the move
+	 */
+	public int getCurrentTurn() {
+		return currentTurn;
+	}
+
+	/**
+	 * @return
+	 * 		true if the move passed the turn to another player
+	 */
+	public boolean isTurnChanged() {
+		return previousTurn != currentTurn;
+	}
+
+	/**
+	 * @return
+	 * 		true if the move ended the game
+	 */
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Player ").append(seat + 1).append(" asked player ").append(targetSeat + 1)
+				.append(" for rank ").append(rank).append(": result ").append(result);
+		for (int i = 0; i < cardsAdded.length; i++) {
+			if (isHandChanged(i) || booksMade[i] != 0) {
+				sb.append(", player ").append(i + 1).append(" +").append(Long.bitCount(cardsAdded[i]))
+						.append(" -").append(Long.bitCount(cardsRemoved[i]))
+						.append(" books ").append(Integer.bitCount(booksMade[i]));
+			}
+		}
+		sb.append(", drew ").append(cardsDrawn).append(", turn ").append(currentTurn + 1);
+		if (gameOver) sb.append(", game over");
+		return sb.toString();
+	}
+}
@@ -4,10 +4,17 @@ module goFish {
 	exports goFish;
 	exports model;
 	exports tests;
+	exports sim;
+	exports persistence;
+	exports server;
+	exports bot;
+	exports metrics;
 
 	requires javafx.base;
 	requires javafx.controls;
 	requires javafx.graphics;
 	requires org.junit.jupiter.api;
 	requires java.desktop;
+	requires java.management;
+	requires jdk.jfr;
 }
\ No newline at end of file
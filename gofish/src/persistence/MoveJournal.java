@@ -0,0 +1,449 @@
+package persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+import metrics.Metrics;
+import metrics.Metrics.Counter;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			An append only log of the moves of one game. The journal file starts with the
+ *			state of the game right after the deal and then holds every move as two bytes
+ *			(the seat that was asked and the card that was asked for). Saving a move only
+ *			appends those two bytes, no matter how big the game state is.
+ *
+ *			Every {@link #CHECKPOINT_INTERVAL} moves, and whenever the player saves by
+ *			hand, a checkpoint of the full state is written to the save file. Loading
+ *			starts from the checkpoint and only replays the moves after it. The journal
+ *			still holds every move, so any point in the game can be rebuilt.
+ */
+public class MoveJournal {
+	/** "GFJL", starts the journal file */
+	public static final int MAGIC = 0x47464A4C;
+	/** "GFCP", starts the payload of a checkpoint in the save file */
+	public static final int CHECKPOINT_MAGIC = 0x47464350;
+	/** Number of moves between automatic checkpoints */
+	public static final int CHECKPOINT_INTERVAL = 64;
+	private static final int RECORD_SIZE = 2;
+
+	private final Path saveFile;
+	private final Path journalFile;
+	private long gameId;
+	private byte[] header;
+	private long headerLength;
+	private byte[] pending = new byte[32];
+	private int pendingLength;
+	private int moveCount;
+	private int checkpointMoves;
+	// a checkpoint handed over by the game, written on the next sync
+	private byte[] checkpointState;
+	// only changed by sync, which the background writer never runs on two threads at once
+	private volatile long bytesWritten;
+
+	/**
+	 * Creates a journal for a save file. The journal itself is kept next to the save
+	 * file with ".journal" added to the name.
+	 * @param saveFile
+	 * 		the save file checkpoints are written to
+	 */
+	public MoveJournal(Path saveFile) {
+		this.saveFile = saveFile;
+		this.journalFile = journalFileFor(saveFile);
+	}
+
+	/**
+	 * Gets the journal file that goes with a save file
+	 * @param saveFile
+	 * 		the save file
+	 * @return
+	 * 		the journal file
+	 */
+	public static Path journalFileFor(Path saveFile) {
+		return saveFile.resolveSibling(saveFile.getFileName() + ".journal");
+	}
+
+	/**
+	 * Tells if a game has been started in this journal
+	 * @return
+	 * 		true once {@link #start(byte[])} or {@link #resume(Contents, int)} was called
+	 */
+	public synchronized boolean isStarted() {
+		return gameId != 0;
+	}
+
+	/**
+	 * Starts a new game. The old journal is replaced on the next sync.
+	 * @param initialState
+	 * 		the state of the game before its first move
+	 * @throws IOException
+	 * 		if the header could not be built
+	 */
+	public synchronized void start(byte[] initialState) throws IOException {
+		newHeader(initialState);
+		pendingLength = 0;
+		moveCount = 0;
+		checkpointMoves = 0;
+		checkpointState = null;
+	}
+
+	/**
+	 * Continues a journal that was read back from disk
+	 * @param contents
+	 * 		what was read from disk
+	 * @param moves
+	 * 		number of moves to keep. If this is fewer than the journal holds, the game
+	 * 		was loaded at an earlier point and is played on from there, so the journal
+	 * 		is rewritten as a new game that keeps only those moves.
+	 * @throws IOException
+	 * 		if the header could not be built
+	 */
+	public synchronized void resume(Contents contents, int moves) throws IOException {
+		if (moves < contents.moveCount) {
+			newHeader(contents.initialState);
+			pendingLength = 0;
+			moveCount = 0;
+			checkpointMoves = 0;
+			checkpointState = null;
+			for (int i = 0; i < moves; i++) {
+				record(contents.moves[i * RECORD_SIZE], contents.moves[i * RECORD_SIZE + 1]);
+			}
+			return;
+		}
+		gameId = contents.gameId;
+		header = null;
+		headerLength = contents.headerLength;
+		pendingLength = 0;
+		moveCount = contents.moveCount;
+		checkpointMoves = moves;
+		checkpointState = null;
+	}
+
+	/**
+	 * Builds the header of a new journal with a new game id, so a checkpoint left
+	 * over from another game is never mixed up with this one
+	 */
+	private void newHeader(byte[] initialState) throws IOException {
+		long id;
+		do {
+			id = ThreadLocalRandom.current().nextLong();
+		} while (id == 0);
+		gameId = id;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(initialState.length + 32);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeLong(gameId);
+		out.writeInt(initialState.length);
+		out.write(initialState);
+		out.writeInt(checksum(gameId, initialState));
+		header = bytes.toByteArray();
+		headerLength = header.length;
+	}
+
+	/**
+	 * Records a move. Only buffers it; nothing is written until {@link #sync()}.
+	 * @param targetSeat
+	 * 		index of the player that was asked
+	 * @param cardCode
+	 * 		the card that was asked for, see {@link #cardCode(int, int)}
+	 */
+	public synchronized void record(int targetSeat, int cardCode) {
+		if (pendingLength + RECORD_SIZE > pending.length) {
+			pending = Arrays.copyOf(pending, pending.length * 2);
+		}
+		pending[pendingLength++] = (byte) targetSeat;
+		pending[pendingLength++] = (byte) cardCode;
+		moveCount++;
+	}
+
+	/**
+	 * Tells if the game should hand over a checkpoint, because enough moves were made
+	 * since the last one
+	 * @return
+	 * 		true if a checkpoint is due and none is waiting to be written
+	 */
+	public synchronized boolean isCheckpointDue() {
+		return gameId != 0 && checkpointState == null && moveCount - checkpointMoves >= CHECKPOINT_INTERVAL;
+	}
+
+	/**
+	 * Hands over the state of the game for the next sync to write as a checkpoint. The
+	 * state must hold every move recorded so far and no others.
+	 * @param state
+	 * 		the state of the game
+	 */
+	public synchronized void checkpoint(byte[] state) {
+		checkpointState = state;
+		checkpointMoves = moveCount;
+	}
+
+	/**
+	 * @return
+	 * 		number of moves recorded in this game
+	 */
+	public synchronized int getMoveCount() {
+		return moveCount;
+	}
+
+	/**
+	 * @return
+	 * 		bytes written to the journal and checkpoints by this journal so far
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * Writes the buffered moves to the journal, and the checkpoint handed over with
+	 * {@link #checkpoint(byte[])} if there is one. Called from the background writer.
+	 * The state was taken by the game, so this never waits on the game's lock.
+	 * @throws IOException
+	 * 		if the journal or the checkpoint could not be written
+	 */
+	public void sync() throws IOException {
+		long id;
+		byte[] newHeader;
+		byte[] moves;
+		byte[] state;
+		synchronized (this) {
+			if (gameId == 0) return;
+			id = gameId;
+			newHeader = header;
+			header = null;
+			moves = Arrays.copyOf(pending, pendingLength);
+			pendingLength = 0;
+			// the checkpoint was handed over after its moves were recorded, so they are
+			// in these moves or already on disk
+			state = checkpointState;
+			checkpointState = null;
+		}
+		boolean movesWritten = false;
+		try {
+			if (newHeader != null) {
+				writeNewJournal(newHeader, moves);
+			} else {
+				append(moves);
+			}
+			movesWritten = true;
+			if (state != null) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream(state.length + 16);
+				DataOutputStream out = new DataOutputStream(bytes);
+				out.writeInt(CHECKPOINT_MAGIC);
+				out.writeLong(id);
+				out.write(state);
+				bytesWritten += SaveFile.write(saveFile, bytes.toByteArray());
+			}
+		} catch (IOException e) {
+			putBack(id, movesWritten ? null : newHeader, movesWritten ? null : moves, state);
+			throw e;
+		}
+	}
+
+	/**
+	 * Puts back what a failed sync took, so the next sync writes it. Nothing is put
+	 * back if a new game was started in the meantime.
+	 */
+	private synchronized void putBack(long id, byte[] oldHeader, byte[] moves, byte[] state) {
+		if (gameId != id) return;
+		if (oldHeader != null && header == null) header = oldHeader;
+		if (moves != null && moves.length > 0) {
+			byte[] merged = new byte[Math.max(pending.length, moves.length + pendingLength)];
+			System.arraycopy(moves, 0, merged, 0, moves.length);
+			System.arraycopy(pending, 0, merged, moves.length, pendingLength);
+			pending = merged;
+			pendingLength += moves.length;
+		}
+		if (state != null && checkpointState == null) checkpointState = state;
+	}
+
+	private void writeNewJournal(byte[] newHeader, byte[] moves) throws IOException {
+		Path temp = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer[] buffers = { ByteBuffer.wrap(newHeader), ByteBuffer.wrap(moves) };
+			while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+				channel.write(buffers);
+			}
+			channel.force(true);
+		}
+		Metrics.count(Counter.BYTES_WRITTEN, newHeader.length + moves.length);
+		bytesWritten += newHeader.length + moves.length;
+		try {
+			Files.move(temp, journalFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, journalFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private void append(byte[] moves) throws IOException {
+		if (moves.length == 0) return;
+		try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+			// a crash can leave half a record at the end, so always append right after
+			// the last whole record
+			long end = headerLength + (channel.size() - headerLength) / RECORD_SIZE * RECORD_SIZE;
+			channel.truncate(end);
+			channel.position(end);
+			ByteBuffer buffer = ByteBuffer.wrap(moves);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+		Metrics.count(Counter.BYTES_WRITTEN, moves.length);
+		bytesWritten += moves.length;
+	}
+
+	/**
+	 * Packs a card into the byte used in the journal
+	 * @param rank
+	 * 		rank of the card, 1 - 13
+	 * @param suit
+	 * 		ordinal of the suit
+	 * @return
+	 * 		the card code
+	 */
+	public static int cardCode(int rank, int suit) {
+		return rank << 2 | suit;
+	}
+
+	/**
+	 * Reads a journal and its checkpoint back from disk
+	 * @param saveFile
+	 * 		the save file the journal belongs to
+	 * @return
+	 * 		the contents, or null if there is no journal
+	 * @throws IOException
+	 * 		if the journal is corrupt
+	 */
+	public static Contents read(Path saveFile) throws IOException {
+		Path file = journalFileFor(saveFile);
+		if (!Files.exists(file)) return null;
+		byte[] raw = Files.readAllBytes(file);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+		if (raw.length < 20 || in.readInt() != MAGIC) {
+			throw new IOException("Not a move journal");
+		}
+		long gameId = in.readLong();
+		int length = in.readInt();
+		if (length < 0 || length > raw.length - 20) {
+			throw new IOException("Corrupt move journal header");
+		}
+		byte[] initialState = new byte[length];
+		in.readFully(initialState);
+		if (in.readInt() != checksum(gameId, initialState)) {
+			throw new IOException("Move journal checksum does not match");
+		}
+		int headerLength = 20 + length;
+		int moveCount = (raw.length - headerLength) / RECORD_SIZE;
+		byte[] moves = Arrays.copyOfRange(raw, headerLength, headerLength + moveCount * RECORD_SIZE);
+
+		// the checkpoint is only used if it was written for this same game
+		byte[] checkpointState = null;
+		if (Files.exists(saveFile) && SaveFile.hasHeader(saveFile)) {
+			try {
+				DataInputStream cp = new DataInputStream(new ByteArrayInputStream(SaveFile.read(saveFile)));
+				if (cp.readInt() == CHECKPOINT_MAGIC && cp.readLong() == gameId) {
+					checkpointState = cp.readAllBytes();
+				}
+			} catch (IOException e) {
+				// a bad checkpoint is not fatal, the journal alone is enough
+			}
+		}
+		return new Contents(gameId, headerLength, initialState, moves, moveCount, checkpointState);
+	}
+
+	private static int checksum(long gameId, byte[] state) {
+		CRC32 crc = new CRC32();
+		crc.update(state);
+		return (int) (crc.getValue() ^ gameId ^ (gameId >>> 32));
+	}
+
+	/**
+	 * Everything read back from a journal and its checkpoint
+	 */
+	public static final class Contents {
+		private final long gameId;
+		private final long headerLength;
+		private final byte[] initialState;
+		private final byte[] moves;
+		private final int moveCount;
+		private final byte[] checkpointState;
+
+		Contents(long gameId, long headerLength, byte[] initialState, byte[] moves, int moveCount,
+				byte[] checkpointState) {
+			this.gameId = gameId;
+			this.headerLength = headerLength;
+			this.initialState = initialState;
+			this.moves = moves;
+			this.moveCount = moveCount;
+			this.checkpointState = checkpointState;
+		}
+
+		/**
+		 * @return
+		 * 		the state of the game right after the deal
+		 */
+		public byte[] getInitialState() {
+			return initialState;
+		}
+
+		/**
+		 * @return
+		 * 		the state at the checkpoint, or null if there is no usable checkpoint
+		 */
+		public byte[] getCheckpointState() {
+			return checkpointState;
+		}
+
+		/**
+		 * @return
+		 * 		number of moves in the journal
+		 */
+		public int getMoveCount() {
+			return moveCount;
+		}
+
+		/**
+		 * @param move
+		 * 		index of the move
+		 * @return
+		 * 		index of the player that was asked
+		 */
+		public int getTargetSeat(int move) {
+			return moves[move * RECORD_SIZE];
+		}
+
+		/**
+		 * @param move
+		 * 		index of the move
+		 * @return
+		 * 		rank of the card that was asked for
+		 */
+		public int getRank(int move) {
+			return (moves[move * RECORD_SIZE + 1] & 0xFF) >>> 2;
+		}
+
+		/**
+		 * @param move
+		 * 		index of the move
+		 * @return
+		 * 		ordinal of the suit of the card that was asked for
+		 */
+		public int getSuit(int move) {
+			return moves[move * RECORD_SIZE + 1] & 3;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package persistence;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import metrics.Metrics;
+import metrics.Metrics.Counter;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Reads and writes save files safely. A save file is a small header (magic
+ *			number, payload length and a CRC32 of the payload) followed by the payload.
+ *			Writes go to a temporary file that is synced and then renamed over the old
+ *			save, so a crash in the middle of a save never leaves a half written file.
+ */
+public final class SaveFile {
+	/** "GFSV" */
+	public static final int MAGIC = 0x47465356;
+	private static final int HEADER_SIZE = 16;
+
+	private SaveFile() {
+	}
+
+	/**
+	 * Writes the payload to the file, replacing it atomically
+	 * @param file
+	 * 		the save file
+	 * @param payload
+	 * 		the bytes to save
+	 * @return
+	 * 		number of bytes written, the header included
+	 * @throws IOException
+	 * 		if the file could not be written
+	 */
+	public static int write(Path file, byte[] payload) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(payload.length).putLong(crc.getValue()).flip();
+
+		Path dir = file.toAbsolutePath().getParent();
+		Path temp = dir.resolve(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer body = ByteBuffer.wrap(payload);
+			while (header.hasRemaining() || body.hasRemaining()) {
+				channel.write(new ByteBuffer[] { header, body });
+			}
+			channel.force(true);
+		}
+		Metrics.count(Counter.BYTES_WRITTEN, HEADER_SIZE + payload.length);
+		try {
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return HEADER_SIZE + payload.length;
+	}
+
+	/**
+	 * Reads the payload of a save file and checks it against its checksum
+	 * @param file
+	 * 		the save file
+	 * @return
+	 * 		the payload
+	 * @throws IOException
+	 * 		if the file could not be read, is not a save file, or is corrupt
+	 */
+	public static byte[] read(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return read(in);
+		}
+	}
+
+	/**
+	 * Reads a save file from a stream positioned at its header
+	 * @param stream
+	 * 		the stream to read from
+	 * @return
+	 * 		the payload
+	 * @throws IOException
+	 * 		if the stream does not hold a valid save file
+	 */
+	public static byte[] read(InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a save file");
+		}
+		int length = in.readInt();
+		long checksum = in.readLong();
+		if (length < 0) {
+			throw new IOException("Corrupt save file header");
+		}
+		byte[] payload = new byte[length];
+		try {
+			in.readFully(payload);
+		} catch (EOFException e) {
+			throw new IOException("Save file is truncated", e);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		if (crc.getValue() != checksum) {
+			throw new IOException("Save file checksum does not match");
+		}
+		return payload;
+	}
+
+	/**
+	 * Tells if the file starts with the save file header. Files written by older
+	 * versions are plain Java serialization and do not.
+	 * @param file
+	 * 		the file to check
+	 * @return
+	 * 		true if the file has a save file header
+	 * @throws IOException
+	 * 		if the file could not be read
+	 */
+	public static boolean hasHeader(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+			return in.readInt() == MAGIC;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package persistence;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import metrics.Metrics;
+import metrics.Metrics.Counter;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Saves a game in the background. Moves only mark the game as dirty; the first
+ *			mark schedules a write on the shared writer thread and every mark after that
+ *			is folded into the same write. This keeps disk I/O off the thread making the
+ *			moves and bounds the work to one pending write per save file no matter how
+ *			fast moves come in. {@link #flush()} writes any pending state right away and
+ *			is used for the "Save Game" button and when the game closes.
+ *
+ *			A background write that fails leaves the state dirty and is tried again after
+ *			another delay. The failure is kept, and the next flush tries once more and
+ *			throws if that fails too, so a lost save is never reported as written.
+ */
+public class WriteBehindWriter {
+	/** How long a write waits so that bursts of moves turn into one write */
+	public static final long DELAY_MILLIS = 250;
+
+	private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "save-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Does the actual write. Called on whichever thread does the write, never on two
+	 * threads at once.
+	 */
+	public interface Sink {
+		void write() throws IOException;
+	}
+
+	private final Sink sink;
+	private final AtomicBoolean dirty = new AtomicBoolean();
+	private final Object writeLock = new Object();
+	private volatile long writeCount;
+	// the last background write that failed, cleared by a write that works
+	private volatile IOException failure;
+
+	/**
+	 * Creates a writer
+	 * @param sink
+	 * 		writes the pending state
+	 */
+	public WriteBehindWriter(Sink sink) {
+		this.sink = sink;
+	}
+
+	/**
+	 * Marks the state as changed. Schedules a background write unless one is already
+	 * pending. Never blocks.
+	 */
+	public void markDirty() {
+		if (dirty.compareAndSet(false, true)) {
+			WRITER.schedule(this::backgroundWrite, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Writes the pending state on the calling thread, if there is any. That includes
+	 * state a failed background write left behind.
+	 * @throws IOException
+	 * 		if the save could not be written, with the background failure before it
+	 * 		added as suppressed
+	 */
+	public void flush() throws IOException {
+		IOException earlier = failure;
+		try {
+			writeIfDirty();
+		} catch (IOException e) {
+			if (earlier != null && earlier != e) e.addSuppressed(earlier);
+			throw e;
+		}
+	}
+
+	/**
+	 * Tells if there are changes that have not been written yet
+	 * @return
+	 * 		true if a write is pending
+	 */
+	public boolean isDirty() {
+		return dirty.get();
+	}
+
+	/**
+	 * @return
+	 * 		the failure of the last write if it failed, null if it worked
+	 */
+	public IOException getFailure() {
+		return failure;
+	}
+
+	/**
+	 * @return
+	 * 		number of writes done so far
+	 */
+	public long getWriteCount() {
+		return writeCount;
+	}
+
+	private void backgroundWrite() {
+		try {
+			writeIfDirty();
+		} catch (IOException e) {
+			// kept by writeIfDirty for the next flush. The state is still dirty, so
+			// markDirty will not schedule the retry
+			WRITER.schedule(this::backgroundWrite, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void writeIfDirty() throws IOException {
+		synchronized (writeLock) {
+			// clear the flag before taking the snapshot, so a change made while we are
+			// writing schedules another write instead of being lost
+			if (!dirty.getAndSet(false)) return;
+			try {
+				sink.write();
+			} catch (IOException e) {
+				failure = e;
+				dirty.set(true);
+				throw e;
+			}
+			failure = null;
+			writeCount++;
+			Metrics.count(Counter.SAVES, 1);
+		}
+	}
+}
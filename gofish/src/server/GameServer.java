@@ -0,0 +1,287 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import goFish.GameType;
+import metrics.Metrics;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Serves Go Fish tables over TCP on localhost. Every connection gets its own
+ *			thread, a virtual thread when the JVM has them and a plain pooled thread when
+ *			it does not, so a connection can simply block while it waits for its player
+ *			and for its commands to run on the table's queue.
+ *
+ *			The protocol is one command per line and one reply line per command. Replies
+ *			start with "OK" or "ERR".
+ *			<pre>
+ *			TABLES                                 list the open tables
+ *			NEW &lt;table&gt; &lt;players&gt; [rules] [seed]   open a table, rules BASIC, VARIANT_1 or VARIANT_2
+ *			LOAD &lt;table&gt;                           open a table from its save
+ *			JOIN &lt;table&gt; &lt;seat&gt;                    sit down at a table
+ *			STATE                                  the table as seen from your seat
+ *			ASK &lt;seat&gt; &lt;rank&gt;                      ask the player in a seat for a rank, 1 - 13
+ *			SAVE                                   save the table now
+ *			CLOSE &lt;table&gt;                          close a table
+ *			QUIT                                   hang up
+ *			</pre>
+ */
+public class GameServer implements Closeable {
+	/** Wait after the first accept that fails */
+	private static final long MIN_BACKOFF_MILLIS = 10;
+	/** Longest wait after accepts that keep failing */
+	private static final long MAX_BACKOFF_MILLIS = 1000;
+
+	private final TableManager tables;
+	private final ServerSocket serverSocket;
+	private final ExecutorService connections = newConnectionExecutor();
+	private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+	private final Thread acceptor;
+	private volatile boolean running = true;
+
+	/**
+	 * Starts a server on localhost
+	 * @param port
+	 * 		the port to listen on, 0 for any free port
+	 * @param tables
+	 * 		the tables to serve
+	 * @throws IOException
+	 * 		if the port cannot be opened
+	 */
+	public GameServer(int port, TableManager tables) throws IOException {
+		this.tables = tables;
+		this.serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+		this.acceptor = new Thread(this::acceptLoop, "gofish-acceptor");
+		acceptor.start();
+	}
+
+	/**
+	 * @return
+	 * 		the port the server listens on
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return
+	 * 		the tables served
+	 */
+	public TableManager getTables() {
+		return tables;
+	}
+
+	/**
+	 * Stops accepting, hangs up every connection and saves every table
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		serverSocket.close();
+		for (Socket socket : sockets) {
+			socket.close();
+		}
+		connections.shutdown();
+		try {
+			connections.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		tables.flushAll();
+	}
+
+	/**
+	 * Accepts connections until the server is closed. A failed accept, such as running
+	 * out of file descriptors, is not fixed by trying again at once, so the acceptor
+	 * waits longer after each failure in a row, up to {@value #MAX_BACKOFF_MILLIS}ms,
+	 * and only reports the first of them.
+	 */
+	private void acceptLoop() {
+		long backoff = 0;
+		while (running) {
+			try {
+				Socket socket = serverSocket.accept();
+				backoff = 0;
+				sockets.add(socket);
+				connections.execute(() -> serve(socket));
+			} catch (IOException e) {
+				// the server socket was closed
+				if (!running || serverSocket.isClosed()) return;
+				if (backoff == 0) System.err.println("Could not accept a connection: " + e);
+				backoff = Math.min(Math.max(backoff * 2, MIN_BACKOFF_MILLIS), MAX_BACKOFF_MILLIS);
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads commands from one connection until it hangs up
+	 */
+	private void serve(Socket socket) {
+		Session session = new Session();
+		try (socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				String reply;
+				try {
+					reply = session.handle(line.trim());
+				} catch (IllegalArgumentException | IllegalStateException | UncheckedIOException e) {
+					reply = "ERR " + e.getMessage();
+				} catch (CompletionException e) {
+					// thrown by a command on the table's queue
+					reply = "ERR " + e.getCause().getMessage();
+				}
+				out.write(reply);
+				out.write('\n');
+				out.flush();
+				if (session.quit) break;
+			}
+		} catch (IOException e) {
+			// the connection was dropped
+		} finally {
+			if (session.table != null) session.table.leave(session).join();
+			sockets.remove(socket);
+		}
+	}
+
+	/**
+	 * What one connection is doing: which table it sits at and in which seat
+	 */
+	private final class Session {
+		private Table table;
+		private int seat = -1;
+		private boolean quit;
+
+		String handle(String line) {
+			if (line.isEmpty()) return "ERR empty command";
+			String[] words = line.split("\\s+");
+			switch (words[0].toUpperCase(Locale.ROOT)) {
+			case "TABLES":
+				return "OK " + String.join(" ", tables.getTableIds());
+			case "NEW": {
+				need(words, 3);
+				GameType type = words.length > 3 ? GameType.valueOf(words[3].toUpperCase(Locale.ROOT)) : GameType.BASIC;
+				long seed = words.length > 4 ? Long.parseLong(words[4]) : new SplittableRandom().nextLong();
+				Table created = tables.createTable(words[1], Integer.parseInt(words[2]), type, seed);
+				return "OK " + created.getId() + " seed=" + seed;
+			}
+			case "LOAD": {
+				need(words, 2);
+				Table loaded = tables.loadTable(words[1]);
+				if (loaded == null) return "ERR no save for table " + words[1];
+				return "OK " + loaded.getId();
+			}
+			case "JOIN": {
+				need(words, 3);
+				Table joining = tables.getTable(words[1]);
+				if (joining == null) return "ERR no table " + words[1];
+				int wanted = Integer.parseInt(words[2]);
+				joining.join(wanted, this).join();
+				if (table != null && table != joining) table.leave(this).join();
+				table = joining;
+				seat = wanted;
+				return "OK " + table.getId() + " seat=" + seat;
+			}
+			case "STATE":
+				return "OK " + seated().describe(seat).join();
+			case "ASK": {
+				need(words, 3);
+				int result = seated().move(seat, this, Integer.parseInt(words[1]), Integer.parseInt(words[2])).join();
+				return "OK " + result;
+			}
+			case "SAVE":
+				seated().save().join();
+				return "OK";
+			case "CLOSE":
+				need(words, 2);
+				if (table != null && table.getId().equals(words[1])) {
+					table.leave(this).join();
+					table = null;
+					seat = -1;
+				}
+				return tables.closeTable(words[1]) ? "OK" : "ERR no table " + words[1];
+			case "QUIT":
+				quit = true;
+				return "OK bye";
+			default:
+				return "ERR unknown command " + words[0];
+			}
+		}
+
+		private Table seated() {
+			if (table == null) throw new IllegalStateException("Join a table first");
+			return table;
+		}
+
+		private void need(String[] words, int count) {
+			if (words.length < count) throw new IllegalArgumentException("Missing arguments for " + words[0]);
+		}
+	}
+
+	/**
+	 * Makes the executor connections run on. Virtual threads came in Java 21, and this
+	 * project is built for Java 17, so they are looked up by reflection and a cached
+	 * pool of daemon threads is used when they are not there.
+	 */
+	static ExecutorService newConnectionExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return Executors.newCachedThreadPool(r -> {
+				Thread thread = new Thread(r, "gofish-connection");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Runs a server until the process is stopped
+	 * @param args
+	 * 		port and save directory, both optional
+	 */
+	public static void main(String[] args) throws IOException {
+		Metrics.install();
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+		Path dir = Paths.get(args.length > 1 ? args[1] : "tables");
+		dir.toFile().mkdirs();
+		GameServer server = new GameServer(port, new TableManager(dir));
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				server.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}));
+		System.out.println("Go Fish server on port " + server.getPort() + ", saving to " + dir.toAbsolutePath());
+	}
+}
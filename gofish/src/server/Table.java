@@ -0,0 +1,230 @@
+package server;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import goFish.GameType;
+import goFish.Player;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			One game on the server. A table has its own model, saved to its own file, and
+ *			remembers which seats have been taken by a connection. Only the connection in
+ *			the seat whose turn it is may make a move.
+ *
+ *			Everything that reads or changes the table is a command run by the table's
+ *			{@link TableActor}, so commands from many connections never run at the same
+ *			time and the table itself needs no locks. Every method returns right away
+ *			with a future of the result.
+ */
+public class Table {
+	private final String id;
+	private final Object[] seats;
+	private final TableActor actor;
+	private final Executor io;
+	private volatile GoFishModel model;
+
+	/**
+	 * Creates a table around a model
+	 * @param id
+	 * 		the table id
+	 * @param model
+	 * 		the game, already set to save to this table's file
+	 * @param executor
+	 * 		runs the table's commands
+	 * @param io
+	 * 		runs the table's saves and loads, which can block on the disk
+	 */
+	Table(String id, GoFishModel model, Executor executor, Executor io) {
+		this.id = id;
+		this.model = model;
+		this.seats = new Object[model.getPlayerDecks().length];
+		this.actor = new TableActor(executor);
+		this.io = io;
+	}
+
+	/**
+	 * @return
+	 * 		the table id
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the game being played at this table. Changing it directly skips the
+	 * table's queue, use {@link #submit(Supplier)} for that.
+	 * @return
+	 * 		the game
+	 */
+	public GoFishModel getModel() {
+		return model;
+	}
+
+	/**
+	 * @return
+	 * 		number of seats at the table
+	 */
+	public int getNumOfSeats() {
+		return seats.length;
+	}
+
+	/**
+	 * Runs any command on the table's queue
+	 * @param command
+	 * 		the command
+	 * @return
+	 * 		the future result
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> command) {
+		return actor.submit(command);
+	}
+
+	/**
+	 * Sits a player down. Fails with IllegalArgumentException if there is no such seat
+	 * and IllegalStateException if someone else is in the seat.
+	 * @param seat
+	 * 		the seat to take
+	 * @param owner
+	 * 		whoever takes it, usually the connection
+	 * @return
+	 * 		completes when the player is seated
+	 */
+	public CompletableFuture<Void> join(int seat, Object owner) {
+		return actor.submit(() -> {
+			if (seat < 0 || seat >= seats.length) {
+				throw new IllegalArgumentException("No seat " + seat + " at table " + id);
+			}
+			if (seats[seat] != null && seats[seat] != owner) {
+				throw new IllegalStateException("Seat " + seat + " is taken");
+			}
+			seats[seat] = owner;
+			return null;
+		});
+	}
+
+	/**
+	 * Frees every seat held by an owner
+	 * @param owner
+	 * 		whoever is leaving
+	 * @return
+	 * 		completes when the seats are free
+	 */
+	public CompletableFuture<Void> leave(Object owner) {
+		return actor.submit(() -> {
+			for (int i = 0; i < seats.length; i++) {
+				if (seats[i] == owner) seats[i] = null;
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Makes a move for the player in a seat. Fails with IllegalStateException if the
+	 * owner does not hold the seat or it is not their turn, and with
+	 * IllegalArgumentException if the move is not allowed.
+	 * @param seat
+	 * 		the seat of the player asking
+	 * @param owner
+	 * 		whoever is asking, must hold the seat
+	 * @param targetSeat
+	 * 		the seat of the player being asked
+	 * @param rank
+	 * 		the rank asked for
+	 * @return
+	 * 		the result of {@link GoFishModel#applyMove(int, int)}
+	 */
+	public CompletableFuture<Integer> move(int seat, Object owner, int targetSeat, int rank) {
+		return actor.submit(() -> {
+			if (seat < 0 || seat >= seats.length || seats[seat] != owner) {
+				throw new IllegalStateException("You are not in seat " + seat);
+			}
+			if (model.checkGameOver()) {
+				throw new IllegalStateException("The game is over");
+			}
+			if (model.getCurrentTurn() != seat) {
+				throw new IllegalStateException("It is not your turn");
+			}
+			if (targetSeat == seat) {
+				throw new IllegalArgumentException("You cannot ask yourself");
+			}
+			return model.applyMove(targetSeat, rank);
+		});
+	}
+
+	/**
+	 * Saves the game now. The save is written on the I/O executor once the commands
+	 * before it have run, so the table's queue does not wait for the disk. It holds at
+	 * least every move made before it was asked for.
+	 * @return
+	 * 		completes when the save is written
+	 */
+	public CompletableFuture<Void> save() {
+		return actor.submit(() -> model).thenAcceptAsync(GoFishModel::saveModel, io);
+	}
+
+	/**
+	 * Writes any moves that have not been saved yet, on the I/O executor once the
+	 * commands before it have run
+	 * @return
+	 * 		completes when the moves are written
+	 */
+	public CompletableFuture<Void> flush() {
+		return actor.submit(() -> model).thenAcceptAsync(GoFishModel::flushSave, io);
+	}
+
+	/**
+	 * Replaces the game with the one in this table's save file. The file is read on the
+	 * I/O executor and the game replaced by a command on the table's queue.
+	 * @return
+	 * 		true if a save was found and loaded, completed with an UncheckedIOException 
+	 * 		if the save could not be read
+	 */
+	public CompletableFuture<Boolean> load() {
+		Path file = Paths.get(model.getFileName());
+		return CompletableFuture.supplyAsync(() -> GoFishModel.load(file), io)
+				.thenCompose(loaded -> actor.submit(() -> {
+					if (loaded == null || loaded.getPlayerDecks().length != seats.length) return false;
+					model = loaded;
+					return true;
+				}));
+	}
+
+	/**
+	 * Describes the table as seen from a seat. Only the cards of that seat are shown,
+	 * everyone else is shown as a number of cards.
+	 * @param seat
+	 * 		the seat looking, or -1 to see no hands
+	 * @return
+	 * 		one line: turn, deck size, rule set, then for each seat its card and book
+	 * 		counts and, for the seat looking, its cards
+	 */
+	public CompletableFuture<String> describe(int seat) {
+		return actor.submit(() -> {
+			GameType type = model.getGameType();
+			Player[] players = model.getPlayerDecks();
+			StringBuilder sb = new StringBuilder();
+			sb.append("turn=").append(model.getCurrentTurn())
+					.append(" deck=").append(model.getDeck().size())
+					.append(" rules=").append(type)
+					.append(" over=").append(model.checkGameOver());
+			for (int i = 0; i < players.length; i++) {
+				sb.append(" seat").append(i).append('=')
+						.append(players[i].getNumOfCardsInDeck()).append('/')
+						.append(players[i].getBookedCards().size());
+				if (i == seat) {
+					sb.append(':');
+					for (int j = 0; j < players[i].getHand().size(); j++) {
+						if (j > 0) sb.append(',');
+						sb.append(players[i].getHand().get(j).getId());
+					}
+				}
+			}
+			return sb.toString();
+		});
+	}
+}
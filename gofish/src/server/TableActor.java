@@ -0,0 +1,92 @@
+package server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Runs the commands of one table one at a time, in the order they were sent.
+ *			Any thread may send a command; it goes on a lock-free queue and the caller
+ *			gets a CompletableFuture for the result. Whichever thread schedules the queue
+ *			first hands it to the executor, and the task that runs drains up to
+ *			{@link #BATCH} commands before giving the thread back. So at most one thread
+ *			touches a table at a time, without locking the table, and a busy table does
+ *			not hold a pool thread forever.
+ */
+public class TableActor {
+	/** Most commands run in one go before the drain gives its thread back */
+	public static final int BATCH = 64;
+
+	private final ConcurrentLinkedQueue<Command<?>> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Executor executor;
+
+	/**
+	 * Creates an actor
+	 * @param executor
+	 * 		runs the drains, shared by all tables
+	 */
+	public TableActor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sends a command to the table
+	 * @param command
+	 * 		the work, run on the table's thread of the moment
+	 * @return
+	 * 		completes with the result, or exceptionally with whatever the command threw
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> command) {
+		Command<T> queued = new Command<>(command);
+		queue.offer(queued);
+		schedule();
+		return queued.result;
+	}
+
+	private void schedule() {
+		if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+			executor.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		try {
+			Command<?> command;
+			for (int i = 0; i < BATCH && (command = queue.poll()) != null; i++) {
+				command.run();
+			}
+		} finally {
+			scheduled.set(false);
+			// a command sent after the last poll but before the flag was cleared saw the
+			// flag still set, so it is picked up here
+			schedule();
+		}
+	}
+
+	/**
+	 * A command and the future of its result
+	 */
+	private static final class Command<T> {
+		private final Supplier<T> work;
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+
+		Command(Supplier<T> work) {
+			this.work = work;
+		}
+
+		void run() {
+			try {
+				result.complete(work.get());
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+			} catch (Error e) {
+				result.completeExceptionally(e);
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package server;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import goFish.GameType;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Keeps every table of the server by id. Each table saves to its own file,
+ *			&lt;id&gt;.bin in the save directory, so any number of games can run in one
+ *			process without writing over each other's saves.
+ *
+ *			Saves wait on the disk, so they run on a small pool of their own instead of
+ *			the executor the tables' commands run on. A slow disk then holds up saves but
+ *			not the moves of other tables.
+ */
+public class TableManager {
+	private static final Pattern TABLE_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+	/** Threads that write saves when no I/O executor is given */
+	public static final int IO_THREADS = 2;
+
+	private final Path saveDir;
+	private final Executor executor;
+	private final Executor io;
+	private final ConcurrentHashMap<String, Table> tables = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a manager whose tables run their commands on the common fork/join pool
+	 * @param saveDir
+	 * 		directory the tables save to
+	 */
+	public TableManager(Path saveDir) {
+		this(saveDir, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a manager whose tables save on a pool of {@value #IO_THREADS} threads
+	 * @param saveDir
+	 * 		directory the tables save to
+	 * @param executor
+	 * 		runs the commands of every table, each table one command at a time
+	 */
+	public TableManager(Path saveDir, Executor executor) {
+		this(saveDir, executor, Executors.newFixedThreadPool(IO_THREADS, r -> {
+			Thread thread = new Thread(r, "table-io");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	/**
+	 * Creates a manager
+	 * @param saveDir
+	 * 		directory the tables save to
+	 * @param executor
+	 * 		runs the commands of every table, each table one command at a time
+	 * @param io
+	 * 		runs the saves and loads of every table
+	 */
+	public TableManager(Path saveDir, Executor executor, Executor io) {
+		this.saveDir = saveDir;
+		this.executor = executor;
+		this.io = io;
+	}
+
+	/**
+	 * Opens a new table with a freshly dealt game
+	 * @param id
+	 * 		the table id, letters, digits, '-' and '_' only
+	 * @param numOfPlayers
+	 * 		number of seats, 2 - 4
+	 * @param ruleset
+	 * 		the rule set
+	 * @param seed
+	 * 		the seed the game is dealt from
+	 * @return
+	 * 		the table
+	 * @throws IllegalArgumentException
+	 * 		if the id or number of players is not allowed
+	 * @throws IllegalStateException
+	 * 		if a table with that id is already open
+	 */
+	public Table createTable(String id, int numOfPlayers, GameType ruleset, long seed) {
+		Path file = saveFileFor(id);
+		if (numOfPlayers < 2 || numOfPlayers > 4) {
+			throw new IllegalArgumentException("Number of players must be between 2 and 4");
+		}
+		if (tables.containsKey(id)) {
+			throw new IllegalStateException("Table " + id + " is already open");
+		}
+		GoFishModel model = new GoFishModel(numOfPlayers, ruleset, seed);
+		model.setFileName(file.toString());
+		Table table = new Table(id, model, executor, io);
+		if (tables.putIfAbsent(id, table) != null) {
+			throw new IllegalStateException("Table " + id + " is already open");
+		}
+		return table;
+	}
+
+	/**
+	 * Opens a table from its save file
+	 * @param id
+	 * 		the table id
+	 * @return
+	 * 		the table, or null if there is no save for it
+	 * @throws UncheckedIOException
+	 * 		if the save could not be read
+	 */
+	public Table loadTable(String id) {
+		GoFishModel model = GoFishModel.load(saveFileFor(id));
+		if (model == null) return null;
+		Table table = new Table(id, model, executor, io);
+		Table existing = tables.putIfAbsent(id, table);
+		return existing != null ? existing : table;
+	}
+
+	/**
+	 * @param id
+	 * 		the table id
+	 * @return
+	 * 		the open table, or null if there is none
+	 */
+	public Table getTable(String id) {
+		return tables.get(id);
+	}
+
+	/**
+	 * Closes a table, writing any moves that have not been saved yet
+	 * @param id
+	 * 		the table id
+	 * @return
+	 * 		true if the table was open
+	 */
+	public boolean closeTable(String id) {
+		Table table = tables.remove(id);
+		if (table == null) return false;
+		table.flush().join();
+		return true;
+	}
+
+	/**
+	 * Writes the pending moves of every open table, all at once, and waits for them.
+	 * Called when the server stops.
+	 */
+	public void flushAll() {
+		CompletableFuture.allOf(tables.values().stream().map(Table::flush)
+				.toArray(CompletableFuture[]::new)).join();
+	}
+
+	/**
+	 * @return
+	 * 		the ids of the open tables, sorted
+	 */
+	public List<String> getTableIds() {
+		List<String> ids = new ArrayList<>(tables.keySet());
+		Collections.sort(ids);
+		return ids;
+	}
+
+	/**
+	 * @return
+	 * 		number of open tables
+	 */
+	public int size() {
+		return tables.size();
+	}
+
+	/**
+	 * Returns the save file of a table. The id is checked so it cannot reach outside
+	 * the save directory.
+	 */
+	private Path saveFileFor(String id) {
+		if (id == null || !TABLE_ID.matcher(id).matches()) {
+			throw new IllegalArgumentException("Bad table id: " + id);
+		}
+		return saveDir.resolve(id + ".bin");
+	}
+}
@@ -0,0 +1,91 @@
+package sim;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			The columns of a columnar export, see {@link ColumnarExporter}. A game column
+ *			has one value per game and a move column one value per move, with the moves of
+ *			each game following the moves of the game before. {@link #MOVE_COUNT} tells
+ *			which moves belong to which game.
+ *
+ *			Each column is stored the way that suits its values: runs of the same value
+ *			as run lengths, counts that change little as differences from the one before,
+ *			and everything else as it is.
+ */
+public enum Column {
+	/** The seed the deck was shuffled with */
+	SEED(false, Encoding.PLAIN_LONG),
+	/** Ordinal of the rule set */
+	GAME_TYPE(false, Encoding.RUN_LENGTH),
+	/** Number of players */
+	PLAYERS(false, Encoding.RUN_LENGTH),
+	/** 1 if the game reached the end, 0 if it stalled */
+	FINISHED(false, Encoding.RUN_LENGTH),
+	/** The seats with the most books, one bit per seat */
+	WINNERS(false, Encoding.PLAIN_BYTE),
+	/** Books made by seat 0 */
+	BOOKS_0(false, Encoding.PLAIN_BYTE),
+	/** Books made by seat 1 */
+	BOOKS_1(false, Encoding.PLAIN_BYTE),
+	/** Books made by seat 2, 0 in games with fewer players */
+	BOOKS_2(false, Encoding.PLAIN_BYTE),
+	/** Books made by seat 3, 0 in games with fewer players */
+	BOOKS_3(false, Encoding.PLAIN_BYTE),
+	/** Number of moves in the game */
+	MOVE_COUNT(false, Encoding.DELTA),
+	/** The seat that asked */
+	MOVE_SEAT(true, Encoding.RUN_LENGTH),
+	/** The seat that was asked */
+	MOVE_TARGET(true, Encoding.PLAIN_BYTE),
+	/** The rank asked for */
+	MOVE_RANK(true, Encoding.PLAIN_BYTE),
+	/** What the ask got, as returned by GoFishModel.applyMove */
+	MOVE_RESULT(true, Encoding.RUN_LENGTH);
+
+	/**
+	 * How the values of a column are stored
+	 */
+	enum Encoding {
+		/** One byte per value */
+		PLAIN_BYTE,
+		/** Eight bytes per value */
+		PLAIN_LONG,
+		/** A byte value and a varint count for each run of the same value */
+		RUN_LENGTH,
+		/** The zigzag varint of the difference from the value before */
+		DELTA
+	}
+
+	private final boolean perMove;
+	private final Encoding encoding;
+
+	Column(boolean perMove, Encoding encoding) {
+		this.perMove = perMove;
+		this.encoding = encoding;
+	}
+
+	/**
+	 * @return
+	 * 		true if the column has a value per move, false if it has one per game
+	 */
+	public boolean isPerMove() {
+		return perMove;
+	}
+
+	/**
+	 * @param seat
+	 * 		index of the player
+	 * @return
+	 * 		the column of books made by the seat
+	 */
+	public static Column books(int seat) {
+		return values()[BOOKS_0.ordinal() + seat];
+	}
+
+	Encoding getEncoding() {
+		return encoding;
+	}
+
+	String getFileName() {
+		return name().toLowerCase() + ".col";
+	}
+}
@@ -0,0 +1,377 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Answers questions about the games written by a {@link ColumnarExporter}. A
+ *			column file is mapped the first time a query needs it, so a query only reads
+ *			the columns it names. For example the average books of seat 0 in variant 2
+ *			games reads the game type and seat 0 books and nothing else.
+ *
+ *			A query is over games if all its columns are game columns and over moves if
+ *			any of them is a move column. In a query over moves a game value is the value
+ *			of the game the move is in, and {@link Column#MOVE_COUNT} is read to find the
+ *			moves of each game, skipping the moves of games that do not match.
+ *
+ *			A store is for one thread at a time, as are its queries.
+ */
+public class ColumnStore implements Closeable {
+	private final Path dir;
+	private final ByteBuffer[] columns = new ByteBuffer[Column.values().length];
+	private long bytesMapped;
+
+	/**
+	 * Opens the columns in a directory. Nothing is read until a query needs it.
+	 * @param dir
+	 * 		the directory a {@link ColumnarExporter} wrote to
+	 */
+	public ColumnStore(Path dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * @return
+	 * 		a new query over every game
+	 */
+	public Query query() {
+		return new Query();
+	}
+
+	/**
+	 * @return
+	 * 		bytes of column files mapped so far
+	 */
+	public long getBytesMapped() {
+		return bytesMapped;
+	}
+
+	/**
+	 * Lets go of the mapped columns. The mappings are undone when they are collected.
+	 */
+	@Override
+	public void close() {
+		Arrays.fill(columns, null);
+	}
+
+	/**
+	 * @param column
+	 * 		the column
+	 * @return
+	 * 		the column file mapped, positioned at its first value
+	 * @throws IOException
+	 * 		if the file could not be read or is not a column file
+	 */
+	private ByteBuffer map(Column column) throws IOException {
+		ByteBuffer buffer = columns[column.ordinal()];
+		if (buffer != null) return buffer.duplicate();
+		Path file = dir.resolve(column.getFileName());
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException(file + " is over 2GB");
+			if (size < ColumnarExporter.HEADER_SIZE) throw new IOException(file + " is not a column file");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			bytesMapped += size;
+		}
+		if (buffer.getInt(0) != ColumnarExporter.MAGIC) throw new IOException(file + " is not a column file");
+		if (buffer.get(4) != column.getEncoding().ordinal()) {
+			throw new IOException(file + " is not encoded as " + column.getEncoding());
+		}
+		columns[column.ordinal()] = buffer;
+		return buffer.duplicate();
+	}
+
+	/**
+	 * A question about the games: the games or moves that match every
+	 * {@link #where(Column, long)}, and what to work out about them. A query can be
+	 * asked more than once.
+	 */
+	public final class Query {
+		private final List<Column> conditions = new ArrayList<>();
+		private final List<Long> values = new ArrayList<>();
+
+		private Query() {
+		}
+
+		/**
+		 * Only keeps the games or moves where a column has a value
+		 * @param column
+		 * 		the column
+		 * @param value
+		 * 		the value it must have
+		 * @return
+		 * 		this query
+		 */
+		public Query where(Column column, long value) {
+			conditions.add(column);
+			values.add(value);
+			return this;
+		}
+
+		/**
+		 * @return
+		 * 		number of games or moves that match
+		 * @throws IOException
+		 * 		if a column could not be read
+		 */
+		public long count() throws IOException {
+			long[] count = new long[1];
+			run(null, value -> count[0]++);
+			return count[0];
+		}
+
+		/**
+		 * @param column
+		 * 		the column to add up
+		 * @return
+		 * 		the sum of the column over the games or moves that match
+		 * @throws IOException
+		 * 		if a column could not be read
+		 */
+		public long sum(Column column) throws IOException {
+			long[] sum = new long[1];
+			run(column, value -> sum[0] += value);
+			return sum[0];
+		}
+
+		/**
+		 * @param column
+		 * 		the column to average
+		 * @return
+		 * 		the mean of the column over the games or moves that match, 0 if none do
+		 * @throws IOException
+		 * 		if a column could not be read
+		 */
+		public double average(Column column) throws IOException {
+			long[] sumAndCount = new long[2];
+			run(column, value -> {
+				sumAndCount[0] += value;
+				sumAndCount[1]++;
+			});
+			return sumAndCount[1] == 0 ? 0 : (double) sumAndCount[0] / sumAndCount[1];
+		}
+
+		/**
+		 * Counts the games or moves that match by the value of a column
+		 * @param column
+		 * 		a column with values from 0 to 255, which is all but {@link Column#SEED}
+		 * 		and {@link Column#MOVE_COUNT}
+		 * @return
+		 * 		the count for each value, up to the highest value seen
+		 * @throws IllegalArgumentException
+		 * 		if the column holds larger values
+		 * @throws IOException
+		 * 		if a column could not be read
+		 */
+		public long[] countBy(Column column) throws IOException {
+			if (column == Column.SEED || column == Column.MOVE_COUNT) {
+				throw new IllegalArgumentException("Cannot count by " + column);
+			}
+			long[] counts = new long[256];
+			run(column, value -> counts[(int) value]++);
+			int length = counts.length;
+			while (length > 0 && counts[length - 1] == 0) length--;
+			return Arrays.copyOf(counts, length);
+		}
+
+		/**
+		 * Goes through the games or moves, handing the value of a column for each one
+		 * that matches to an action
+		 * @param target
+		 * 		the column to hand over, null if only the matches are counted
+		 * @param action
+		 * 		called for each match
+		 */
+		private void run(Column target, LongConsumer action) throws IOException {
+			Set<Column> used = EnumSet.noneOf(Column.class);
+			used.addAll(conditions);
+			if (target != null) used.add(target);
+
+			boolean perMove = false;
+			for (Column column : used) {
+				perMove |= column.isPerMove();
+			}
+			// a query with no columns still has to know how many games there are
+			if (used.isEmpty()) used.add(Column.FINISHED);
+			boolean perGame = false;
+			for (Column column : used) {
+				perGame |= !column.isPerMove();
+			}
+
+			Decoder[] decoders = new Decoder[Column.values().length];
+			List<Decoder> gameDecoders = new ArrayList<>();
+			List<Decoder> moveDecoders = new ArrayList<>();
+			for (Column column : used) {
+				Decoder decoder = new Decoder(column, map(column));
+				decoders[column.ordinal()] = decoder;
+				(column.isPerMove() ? moveDecoders : gameDecoders).add(decoder);
+			}
+			// the conditions as arrays, to check them without boxing
+			int conditionCount = conditions.size();
+			Column[] columns = conditions.toArray(new Column[conditionCount]);
+			long[] wanted = new long[conditionCount];
+			for (int i = 0; i < conditionCount; i++) {
+				wanted[i] = values.get(i);
+			}
+			long[] row = new long[decoders.length];
+			int targetIndex = target == null ? -1 : target.ordinal();
+
+			if (!perMove) {
+				long games = gameDecoders.get(0).count;
+				for (long game = 0; game < games; game++) {
+					for (Decoder decoder : gameDecoders) {
+						row[decoder.column.ordinal()] = decoder.next();
+					}
+					if (matches(columns, wanted, row, false)) {
+						action.accept(targetIndex < 0 ? 0 : row[targetIndex]);
+					}
+				}
+				return;
+			}
+			if (!perGame) {
+				long moves = moveDecoders.get(0).count;
+				for (long move = 0; move < moves; move++) {
+					for (Decoder decoder : moveDecoders) {
+						row[decoder.column.ordinal()] = decoder.next();
+					}
+					if (matches(columns, wanted, row, true)) {
+						action.accept(targetIndex < 0 ? 0 : row[targetIndex]);
+					}
+				}
+				return;
+			}
+
+			Decoder moveCount = decoders[Column.MOVE_COUNT.ordinal()];
+			if (moveCount == null) moveCount = new Decoder(Column.MOVE_COUNT, map(Column.MOVE_COUNT));
+			long games = gameDecoders.get(0).count;
+			for (long game = 0; game < games; game++) {
+				for (Decoder decoder : gameDecoders) {
+					row[decoder.column.ordinal()] = decoder.next();
+				}
+				long moves = moveCount == decoders[Column.MOVE_COUNT.ordinal()]
+						? row[Column.MOVE_COUNT.ordinal()] : moveCount.next();
+				if (!matches(columns, wanted, row, false)) {
+					for (Decoder decoder : moveDecoders) {
+						decoder.skip(moves);
+					}
+					continue;
+				}
+				for (long move = 0; move < moves; move++) {
+					for (Decoder decoder : moveDecoders) {
+						row[decoder.column.ordinal()] = decoder.next();
+					}
+					if (matches(columns, wanted, row, true)) {
+						action.accept(targetIndex < 0 ? 0 : row[targetIndex]);
+					}
+				}
+			}
+		}
+
+		/**
+		 * @param perMove
+		 * 		true to check the conditions on move columns, false for game columns
+		 * @return
+		 * 		true if the row meets those conditions
+		 */
+		private boolean matches(Column[] columns, long[] wanted, long[] row, boolean perMove) {
+			for (int i = 0; i < columns.length; i++) {
+				if (columns[i].isPerMove() == perMove && row[columns[i].ordinal()] != wanted[i]) return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Reads the values of one column in order
+	 */
+	private static final class Decoder {
+		private final Column column;
+		private final Column.Encoding encoding;
+		private final ByteBuffer buffer;
+		private final long count;
+		private long runValue;
+		private long runLeft;
+		private long previous;
+
+		Decoder(Column column, ByteBuffer buffer) {
+			this.column = column;
+			this.encoding = column.getEncoding();
+			this.buffer = buffer;
+			this.count = buffer.getLong(8);
+			buffer.position(ColumnarExporter.HEADER_SIZE);
+		}
+
+		long next() {
+			switch (encoding) {
+			case PLAIN_BYTE:
+				return buffer.get() & 0xFF;
+			case PLAIN_LONG:
+				return buffer.getLong();
+			case RUN_LENGTH:
+				if (runLeft == 0) readRun();
+				runLeft--;
+				return runValue;
+			default:
+				long zigzag = readVarint();
+				previous += zigzag >>> 1 ^ -(zigzag & 1);
+				return previous;
+			}
+		}
+
+		/**
+		 * Moves past values without working them out where the encoding allows it
+		 * @param n
+		 * 		number of values
+		 */
+		void skip(long n) {
+			switch (encoding) {
+			case PLAIN_BYTE:
+				buffer.position(buffer.position() + (int) n);
+				break;
+			case PLAIN_LONG:
+				buffer.position(buffer.position() + (int) (n * 8));
+				break;
+			case RUN_LENGTH:
+				while (n > 0) {
+					if (runLeft == 0) readRun();
+					long skipped = Math.min(n, runLeft);
+					runLeft -= skipped;
+					n -= skipped;
+				}
+				break;
+			default:
+				for (long i = 0; i < n; i++) {
+					next();
+				}
+			}
+		}
+
+		private void readRun() {
+			runValue = buffer.get() & 0xFF;
+			runLeft = readVarint();
+		}
+
+		private long readVarint() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = buffer.get();
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			return value;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Writes games as columns, one file per {@link Column}, so that a question about
+ *			a few columns only reads those files. {@link ColumnStore} answers the
+ *			questions. Each game is played again from its seed to find who asked each move
+ *			and what the ask got, which the game log does not keep.
+ *
+ *			A column file is a header of {@value #HEADER_SIZE} bytes (the magic number,
+ *			the encoding and the number of values) followed by the encoded values. A
+ *			column file holds at most 2GB.
+ */
+public class ColumnarExporter implements Closeable {
+	/** "GFCL" */
+	public static final int MAGIC = 0x4746434C;
+	/** Bytes before the values of a column file */
+	public static final int HEADER_SIZE = 16;
+	private static final Column[] COLUMNS = Column.values();
+
+	private final ColumnWriter[] writers = new ColumnWriter[COLUMNS.length];
+	private long games;
+
+	/**
+	 * Creates the column files in a directory, replacing any that are there
+	 * @param dir
+	 * 		the directory, made if it does not exist
+	 * @throws IOException
+	 * 		if a file could not be created
+	 */
+	public ColumnarExporter(Path dir) throws IOException {
+		Files.createDirectories(dir);
+		try {
+			for (Column column : COLUMNS) {
+				writers[column.ordinal()] = new ColumnWriter(dir.resolve(column.getFileName()), column.getEncoding());
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Exports a whole game log
+	 * @param log
+	 * 		the game log
+	 * @param dir
+	 * 		the directory to write the columns to
+	 * @return
+	 * 		number of games exported
+	 * @throws IOException
+	 * 		if the log could not be read or the columns written
+	 */
+	public static long export(Path log, Path dir) throws IOException {
+		try (GameLogReader reader = new GameLogReader(log); ColumnarExporter exporter = new ColumnarExporter(dir)) {
+			for (Iterator<GameLogReader.Game> games = reader.stream(false).iterator(); games.hasNext();) {
+				exporter.add(games.next());
+			}
+			return exporter.getGames();
+		}
+	}
+
+	/**
+	 * Adds a game from a game log
+	 * @param game
+	 * 		the game
+	 * @throws IOException
+	 * 		if a column could not be written
+	 */
+	public void add(GameLogReader.Game game) throws IOException {
+		int players = game.getNumOfPlayers();
+		int moves = game.getMoveCount();
+		write(Column.SEED, game.getSeed());
+		write(Column.GAME_TYPE, game.getGameType().ordinal());
+		write(Column.PLAYERS, players);
+		write(Column.FINISHED, game.isFinished() ? 1 : 0);
+		write(Column.WINNERS, game.getWinners());
+		for (int seat = 0; seat < 4; seat++) {
+			write(Column.books(seat), game.getBooks(seat));
+		}
+		write(Column.MOVE_COUNT, moves);
+
+		GoFishModel model = new GoFishModel(players, game.getGameType(), game.getSeed());
+		model.setHeadless(true);
+		for (int i = 0; i < moves; i++) {
+			write(Column.MOVE_SEAT, model.getCurrentTurn());
+			write(Column.MOVE_TARGET, game.getTargetSeat(i));
+			write(Column.MOVE_RANK, game.getRank(i));
+			write(Column.MOVE_RESULT, model.applyMove(game.getTargetSeat(i), game.getRank(i)));
+		}
+		games++;
+	}
+
+	/**
+	 * @return
+	 * 		number of games added
+	 */
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * Writes what is left of every column and closes the files
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException failure = null;
+		for (ColumnWriter writer : writers) {
+			if (writer == null) continue;
+			try {
+				writer.close();
+			} catch (IOException e) {
+				if (failure == null) failure = e;
+			}
+		}
+		if (failure != null) throw failure;
+	}
+
+	private void write(Column column, long value) throws IOException {
+		writers[column.ordinal()].add(value);
+	}
+
+	/**
+	 * Encodes the values of one column into its file
+	 */
+	private static final class ColumnWriter {
+		private final FileChannel channel;
+		private final Column.Encoding encoding;
+		private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		private long count;
+		// the run being counted, for run length columns
+		private long runValue;
+		private long runLength;
+		// the value before, for delta columns
+		private long previous;
+
+		ColumnWriter(Path file, Column.Encoding encoding) throws IOException {
+			this.encoding = encoding;
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			// the count is filled in on close
+			buffer.putInt(MAGIC).put((byte) encoding.ordinal()).put(new byte[3]).putLong(0);
+		}
+
+		void add(long value) throws IOException {
+			count++;
+			switch (encoding) {
+			case PLAIN_BYTE:
+				room(1);
+				buffer.put((byte) value);
+				break;
+			case PLAIN_LONG:
+				room(8);
+				buffer.putLong(value);
+				break;
+			case RUN_LENGTH:
+				if (runLength > 0 && value == runValue) {
+					runLength++;
+				} else {
+					endRun();
+					runValue = value;
+					runLength = 1;
+				}
+				break;
+			case DELTA:
+				long delta = value - previous;
+				previous = value;
+				putVarint(delta << 1 ^ delta >> 63);
+				break;
+			}
+		}
+
+		private void endRun() throws IOException {
+			if (runLength == 0) return;
+			room(1);
+			buffer.put((byte) runValue);
+			putVarint(runLength);
+			runLength = 0;
+		}
+
+		private void putVarint(long value) throws IOException {
+			room(10);
+			while ((value & ~0x7FL) != 0) {
+				buffer.put((byte) (value & 0x7F | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte) value);
+		}
+
+		/**
+		 * Makes room in the buffer, writing it out if it is too full
+		 */
+		private void room(int bytes) throws IOException {
+			if (buffer.remaining() >= bytes) return;
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		void close() throws IOException {
+			try {
+				endRun();
+				room(buffer.capacity());
+				ByteBuffer header = ByteBuffer.allocate(8).putLong(count).flip();
+				while (header.hasRemaining()) {
+					channel.write(header, 8 + 8 - header.remaining());
+				}
+			} finally {
+				channel.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package sim;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			The format of a game log, a file of finished games written by
+ *			{@link GameLogWriter} and read by {@link GameLogReader}. A game is kept as its
+ *			seed and its moves, which are enough to play it again exactly, and its
+ *			outcome, so most questions about a corpus can be answered without playing
+ *			anything.
+ *
+ *			The file is cut into blocks of {@value #BLOCK_SIZE} bytes and a game never
+ *			crosses from one block into the next. When a game does not fit in what is
+ *			left of a block, the rest of the block is zeros. This lets a reader start at
+ *			any block, so a corpus can be split between threads, and lets it map a file
+ *			bigger than 2GB in pieces. The first {@value #FILE_HEADER_SIZE} bytes of the
+ *			first block are the file header: the magic number, the format version and
+ *			the block size.
+ *
+ *			Each game is {@value #GAME_HEADER_SIZE} bytes followed by one byte per move:
+ *			<pre>
+ *			 0  number of players, 2 - 4. 0 means the rest of the block is empty
+ *			 1  ordinal of the rule set
+ *			 2  flags, {@link #FINISHED} if the game reached the end
+ *			 3  the seats with the most books, one bit per seat
+ *			 4  books made by each of the four seats, one byte each
+ *			 8  the seed the deck was shuffled with, 8 bytes
+ *			16  number of moves, 4 bytes
+ *			20  the moves, the seat asked in the high 4 bits and the rank in the low 4
+ *			</pre>
+ *			Numbers are big-endian.
+ */
+public final class GameLog {
+	/** "GFLG" */
+	public static final int MAGIC = 0x47464C47;
+	public static final short VERSION = 1;
+	/** Bytes in a block, no game crosses from one block into the next */
+	public static final int BLOCK_SIZE = 1 << 20;
+	/** Bytes at the start of the file before the first game */
+	public static final int FILE_HEADER_SIZE = 16;
+	/** Bytes of a game before its moves */
+	public static final int GAME_HEADER_SIZE = 20;
+	/** Most moves a game can have, so it fits in a block */
+	public static final int MAX_MOVES = BLOCK_SIZE - FILE_HEADER_SIZE - GAME_HEADER_SIZE;
+	/** Flag of a game that reached the end */
+	public static final int FINISHED = 1;
+
+	static final int PLAYERS = 0;
+	static final int GAME_TYPE = 1;
+	static final int FLAGS = 2;
+	static final int WINNERS = 3;
+	static final int BOOKS = 4;
+	static final int SEED = 8;
+	static final int MOVE_COUNT = 16;
+
+	private GameLog() {
+	}
+
+	/**
+	 * Packs a move into the byte kept in the log
+	 * @param targetSeat
+	 * 		index of the player asked
+	 * @param rank
+	 * 		the rank asked for, 1 - 13
+	 * @return
+	 * 		the move byte
+	 */
+	public static byte encodeMove(int targetSeat, int rank) {
+		return (byte) (targetSeat << 4 | rank);
+	}
+
+	/**
+	 * @param move
+	 * 		a move byte
+	 * @return
+	 * 		index of the player asked
+	 */
+	public static int targetSeat(byte move) {
+		return (move & 0xFF) >>> 4;
+	}
+
+	/**
+	 * @param move
+	 * 		a move byte
+	 * @return
+	 * 		the rank asked for
+	 */
+	public static int rank(byte move) {
+		return move & 0xF;
+	}
+}
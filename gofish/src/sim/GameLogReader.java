@@ -0,0 +1,296 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import goFish.GameType;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Reads a game log, see {@link GameLog} for the format. The file is mapped into
+ *			memory, so nothing is copied out of it: each game is seen through a
+ *			{@link Game}, a view that reads straight from the mapped file and is moved
+ *			from one game to the next instead of being made again. No cards or players
+ *			are made unless a game is played again with {@link Game#replay()}.
+ *
+ *			{@link #stream(boolean)} can run in parallel. The games are split between
+ *			threads by whole blocks, so every thread reads its own part of the file.
+ *			Files bigger than 2GB are mapped in pieces of {@value #BLOCKS_PER_SEGMENT}
+ *			blocks.
+ *
+ *			The mapping stays until it is garbage collected, even after {@link #close()}.
+ */
+public class GameLogReader implements Closeable {
+	/** Blocks mapped together, 1GB */
+	public static final int BLOCKS_PER_SEGMENT = 1024;
+	private static final GameType[] TYPES = GameType.values();
+	// estimate of games in a block, for splitting
+	private static final int GAMES_PER_BLOCK = GameLog.BLOCK_SIZE / 96;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final long size;
+	private final int blocks;
+
+	/**
+	 * Opens a game log and maps it
+	 * @param file
+	 * 		the log file
+	 * @throws IOException
+	 * 		if the file could not be read or is not a game log
+	 */
+	public GameLogReader(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			size = channel.size();
+			if (size < GameLog.FILE_HEADER_SIZE) throw new IOException("Not a game log");
+			blocks = (int) ((size + GameLog.BLOCK_SIZE - 1) / GameLog.BLOCK_SIZE);
+			segments = new MappedByteBuffer[(blocks + BLOCKS_PER_SEGMENT - 1) / BLOCKS_PER_SEGMENT];
+			long segmentSize = (long) BLOCKS_PER_SEGMENT * GameLog.BLOCK_SIZE;
+			for (int i = 0; i < segments.length; i++) {
+				long start = i * segmentSize;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, size - start));
+			}
+			ByteBuffer header = segments[0];
+			if (header.getInt(0) != GameLog.MAGIC) throw new IOException("Not a game log");
+			if (header.getShort(4) != GameLog.VERSION) throw new IOException("Unknown game log version " + header.getShort(4));
+			if (header.getInt(8) != GameLog.BLOCK_SIZE) throw new IOException("Unknown block size " + header.getInt(8));
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return
+	 * 		size of the file in bytes
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return
+	 * 		number of blocks in the file, the last one may be cut short
+	 */
+	public int getBlocks() {
+		return blocks;
+	}
+
+	/**
+	 * Goes through every game in the order they were written
+	 * @param action
+	 * 		called with each game. The view is moved on to the next game afterwards, so
+	 * 		it must not be kept
+	 */
+	public void forEach(Consumer<? super Game> action) {
+		new Blocks(0, blocks).forEachRemaining(action);
+	}
+
+	/**
+	 * Streams the games. The views are moved on from game to game, so map them to
+	 * what is needed instead of collecting them.
+	 * @param parallel
+	 * 		true to split the games between threads
+	 * @return
+	 * 		the games
+	 */
+	public Stream<Game> stream(boolean parallel) {
+		return StreamSupport.stream(new Blocks(0, blocks), parallel);
+	}
+
+	/**
+	 * Closes the file. The games can still be read until the mapping is collected, but
+	 * should not be.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * A view of one game in the log. It reads straight from the mapped file.
+	 */
+	public static final class Game {
+		private ByteBuffer buffer;
+		private int offset;
+
+		private Game() {
+		}
+
+		private void moveTo(ByteBuffer buffer, int offset) {
+			this.buffer = buffer;
+			this.offset = offset;
+		}
+
+		/**
+		 * @return
+		 * 		number of players, 2 - 4
+		 */
+		public int getNumOfPlayers() {
+			return buffer.get(offset + GameLog.PLAYERS);
+		}
+
+		/**
+		 * @return
+		 * 		the rule set
+		 */
+		public GameType getGameType() {
+			return TYPES[buffer.get(offset + GameLog.GAME_TYPE)];
+		}
+
+		/**
+		 * @return
+		 * 		true if the game reached the end
+		 */
+		public boolean isFinished() {
+			return (buffer.get(offset + GameLog.FLAGS) & GameLog.FINISHED) != 0;
+		}
+
+		/**
+		 * @return
+		 * 		the seats with the most books, one bit per seat, see
+		 * 		{@link GoFishModel#getWinners()}
+		 */
+		public int getWinners() {
+			return buffer.get(offset + GameLog.WINNERS) & 0xF;
+		}
+
+		/**
+		 * @param seat
+		 * 		index of the player
+		 * @return
+		 * 		books the seat made
+		 */
+		public int getBooks(int seat) {
+			return buffer.get(offset + GameLog.BOOKS + seat);
+		}
+
+		/**
+		 * @return
+		 * 		the seed the deck was shuffled with
+		 */
+		public long getSeed() {
+			return buffer.getLong(offset + GameLog.SEED);
+		}
+
+		/**
+		 * @return
+		 * 		number of moves in the game
+		 */
+		public int getMoveCount() {
+			return buffer.getInt(offset + GameLog.MOVE_COUNT);
+		}
+
+		/**
+		 * @param move
+		 * 		index of the move
+		 * @return
+		 * 		index of the player asked in that move
+		 */
+		public int getTargetSeat(int move) {
+			return GameLog.targetSeat(buffer.get(offset + GameLog.GAME_HEADER_SIZE + move));
+		}
+
+		/**
+		 * @param move
+		 * 		index of the move
+		 * @return
+		 * 		the rank asked for in that move
+		 */
+		public int getRank(int move) {
+			return GameLog.rank(buffer.get(offset + GameLog.GAME_HEADER_SIZE + move));
+		}
+
+		/**
+		 * Deals the game again from its seed and plays its moves
+		 * @return
+		 * 		a headless model of the game as it ended
+		 */
+		public GoFishModel replay() {
+			GoFishModel model = new GoFishModel(getNumOfPlayers(), getGameType(), getSeed());
+			model.setHeadless(true);
+			int moves = getMoveCount();
+			for (int i = 0; i < moves; i++) {
+				model.applyMove(getTargetSeat(i), getRank(i));
+			}
+			return model;
+		}
+	}
+
+	/**
+	 * Goes through the games in the blocks [block, end). Splits by halving the whole
+	 * blocks after the current one.
+	 */
+	private final class Blocks implements Spliterator<Game> {
+		private final Game game = new Game();
+		private int block;
+		private int end;
+		// where the next game starts in the current block
+		private int inBlock;
+
+		Blocks(int block, int end) {
+			this.block = block;
+			this.end = end;
+			this.inBlock = block == 0 ? GameLog.FILE_HEADER_SIZE : 0;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Game> action) {
+			while (block < end) {
+				ByteBuffer buffer = segments[block / BLOCKS_PER_SEGMENT];
+				int blockOffset = block % BLOCKS_PER_SEGMENT * GameLog.BLOCK_SIZE;
+				int blockLength = (int) Math.min(GameLog.BLOCK_SIZE, size - (long) block * GameLog.BLOCK_SIZE);
+				int position = blockOffset + inBlock;
+				if (inBlock + GameLog.GAME_HEADER_SIZE <= blockLength && buffer.get(position) != 0) {
+					int moveCount = buffer.getInt(position + GameLog.MOVE_COUNT);
+					// a game cut off by a crash, or a move count no writer could have written,
+					// ends the block
+					if (moveCount >= 0 && moveCount <= GameLog.MAX_MOVES
+							&& inBlock + GameLog.GAME_HEADER_SIZE + moveCount <= blockLength) {
+						inBlock += GameLog.GAME_HEADER_SIZE + moveCount;
+						game.moveTo(buffer, position);
+						action.accept(game);
+						return true;
+					}
+				}
+				block++;
+				inBlock = 0;
+			}
+			return false;
+		}
+
+		@Override
+		public Spliterator<Game> trySplit() {
+			// the games are in order, so the part handed off is the one that comes first
+			int next = block + 1;
+			if (next >= end) return null;
+			int mid = (next + end) >>> 1;
+			Blocks prefix = new Blocks(block, mid);
+			prefix.inBlock = inBlock;
+			block = mid;
+			inBlock = 0;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return (long) (end - block) * GAMES_PER_BLOCK;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL | IMMUTABLE;
+		}
+	}
+}
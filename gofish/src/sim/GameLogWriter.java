@@ -0,0 +1,121 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import goFish.Player;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Writes finished games to a game log, see {@link GameLog} for the format. The
+ *			current block is built in memory and written when it is full, so the disk sees
+ *			one write per block. Several threads can write to the same log; each game is
+ *			written whole.
+ */
+public class GameLogWriter implements Closeable {
+	private final FileChannel channel;
+	private final ByteBuffer block = ByteBuffer.allocate(GameLog.BLOCK_SIZE);
+	// where the block being built starts in the file
+	private long blockStart;
+	private long games;
+
+	/**
+	 * Creates a new game log, replacing any file that is there
+	 * @param file
+	 * 		the log file
+	 * @throws IOException
+	 * 		if the file could not be created
+	 */
+	public GameLogWriter(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		block.putInt(GameLog.MAGIC).putShort(GameLog.VERSION).putShort((short) 0)
+				.putInt(GameLog.BLOCK_SIZE).putInt(0);
+	}
+
+	/**
+	 * Adds a game to the log
+	 * @param game
+	 * 		the game, played as far as it goes. It has to have been made with a seed
+	 * @param moves
+	 * 		the moves of the game from the deal, made with {@link GameLog#encodeMove(int, int)}
+	 * @param moveCount
+	 * 		number of moves in the array
+	 * @throws IOException
+	 * 		if a full block could not be written
+	 * @throws IllegalArgumentException
+	 * 		if the game has no seed or too many moves
+	 */
+	public synchronized void write(GoFishModel game, byte[] moves, int moveCount) throws IOException {
+		if (!game.hasSeed()) throw new IllegalArgumentException("The game was not dealt from a seed");
+		if (moveCount > GameLog.MAX_MOVES) throw new IllegalArgumentException("Too many moves: " + moveCount);
+		int size = GameLog.GAME_HEADER_SIZE + moveCount;
+		if (block.remaining() < size) {
+			// the rest of the block stays zeros, which marks it empty
+			block.position(block.limit());
+			writeBlock();
+		}
+		Player[] players = game.getPlayerDecks();
+		block.put((byte) players.length);
+		block.put((byte) game.getGameType().ordinal());
+		block.put((byte) (game.checkGameOver() ? GameLog.FINISHED : 0));
+		block.put((byte) game.getWinners());
+		for (int seat = 0; seat < 4; seat++) {
+			block.put((byte) (seat < players.length ? players[seat].getBookedCards().size() : 0));
+		}
+		block.putLong(game.getSeed());
+		block.putInt(moveCount);
+		block.put(moves, 0, moveCount);
+		games++;
+	}
+
+	/**
+	 * @return
+	 * 		number of games written
+	 */
+	public synchronized long getGames() {
+		return games;
+	}
+
+	/**
+	 * Writes the part of the current block that has been built, so a reader sees every
+	 * game written so far
+	 * @throws IOException
+	 * 		if it could not be written
+	 */
+	public synchronized void flush() throws IOException {
+		ByteBuffer built = block.duplicate().flip();
+		long position = blockStart;
+		while (built.hasRemaining()) {
+			position += channel.write(built, position);
+		}
+	}
+
+	/**
+	 * Writes what is left and closes the file
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		flush();
+		channel.force(true);
+		channel.close();
+	}
+
+	private void writeBlock() throws IOException {
+		block.flip();
+		long position = blockStart;
+		while (block.hasRemaining()) {
+			position += channel.write(block, position);
+		}
+		blockStart += GameLog.BLOCK_SIZE;
+		// the whole block is cleared, so the empty end of the next one is zeros
+		block.clear();
+		Arrays.fill(block.array(), (byte) 0);
+	}
+}
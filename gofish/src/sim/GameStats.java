@@ -0,0 +1,305 @@
+package sim;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import goFish.GameType;
+import goFish.Player;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Statistics over finished games, for every rule set and number of players:
+ *			wins by seat, ties, how long the games were and how many books the players
+ *			made. Any number of threads can record games at once. Every counter is a
+ *			{@link LongAdder}, which gives threads that add at the same time their own
+ *			cells, so recording does not lock and threads do not wait on each other.
+ *
+ *			{@link #snapshot()} can be called while games are still being recorded. It
+ *			reads the counters one after another, so a game recorded in the meantime may
+ *			show up in some totals and not yet in others.
+ */
+public class GameStats {
+	/** Width of the buckets of the game length histogram, in moves */
+	public static final int MOVE_BUCKET_WIDTH = 10;
+	/** Number of game length buckets, the last one holds every longer game */
+	public static final int MOVE_BUCKETS = 100;
+	private static final GameType[] TYPES = GameType.values();
+
+	// indexed by rule set, then number of players - 2
+	private final Recorder[][] recorders = new Recorder[TYPES.length][3];
+
+	public GameStats() {
+		for (int type = 0; type < TYPES.length; type++) {
+			for (int players = 2; players <= 4; players++) {
+				recorders[type][players - 2] = new Recorder(players);
+			}
+		}
+	}
+
+	/**
+	 * Records a game that has been played as far as it goes. A game that is not over
+	 * is counted as stalled and adds nothing else.
+	 * @param model
+	 * 		the game
+	 */
+	public void record(GoFishModel model) {
+		Player[] players = model.getPlayerDecks();
+		Recorder recorder = recorders[model.getGameType().ordinal()][players.length - 2];
+		recorder.games.increment();
+		if (!model.checkGameOver()) {
+			recorder.stalled.increment();
+			return;
+		}
+		recorder.moves.add(model.getMoveCount());
+		int winners = model.getWinners();
+		boolean tied = Integer.bitCount(winners) > 1;
+		if (tied) recorder.ties.increment();
+		for (int seat = 0; seat < players.length; seat++) {
+			if ((winners & 1 << seat) == 0) continue;
+			if (tied) recorder.sharedWins[seat].increment();
+			else recorder.wins[seat].increment();
+		}
+		for (int seat = 0; seat < players.length; seat++) {
+			recorder.books[seat].add(players[seat].getBookedCards().size());
+		}
+	}
+
+	/**
+	 * Reads the totals so far
+	 * @return
+	 * 		the totals, which do not change as more games are recorded
+	 */
+	public Snapshot snapshot() {
+		Totals[][] totals = new Totals[TYPES.length][3];
+		for (int type = 0; type < TYPES.length; type++) {
+			for (int players = 0; players < 3; players++) {
+				totals[type][players] = recorders[type][players].snapshot();
+			}
+		}
+		return new Snapshot(totals);
+	}
+
+	/**
+	 * The counters for one rule set and number of players
+	 */
+	private static final class Recorder {
+		private final LongAdder games = new LongAdder();
+		private final LongAdder stalled = new LongAdder();
+		private final LongAdder ties = new LongAdder();
+		private final LongAdder[] wins;
+		private final LongAdder[] sharedWins;
+		private final Histogram.Recorder moves = new Histogram.Recorder(MOVE_BUCKET_WIDTH, MOVE_BUCKETS);
+		private final Histogram.Recorder[] books;
+
+		Recorder(int players) {
+			wins = new LongAdder[players];
+			sharedWins = new LongAdder[players];
+			books = new Histogram.Recorder[players];
+			for (int seat = 0; seat < players; seat++) {
+				wins[seat] = new LongAdder();
+				sharedWins[seat] = new LongAdder();
+				books[seat] = new Histogram.Recorder(1, GoFishModel.MAX_BOOKS + 1);
+			}
+		}
+
+		Totals snapshot() {
+			long[] won = new long[wins.length];
+			long[] shared = new long[wins.length];
+			Histogram[] booked = new Histogram[wins.length];
+			for (int seat = 0; seat < won.length; seat++) {
+				won[seat] = wins[seat].sum();
+				shared[seat] = sharedWins[seat].sum();
+				booked[seat] = books[seat].snapshot();
+			}
+			return new Totals(games.sum(), stalled.sum(), ties.sum(), won, shared, moves.snapshot(), booked);
+		}
+	}
+
+	/**
+	 * The totals for every rule set and number of players at one moment
+	 */
+	public static final class Snapshot {
+		private final Totals[][] totals;
+
+		Snapshot(Totals[][] totals) {
+			this.totals = totals;
+		}
+
+		/**
+		 * @param type
+		 * 		the rule set
+		 * @param players
+		 * 		number of players, 2 - 4
+		 * @return
+		 * 		the totals for games with that rule set and number of players
+		 */
+		public Totals get(GameType type, int players) {
+			if (players < 2 || players > 4) {
+				throw new IllegalArgumentException("Number of players must be between 2 and 4");
+			}
+			return totals[type.ordinal()][players - 2];
+		}
+
+		/**
+		 * Adds two snapshots, for example from runs on different machines
+		 * @param other
+		 * 		the snapshot to add
+		 * @return
+		 * 		a new snapshot with the totals of both
+		 */
+		public Snapshot merge(Snapshot other) {
+			Totals[][] merged = new Totals[TYPES.length][3];
+			for (int type = 0; type < TYPES.length; type++) {
+				for (int players = 0; players < 3; players++) {
+					merged[type][players] = totals[type][players].merge(other.totals[type][players]);
+				}
+			}
+			return new Snapshot(merged);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (GameType type : TYPES) {
+				for (int players = 2; players <= 4; players++) {
+					Totals t = get(type, players);
+					if (t.getGames() == 0) continue;
+					sb.append(type).append(' ').append(players).append(" players: ").append(t)
+							.append(System.lineSeparator());
+				}
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * The totals for one rule set and number of players
+	 */
+	public static final class Totals {
+		private final long games;
+		private final long stalled;
+		private final long ties;
+		private final long[] wins;
+		private final long[] sharedWins;
+		private final Histogram moves;
+		private final Histogram[] books;
+
+		Totals(long games, long stalled, long ties, long[] wins, long[] sharedWins, Histogram moves,
+				Histogram[] books) {
+			this.games = games;
+			this.stalled = stalled;
+			this.ties = ties;
+			this.wins = wins;
+			this.sharedWins = sharedWins;
+			this.moves = moves;
+			this.books = books;
+		}
+
+		Totals merge(Totals other) {
+			long[] won = wins.clone();
+			long[] shared = sharedWins.clone();
+			Histogram[] booked = new Histogram[books.length];
+			for (int seat = 0; seat < won.length; seat++) {
+				won[seat] += other.wins[seat];
+				shared[seat] += other.sharedWins[seat];
+				booked[seat] = books[seat].merge(other.books[seat]);
+			}
+			return new Totals(games + other.games, stalled + other.stalled, ties + other.ties, won, shared,
+					moves.merge(other.moves), booked);
+		}
+
+		/**
+		 * @return
+		 * 		number of games recorded, finished or not
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		/**
+		 * @return
+		 * 		number of games that did not reach the end
+		 */
+		public long getStalled() {
+			return stalled;
+		}
+
+		/**
+		 * @return
+		 * 		number of finished games where two or more players had the most books
+		 */
+		public long getTies() {
+			return ties;
+		}
+
+		/**
+		 * @return
+		 * 		share of the finished games that were tied
+		 */
+		public double getTieRate() {
+			long finished = games - stalled;
+			return finished == 0 ? 0 : (double) ties / finished;
+		}
+
+		/**
+		 * @param seat
+		 * 		index of the player
+		 * @return
+		 * 		number of finished games this seat won outright
+		 */
+		public long getWins(int seat) {
+			return wins[seat];
+		}
+
+		/**
+		 * @param seat
+		 * 		index of the player
+		 * @return
+		 * 		number of finished games this seat tied for the most books
+		 */
+		public long getSharedWins(int seat) {
+			return sharedWins[seat];
+		}
+
+		/**
+		 * @param seat
+		 * 		index of the player
+		 * @return
+		 * 		share of the finished games this seat won outright
+		 */
+		public double getWinRate(int seat) {
+			long finished = games - stalled;
+			return finished == 0 ? 0 : (double) wins[seat] / finished;
+		}
+
+		/**
+		 * @return
+		 * 		lengths of the finished games in moves
+		 */
+		public Histogram getMoves() {
+			return moves;
+		}
+
+		/**
+		 * @param seat
+		 * 		index of the player
+		 * @return
+		 * 		books the seat made in each finished game
+		 */
+		public Histogram getBooks(int seat) {
+			return books[seat];
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("games=%d stalled=%d ties=%.1f%% moves[%s]", games, stalled,
+					getTieRate() * 100, moves));
+			for (int seat = 0; seat < wins.length; seat++) {
+				sb.append(String.format(" seat%d[wins=%.1f%% tied=%d books=%.2f]", seat, getWinRate(seat) * 100,
+						sharedWins[seat], books[seat].getMean()));
+			}
+			return sb.toString();
+		}
+	}
+}
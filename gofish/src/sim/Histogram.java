@@ -0,0 +1,179 @@
+package sim;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Counts of values in buckets of the same width, starting at 0. The last bucket
+ *			also holds everything above it. A histogram never changes, and two histograms
+ *			with the same buckets add up with {@link #merge(Histogram)}, so results from
+ *			different runs or machines can be combined.
+ *
+ *			Values are collected by a {@link Recorder}, which many threads can add to at
+ *			once without waiting on each other.
+ */
+public final class Histogram {
+	private final int bucketWidth;
+	private final long[] counts;
+	private final long count;
+	private final long sum;
+	private final long max;
+
+	Histogram(int bucketWidth, long[] counts, long sum, long max) {
+		this.bucketWidth = bucketWidth;
+		this.counts = counts;
+		this.sum = sum;
+		this.max = max;
+		long total = 0;
+		for (long c : counts) {
+			total += c;
+		}
+		this.count = total;
+	}
+
+	/**
+	 * Adds two histograms with the same buckets
+	 * @param other
+	 * 		the histogram to add
+	 * @return
+	 * 		a new histogram with the counts of both
+	 * @throws IllegalArgumentException
+	 * 		if the buckets are not the same
+	 */
+	public Histogram merge(Histogram other) {
+		if (other.bucketWidth != bucketWidth || other.counts.length != counts.length) {
+			throw new IllegalArgumentException("Histograms have different buckets");
+		}
+		long[] merged = counts.clone();
+		for (int i = 0; i < merged.length; i++) {
+			merged[i] += other.counts[i];
+		}
+		return new Histogram(bucketWidth, merged, sum + other.sum, Math.max(max, other.max));
+	}
+
+	/**
+	 * @return
+	 * 		number of values counted
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return
+	 * 		the average value, 0 if there are none
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * @return
+	 * 		the largest value, 0 if there are none
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return
+	 * 		the width of every bucket
+	 */
+	public int getBucketWidth() {
+		return bucketWidth;
+	}
+
+	/**
+	 * @return
+	 * 		number of buckets
+	 */
+	public int getBuckets() {
+		return counts.length;
+	}
+
+	/**
+	 * @param bucket
+	 * 		index of the bucket, which holds the values from bucket * width up to the
+	 * 		next bucket
+	 * @return
+	 * 		number of values in the bucket
+	 */
+	public long getBucketCount(int bucket) {
+		return counts[bucket];
+	}
+
+	/**
+	 * Finds the value that a given share of the values are at or below, to the
+	 * width of a bucket
+	 * @param percentile
+	 * 		0 - 100
+	 * @return
+	 * 		the top of the bucket the value is in, and never more than the largest value.
+	 * 		The last bucket has no top, so a value in it is given as the largest value
+	 */
+	public long getPercentile(double percentile) {
+		long rank = (long) Math.ceil(count * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < counts.length - 1; i++) {
+			seen += counts[i];
+			if (seen >= rank && seen > 0) return Math.min((long) (i + 1) * bucketWidth - 1, max);
+		}
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("n=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+				count, getMean(), getPercentile(50), getPercentile(90), getPercentile(99), max);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Histogram)) return false;
+		Histogram other = (Histogram) o;
+		return bucketWidth == other.bucketWidth && sum == other.sum && max == other.max
+				&& Arrays.equals(counts, other.counts);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(counts) * 31 + Long.hashCode(sum);
+	}
+
+	/**
+	 * Collects values for a histogram. Every bucket is its own {@link LongAdder}, so
+	 * threads adding at once spread over separate cells instead of fighting over one
+	 * counter. A snapshot can be taken at any time. Values added while it is taken may
+	 * or may not be in it.
+	 */
+	static final class Recorder {
+		private final int bucketWidth;
+		private final LongAdder[] buckets;
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		Recorder(int bucketWidth, int buckets) {
+			this.bucketWidth = bucketWidth;
+			this.buckets = new LongAdder[buckets];
+			for (int i = 0; i < buckets; i++) {
+				this.buckets[i] = new LongAdder();
+			}
+		}
+
+		void add(long value) {
+			buckets[(int) Math.min(value / bucketWidth, buckets.length - 1)].increment();
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		Histogram snapshot() {
+			long[] counts = new long[buckets.length];
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = buckets[i].sum();
+			}
+			return new Histogram(bucketWidth, counts, sum.sum(), max.get());
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package sim;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import goFish.GameType;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			The totals of a simulation run. It holds one {@link Outcome} per rule set and
+ *			the wall clock time the run took. Results from different threads are combined
+ *			with {@link #merge(SimulationResult)}.
+ */
+public class SimulationResult {
+	private final Map<GameType, Outcome> outcomes = new EnumMap<>(GameType.class);
+	private long elapsedNanos;
+
+	/**
+	 * The totals for a single rule set
+	 */
+	public static class Outcome {
+		private long games;
+		private long stalled;
+		private long moves;
+		private long ties;
+		private final long[] winsBySeat = new long[4];
+
+		/**
+		 * Records a finished game
+		 * @param moveCount
+		 * 		number of moves the game took
+		 * @param winners
+		 * 		the players with the most books, one bit per seat as given by
+		 * 		GoFishModel.getWinners(). More than one is a tie
+		 */
+		void addGame(int moveCount, int winners) {
+			games++;
+			moves += moveCount;
+			if (Integer.bitCount(winners) != 1) ties++;
+			else winsBySeat[Integer.numberOfTrailingZeros(winners)]++;
+		}
+
+		/**
+		 * Records a game that hit the move limit or could not continue
+		 */
+		void addStalled() {
+			games++;
+			stalled++;
+		}
+
+		void merge(Outcome other) {
+			games += other.games;
+			stalled += other.stalled;
+			moves += other.moves;
+			ties += other.ties;
+			for (int i = 0; i < winsBySeat.length; i++) {
+				winsBySeat[i] += other.winsBySeat[i];
+			}
+		}
+
+		/**
+		 * @return
+		 * 		number of games played, finished or not
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		/**
+		 * @return
+		 * 		number of games that did not reach the end
+		 */
+		public long getStalled() {
+			return stalled;
+		}
+
+		/**
+		 * @return
+		 * 		total number of moves over the finished games
+		 */
+		public long getMoves() {
+			return moves;
+		}
+
+		/**
+		 * @return
+		 * 		number of finished games where two or more players had the most books
+		 */
+		public long getTies() {
+			return ties;
+		}
+
+		/**
+		 * @param seat
+		 * 		index of the player
+		 * @return
+		 * 		number of finished games this seat won outright
+		 */
+		public long getWins(int seat) {
+			return winsBySeat[seat];
+		}
+
+		@Override
+		public String toString() {
+			long finished = games - stalled;
+			double avgMoves = finished == 0 ? 0 : (double) moves / finished;
+			return String.format("games=%d stalled=%d avgMoves=%.1f ties=%d winsBySeat=%s",
+					games, stalled, avgMoves, ties, Arrays.toString(winsBySeat));
+		}
+	}
+
+	/**
+	 * Gets the outcome for a rule set, creating an empty one if needed
+	 * @param type
+	 * 		the rule set
+	 * @return
+	 * 		the outcome for that rule set
+	 */
+	public Outcome getOutcome(GameType type) {
+		return outcomes.computeIfAbsent(type, t -> new Outcome());
+	}
+
+	/**
+	 * Adds all of the totals of another result into this one
+	 * @param other
+	 * 		the result to add
+	 * @return
+	 * 		this result
+	 */
+	public SimulationResult merge(SimulationResult other) {
+		for (Map.Entry<GameType, Outcome> entry : other.outcomes.entrySet()) {
+			getOutcome(entry.getKey()).merge(entry.getValue());
+		}
+		return this;
+	}
+
+	/**
+	 * @return
+	 * 		total number of games over every rule set
+	 */
+	public long getGames() {
+		long total = 0;
+		for (Outcome outcome : outcomes.values()) {
+			total += outcome.games;
+		}
+		return total;
+	}
+
+	void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @return
+	 * 		how long the run took in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return
+	 * 		number of games played per second of wall clock time
+	 */
+	public double getGamesPerSecond() {
+		return elapsedNanos == 0 ? 0 : getGames() * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d games in %.2f s (%.0f games/sec)%n",
+				getGames(), elapsedNanos / 1e9, getGamesPerSecond()));
+		for (Map.Entry<GameType, Outcome> entry : outcomes.entrySet()) {
+			sb.append(entry.getKey()).append(": ").append(entry.getValue()).append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+}
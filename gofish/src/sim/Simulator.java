@@ -0,0 +1,246 @@
+package sim;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import bot.GreedyBot;
+import bot.MemoryBot;
+import bot.RandomBot;
+import bot.Strategy;
+import goFish.GameType;
+import metrics.Metrics;
+import model.GoFishModel;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *			Plays complete games of Go Fish without a view. The games are split into
+ *			chunks and played on a fork/join pool so every core is used. The models are
+ *			headless, so nothing is saved and no observers are notified while playing.
+ */
+public class Simulator {
+	/** Games longer than this are counted as stalled */
+	public static final int MAX_MOVES = 10_000;
+	private static final int GAMES_PER_TASK = 256;
+
+	private final int numOfPlayers;
+	private final Supplier<? extends Strategy> bots;
+	private final ForkJoinPool pool;
+	private final long seed;
+	private GameStats stats;
+	private GameLogWriter log;
+
+	/**
+	 * Creates a simulator that runs on the common fork/join pool
+	 * @param numOfPlayers
+	 * 		number of players in every game, 2 - 4
+	 * @param bots
+	 * 		makes the bot for each seat. Every thread gets its own bots
+	 */
+	public Simulator(int numOfPlayers, Supplier<? extends Strategy> bots) {
+		this(numOfPlayers, bots, ForkJoinPool.commonPool(), System.nanoTime());
+	}
+
+	/**
+	 * Creates a simulator
+	 * @param numOfPlayers
+	 * 		number of players in every game, 2 - 4
+	 * @param bots
+	 * 		makes the bot for each seat. Every thread gets its own bots
+	 * @param pool
+	 * 		the pool to run the games on
+	 * @param seed
+	 * 		seed for the random sources that shuffle the decks and are handed to the bots
+	 */
+	public Simulator(int numOfPlayers, Supplier<? extends Strategy> bots, ForkJoinPool pool, long seed) {
+		if (numOfPlayers < 2 || numOfPlayers > 4) {
+			throw new IllegalArgumentException("Number of players must be between 2 and 4");
+		}
+		this.numOfPlayers = numOfPlayers;
+		this.bots = bots;
+		this.pool = pool;
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets where finished games are recorded in detail, as well as in the result of the
+	 * run. The same statistics can be shared by several simulators and read while they
+	 * are running.
+	 * @param stats
+	 * 		the statistics to record into, or null for none
+	 */
+	public void setStats(GameStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Sets a game log that every game played is written to, so the run can be read
+	 * back and any game played again
+	 * @param log
+	 * 		the log to write to, or null for none
+	 */
+	public void setLog(GameLogWriter log) {
+		this.log = log;
+	}
+
+	/**
+	 * Plays the given number of games for each rule set
+	 * @param gamesPerType
+	 * 		number of games to play for each rule set
+	 * @param types
+	 * 		the rule sets to play
+	 * @return
+	 * 		the totals of the run
+	 */
+	public SimulationResult run(long gamesPerType, GameType... types) {
+		long start = System.nanoTime();
+		SimulationResult result = pool.invoke(
+				new SimulationTask(types, 0, gamesPerType * types.length, new SplittableRandom(seed)));
+		result.setElapsedNanos(System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * Plays one game to the end with the given bots
+	 * @param model
+	 * 		a freshly dealt model
+	 * @param seats
+	 * 		the bot for each seat
+	 * @param random
+	 * 		random source handed to the bots
+	 * @return
+	 * 		the number of moves made, or -1 if the game stalled
+	 */
+	public static int playGame(GoFishModel model, Strategy[] seats, SplittableRandom random) {
+		return playGame(model, seats, random, null);
+	}
+
+	/**
+	 * Plays one game to the end with the given bots, keeping its moves for a game log
+	 * @param model
+	 * 		a freshly dealt model
+	 * @param seats
+	 * 		the bot for each seat
+	 * @param random
+	 * 		random source handed to the bots
+	 * @param moves
+	 * 		gets every move made, encoded with {@link GameLog#encodeMove(int, int)}, or
+	 * 		null to keep none. Must have room for {@link #MAX_MOVES} moves
+	 * @return
+	 * 		the number of moves made, or -1 if the game stalled. The moves of a stalled
+	 * 		game are counted by the model's getMoveCount()
+	 */
+	public static int playGame(GoFishModel model, Strategy[] seats, SplittableRandom random, byte[] moves) {
+		model.setHeadless(true);
+		for (int i = 0; i < seats.length; i++) {
+			model.setBot(i, seats[i]);
+		}
+		int count = 0;
+		// the bots stop early when one of them has no cards and nothing left to draw
+		while (count < MAX_MOVES && !model.checkGameOver()) {
+			int turn = model.getCurrentTurn();
+			if (model.getPlayerDecks()[turn].getNumOfCardsInDeck() == 0) break;
+			int move = seats[turn].chooseMove(model.getView(), random);
+			if (moves != null) moves[count] = GameLog.encodeMove(Strategy.targetSeat(move), Strategy.rank(move));
+			model.applyMove(Strategy.targetSeat(move), Strategy.rank(move));
+			count++;
+		}
+		return model.checkGameOver() ? count : -1;
+	}
+
+	/**
+	 * Plays the games numbered [from, to). Game i uses the rule set types[i % types.length]
+	 */
+	private class SimulationTask extends RecursiveTask<SimulationResult> {
+		private static final long serialVersionUID = 1L;
+		private final GameType[] types;
+		private final long from;
+		private final long to;
+		private final SplittableRandom random;
+
+		SimulationTask(GameType[] types, long from, long to, SplittableRandom random) {
+			this.types = types;
+			this.from = from;
+			this.to = to;
+			this.random = random;
+		}
+
+		@Override
+		protected SimulationResult compute() {
+			if (to - from <= GAMES_PER_TASK) {
+				return playRange();
+			}
+			long mid = (from + to) >>> 1;
+			SimulationTask left = new SimulationTask(types, from, mid, random.split());
+			SimulationTask right = new SimulationTask(types, mid, to, random);
+			left.fork();
+			SimulationResult result = right.compute();
+			return result.merge(left.join());
+		}
+
+		private SimulationResult playRange() {
+			SimulationResult result = new SimulationResult();
+			Strategy[] seats = new Strategy[numOfPlayers];
+			for (int i = 0; i < numOfPlayers; i++) {
+				seats[i] = bots.get();
+			}
+			byte[] moveLog = log == null ? null : new byte[MAX_MOVES];
+			for (long i = from; i < to; i++) {
+				GameType type = types[(int) (i % types.length)];
+				// every game gets its own seed from this task's random source, so runs with the 
+				// same seed match and any single game can be dealt again from its seed
+				GoFishModel model = new GoFishModel(numOfPlayers, type, random.nextLong());
+				int moves = playGame(model, seats, random, moveLog);
+				if (log != null) {
+					try {
+						log.write(model, moveLog, model.getMoveCount());
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				if (moves < 0) result.getOutcome(type).addStalled();
+				else result.getOutcome(type).addGame(moves, model.getWinners());
+				if (stats != null) stats.record(model);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Runs a simulation from the command line and prints the report
+	 * @param args
+	 * 		number of games per rule set, number of players, the bot to play with
+	 * 		(random, greedy or memory) and a game log file to write, all optional
+	 * @throws IOException
+	 * 		if the game log could not be written
+	 */
+	public static void main(String[] args) throws IOException {
+		Metrics.install();
+		long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+		int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		String bot = args.length > 2 ? args[2] : "random";
+		Supplier<? extends Strategy> bots;
+		switch (bot) {
+		case "greedy":
+			bots = GreedyBot::new;
+			break;
+		case "memory":
+			bots = MemoryBot::new;
+			break;
+		default:
+			bots = RandomBot::new;
+		}
+		Simulator simulator = new Simulator(players, bots);
+		GameStats stats = new GameStats();
+		simulator.setStats(stats);
+		GameLogWriter log = args.length > 3 ? new GameLogWriter(Paths.get(args[3])) : null;
+		simulator.setLog(log);
+		System.out.println(simulator.run(games, GameType.values()));
+		System.out.print(stats.snapshot());
+		if (log != null) log.close();
+	}
+}
@@ -2,27 +2,90 @@ package tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EmptyStackException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import bot.EndgameSolver;
+import bot.GameView;
+import bot.GreedyBot;
+import bot.IsmctsBot;
+import bot.MemoryBot;
+import bot.RandomBot;
+import bot.Strategy;
+import bot.TranspositionTable;
 import controller.GoFishController;
 import goFish.Card;
 import goFish.Deck;
 import goFish.GameType;
 import goFish.Player;
 import goFish.Suit;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.GameCodec;
+import model.GameSnapshot;
 import model.GoFishModel;
+import model.ModelChange;
+import persistence.SaveFile;
+import persistence.WriteBehindWriter;
+import server.GameServer;
+import server.TableActor;
+import server.Table;
+import server.TableManager;
+import sim.Column;
+import sim.ColumnStore;
+import sim.ColumnarExporter;
+import sim.GameLog;
+import sim.GameLogReader;
+import sim.GameLogWriter;
+import sim.GameStats;
+import sim.Histogram;
+import sim.SimulationResult;
+import sim.Simulator;
 
 public class GoFishTests {
 	private static Set<Card> gameOneDeck = new HashSet<>();
@@ -34,6 +97,9 @@ public class GoFishTests {
 	private static GoFishController gameThreeController;
 	private static final int[] ranks = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13};
 	private static final Suit[] suits = {Suit.CLUBS, Suit.SPADES, Suit.DIAMONDS, Suit.HEARTS};
+	// the shared games save here instead of the working directory
+	@TempDir
+	static Path saveDir;
 	
 	@BeforeAll
 	static void initialize() {
@@ -55,6 +121,9 @@ public class GoFishTests {
 		gameOneModel = new GoFishModel(2, deckOne, GameType.BASIC);
 		gameTwoModel = new GoFishModel(3, deckTwo, GameType.VARIANT_1);
 		gameThreeModel = new GoFishModel(4, deckThree, GameType.VARIANT_2);
+		gameOneModel.setFileName(saveDir.resolve("one.bin").toString());
+		gameTwoModel.setFileName(saveDir.resolve("two.bin").toString());
+		gameThreeModel.setFileName(saveDir.resolve("three.bin").toString());
 		
 		gameOneController = new GoFishController(gameOneModel);
 		gameTwoController = new GoFishController(gameTwoModel);
@@ -292,7 +361,7 @@ public class GoFishTests {
 	
 	
 	@Test
-	void test_controller() {
+	void test_controller(@TempDir Path dir) {
 		final int[] ranks = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13};
 		final Suit[] suits = {Suit.CLUBS, Suit.SPADES, Suit.DIAMONDS, Suit.HEARTS};
 		Stack<Card> stack = new Stack<>();
@@ -304,6 +373,7 @@ public class GoFishTests {
 		}
 		Deck deck = new Deck(stack);
 		GoFishModel model = new GoFishModel(4, deck, GameType.VARIANT_2);
+		model.setFileName(dir.resolve("save.bin").toString());
 		GoFishController controller = new GoFishController(model);
 		assertEquals(model, controller.getModel());
 		controller.setModel(gameOneModel);
@@ -366,4 +436,1049 @@ public class GoFishTests {
 
 
 
+	@Test
+	void test_simulator() {
+		Simulator simulator = new Simulator(3, RandomBot::new);
+		SimulationResult result = simulator.run(300, GameType.values());
+		assertEquals(900, result.getGames());
+		for (GameType type : GameType.values()) {
+			SimulationResult.Outcome outcome = result.getOutcome(type);
+			assertEquals(300, outcome.getGames());
+			long decided = outcome.getTies() + outcome.getStalled();
+			for (int seat = 0; seat < 3; seat++) {
+				decided += outcome.getWins(seat);
+			}
+			assertEquals(300, decided);
+		}
+	}
+
+	@Test
+	void test_save_file(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("save.bin");
+		byte[] payload = {1, 2, 3, 4, 5};
+		SaveFile.write(file, payload);
+		assertTrue(SaveFile.hasHeader(file));
+		assertTrue(Arrays.equals(payload, SaveFile.read(file)));
+		
+		// flip a payload byte and make sure the checksum catches it
+		byte[] raw = Files.readAllBytes(file);
+		raw[raw.length - 1] ^= 1;
+		Files.write(file, raw);
+		assertThrows(IOException.class, () -> SaveFile.read(file));
+	}
+	
+	@Test
+	void test_write_behind(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("save.bin");
+		int[] snapshots = {0};
+		WriteBehindWriter writer = new WriteBehindWriter(() -> SaveFile.write(file, new byte[] {(byte) ++snapshots[0]}));
+		for (int i = 0; i < 100; i++) {
+			writer.markDirty();
+		}
+		writer.flush();
+		assertFalse(writer.isDirty());
+		assertEquals(1, writer.getWriteCount());
+		assertEquals(1, SaveFile.read(file)[0]);
+		
+		// a failed background write stays pending and the next flush reports it
+		AtomicInteger broken = new AtomicInteger(1);
+		AtomicInteger attempts = new AtomicInteger();
+		WriteBehindWriter failing = new WriteBehindWriter(() -> {
+			attempts.incrementAndGet();
+			if (broken.get() == 1) throw new IOException("disk full");
+		});
+		failing.markDirty();
+		for (int i = 0; i < 500 && failing.getFailure() == null; i++) {
+			Thread.sleep(10);
+		}
+		assertTrue(attempts.get() > 0);
+		assertTrue(failing.getFailure() != null);
+		assertTrue(failing.isDirty());
+		assertThrows(IOException.class, failing::flush);
+		broken.set(0);
+		failing.flush();
+		assertFalse(failing.isDirty());
+		assertEquals(null, failing.getFailure());
+		assertEquals(1, failing.getWriteCount());
+	}
+
+	@Test
+	void test_flush_from_observer(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("save.bin");
+		GoFishModel model = new GoFishModel(2, GameType.BASIC, 3L);
+		model.setFileName(file.toString());
+		// saves from inside every update, as the view does when the game ends, while the 
+		// background writer is saving the same game
+		model.addObserver((o, arg) -> model.flushSave());
+		model.setBot(0, new RandomBot());
+		model.setBot(1, new RandomBot());
+		CompletableFuture<Integer> moves = CompletableFuture.supplyAsync(() -> {
+			int made = 0;
+			for (int i = 0; i < 50 && !model.checkGameOver(); i++) {
+				made += model.playBots(1, new SplittableRandom(i));
+				try {
+					Thread.sleep(WriteBehindWriter.DELAY_MILLIS / 10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return made;
+		});
+		int made = moves.get(60, TimeUnit.SECONDS);
+		assertTrue(made > 0);
+		// nothing is left for the background writer to write once the directory goes
+		model.flushSave();
+		assertEquals(model.getMoveCount(), model.loadModel().getMoveCount());
+	}
+
+	@Test
+	void test_journal_replay(@TempDir Path dir) {
+		GoFishModel model = new GoFishModel(3, GameType.BASIC);
+		model.setFileName(dir.resolve("save.bin").toString());
+		Strategy policy = new RandomBot();
+		SplittableRandom random = new SplittableRandom(42);
+		List<String> states = new ArrayList<>();
+		states.add(describe(model));
+		for (int i = 0; i < 20 && !model.checkGameOver(); i++) {
+			if (i == 5) model.saveModel();
+			Player current = model.getPlayerDecks()[model.getCurrentTurn()];
+			int move = policy.chooseMove(model.getView(), random);
+			int rank = Strategy.rank(move);
+			String id = null;
+			for (Card card : current.getHand()) {
+				if (card.getRank() == rank) id = card.getId();
+			}
+			model.getUserMove(model.getPlayerDecks()[Strategy.targetSeat(move)], id);
+			states.add(describe(model));
+		}
+		model.flushSave();
+		
+		GoFishModel loaded = model.loadModel();
+		assertEquals(model.getMoveCount(), loaded.getMoveCount());
+		assertEquals(describe(model), describe(loaded));
+		for (int i = 0; i < states.size(); i++) {
+			assertEquals(states.get(i), describe(model.loadModel(i)));
+		}
+	}
+	
+	private static String describe(GoFishModel model) {
+		StringBuilder sb = new StringBuilder();
+		for (Player player : model.getPlayerDecks()) {
+			sb.append(player.getHand()).append(player.getBookedCards());
+		}
+		return sb.append(model.getDeck()).append(model.getCurrentTurn()).toString();
+	}
+
+	@Test
+	void test_codec() throws IOException {
+		for (int players = 2; players <= 4; players++) {
+			GoFishModel model = new GoFishModel(players, GameType.VARIANT_1);
+			byte[] bytes = GameCodec.encode(model);
+			assertTrue(bytes.length < 100);
+			GoFishModel decoded = GameCodec.decode(bytes);
+			assertEquals(describe(model), describe(decoded));
+			assertEquals(model.getGameType(), decoded.getGameType());
+		}
+		assertThrows(IOException.class, () -> GameCodec.decode(new byte[] {(byte) 0xAC, (byte) 0xED, 0, 5}));
+	}
+
+	@Test
+	void test_card_flyweight() throws IOException, ClassNotFoundException {
+		Set<Integer> ordinals = new HashSet<>();
+		for (int rank : ranks) {
+			for (Suit suit : suits) {
+				Card card = Card.of(suit, rank);
+				assertSame(card, Card.ofId(card.getId()));
+				assertSame(card, Card.ofOrdinal(card.ordinal()));
+				assertEquals(card, new Card(suit, rank));
+				assertEquals(card.hashCode(), new Card(suit, rank).hashCode());
+				ordinals.add(card.ordinal());
+			}
+		}
+		assertEquals(Card.DECK_SIZE, ordinals.size());
+		assertThrows(IllegalArgumentException.class, () -> Card.ofId("1X"));
+		assertThrows(IllegalArgumentException.class, () -> Card.of(Suit.CLUBS, 14));
+		
+		// deserialized cards come back as the shared instances
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(new Card(Suit.HEARTS, 12));
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertSame(Card.of(Suit.HEARTS, 12), in.readObject());
+	}
+
+	@Test
+	void test_player_hand_mask() {
+		Player player = new Player();
+		Player other = new Player();
+		for (Suit suit : suits) {
+			player.addCard(Card.of(suit, 7));
+		}
+		player.addCard(Card.of(Suit.HEARTS, 2));
+		player.addCard(Card.of(Suit.HEARTS, 2));
+		assertEquals(5, player.getNumOfCardsInDeck());
+		assertEquals(4, player.countOfRank(7));
+		assertEquals(1, player.countOfRank(2));
+		assertEquals(Arrays.asList(Card.of(Suit.HEARTS, 2), Card.of(Suit.CLUBS, 7), Card.of(Suit.SPADES, 7),
+				Card.of(Suit.HEARTS, 7), Card.of(Suit.DIAMONDS, 7)), player.getHand());
+		
+		other.addCards(player.takeRank(7));
+		assertFalse(player.hasRank(7));
+		assertEquals(4, other.countOfRank(7));
+		assertEquals(Card.of(Suit.CLUBS, 7), other.bookRank(7));
+		assertEquals(0, other.getNumOfCardsInDeck());
+		assertEquals(1, other.getBookedCards().size());
+		assertTrue(player.removeCard(Card.of(Suit.HEARTS, 2)));
+		assertEquals(0, player.getHandMask());
+	}
+
+	@Test
+	void test_deck() throws IOException, ClassNotFoundException {
+		Deck deck = new Deck(new SplittableRandom(11));
+		assertEquals(Card.DECK_SIZE, deck.size());
+		assertEquals(-1L >>> 12, deck.getMask());
+		assertEquals(deck.getCards(), new Deck(new SplittableRandom(11)).getCards());
+		assertFalse(deck.getCards().equals(new Deck(new SplittableRandom(12)).getCards()));
+		
+		Card top = deck.getCards().get(deck.size() - 1);
+		assertSame(top, deck.pullCard());
+		assertFalse(deck.contains(top));
+		deck.addToDeck(top);
+		deck.addToDeck(top);
+		deck.pullCard();
+		assertTrue(deck.contains(top));
+		assertEquals(Card.DECK_SIZE, deck.size());
+		
+		// the testing deck keeps the order of the stack and still serializes like one
+		Stack<Card> stack = new Stack<>();
+		stack.push(Card.of(Suit.CLUBS, 1));
+		stack.push(Card.of(Suit.HEARTS, 13));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(new Deck(stack));
+		out.close();
+		Deck copy = (Deck) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertEquals(stack.toString(), copy.toString());
+		assertSame(Card.of(Suit.HEARTS, 13), copy.pullCard());
+		assertSame(Card.of(Suit.CLUBS, 1), copy.pullCard());
+		assertThrows(EmptyStackException.class, () -> copy.pullCard());
+	}
+
+	@Test
+	void test_seeded_replay() throws IOException {
+		GoFishModel model = new GoFishModel(3, GameType.VARIANT_1, 42L);
+		model.setHeadless(true);
+		assertTrue(model.hasSeed());
+		assertEquals(42L, new GoFishController(model).getSeed());
+		
+		// play with card IDs like the view does, remembering every move
+		List<Integer> seats = new ArrayList<>();
+		List<String> ids = new ArrayList<>();
+		SplittableRandom random = new SplittableRandom(3);
+		RandomBot policy = new RandomBot();
+		Player[] players = model.getPlayerDecks();
+		while (!model.checkGameOver() && players[model.getCurrentTurn()].getNumOfCardsInDeck() > 0) {
+			int move = policy.chooseMove(model.getView(), random);
+			List<Card> hand = players[model.getCurrentTurn()].getHand();
+			Card asked = hand.get(hand.size() - 1);
+			for (Card card : hand) {
+				if (card.getRank() == Strategy.rank(move)) asked = card;
+			}
+			seats.add(Strategy.targetSeat(move));
+			ids.add(asked.getId());
+			model.getUserMove(players[Strategy.targetSeat(move)], asked.getId());
+		}
+		
+		// the seed and the moves give back the same game, and the seed survives a save
+		GoFishModel again = new GoFishModel(3, GameType.VARIANT_1, model.getSeed());
+		again.setHeadless(true);
+		for (int i = 0; i < seats.size(); i++) {
+			again.getUserMove(again.getPlayerDecks()[seats.get(i)], ids.get(i));
+		}
+		assertTrue(Arrays.equals(GameCodec.encode(model), GameCodec.encode(again)));
+		GoFishModel decoded = GameCodec.decode(GameCodec.encode(model));
+		assertTrue(decoded.hasSeed());
+		assertEquals(42L, decoded.getSeed());
+		assertFalse(GameCodec.decode(GameCodec.encode(gameOneModel)).hasSeed());
+		assertEquals(new GoFishModel(2, GameType.BASIC, -7L).getDeck().getCards(), 
+				new GoFishModel(2, GameType.BASIC, -7L).getDeck().getCards());
+	}
+
+	@Test
+	void test_server(@TempDir Path dir) throws IOException {
+		try (GameServer server = new GameServer(0, new TableManager(dir));
+				Socket one = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+				Socket two = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+			BufferedReader inOne = new BufferedReader(new InputStreamReader(one.getInputStream()));
+			BufferedReader inTwo = new BufferedReader(new InputStreamReader(two.getInputStream()));
+			PrintWriter outOne = new PrintWriter(one.getOutputStream(), true);
+			PrintWriter outTwo = new PrintWriter(two.getOutputStream(), true);
+			
+			outOne.println("NEW t1 2 BASIC 5");
+			assertEquals("OK t1 seed=5", inOne.readLine());
+			outOne.println("NEW ../x 2");
+			assertTrue(inOne.readLine().startsWith("ERR"));
+			outOne.println("JOIN t1 0");
+			assertEquals("OK t1 seat=0", inOne.readLine());
+			outTwo.println("JOIN t1 0");
+			assertEquals("ERR Seat 0 is taken", inTwo.readLine());
+			outTwo.println("JOIN t1 1");
+			assertEquals("OK t1 seat=1", inTwo.readLine());
+			outTwo.println("ASK 0 1");
+			assertEquals("ERR It is not your turn", inTwo.readLine());
+			
+			// ask for the rank of the first card in seat 0's hand
+			outOne.println("STATE");
+			String state = inOne.readLine();
+			String hand = state.substring(state.indexOf(':') + 1).split(" ")[0];
+			int rank = Card.ofId(hand.split(",")[0]).getRank();
+			outOne.println("ASK 1 " + rank);
+			assertTrue(inOne.readLine().matches("OK [012]"));
+			outOne.println("SAVE");
+			assertEquals("OK", inOne.readLine());
+			outOne.println("TABLES");
+			assertEquals("OK t1", inOne.readLine());
+			
+			// a table with no save is not found, a save that cannot be read is an error
+			outOne.println("LOAD t9");
+			assertEquals("ERR no save for table t9", inOne.readLine());
+			Files.write(dir.resolve("t9.bin"), new byte[] {1, 2, 3});
+			outOne.println("LOAD t9");
+			assertTrue(inOne.readLine().startsWith("ERR Could not load"));
+			Files.delete(dir.resolve("t9.bin"));
+		}
+		// the table was saved to its own file and can be opened again
+		assertTrue(Files.exists(dir.resolve("t1.bin")));
+		Table table = new TableManager(dir).loadTable("t1");
+		assertEquals(5L, table.getModel().getSeed());
+		assertEquals(1, table.getModel().getMoveCount());
+		
+		// saves and loads run on the I/O executor, not the one the moves run on
+		AtomicInteger ioTasks = new AtomicInteger();
+		TableManager manager = new TableManager(dir, ForkJoinPool.commonPool(), r -> {
+			ioTasks.incrementAndGet();
+			r.run();
+		});
+		Table two = manager.createTable("t2", 2, GameType.BASIC, 6L);
+		manager.createTable("t3", 3, GameType.BASIC, 7L);
+		two.save().join();
+		manager.flushAll();
+		assertTrue(two.load().join());
+		assertEquals(4, ioTasks.get());
+	}
+
+	@Test
+	void test_apply_move() {
+		GoFishModel model = new GoFishModel(4, GameType.BASIC);
+		model.setHeadless(true);
+		GoFishController controller = new GoFishController(model);
+		Player[] players = model.getPlayerDecks();
+		int rank = players[0].getHand().get(0).getRank();
+		boolean otherHasRank = players[1].hasRank(rank);
+		int result = controller.handleUserMove(1, rank);
+		assertEquals(otherHasRank, result != GoFishModel.NO_CARDS);
+		assertFalse(players[1].hasRank(rank));
+		
+		int seat = model.getCurrentTurn();
+		int missing = 1;
+		while (players[seat].hasRank(missing)) missing++;
+		final int rankNotHeld = missing;
+		assertThrows(IllegalArgumentException.class, () -> model.applyMove((seat + 1) % 4, rankNotHeld));
+		assertThrows(IllegalArgumentException.class, () -> model.applyMove(4, 1));
+		assertThrows(IllegalArgumentException.class, () -> model.applyMove(0, 14));
+	}
+
+	@Test
+	void test_model_change() {
+		Stack<Card> stack = new Stack<>();
+		for (int rank : ranks) { 
+			for (Suit suit : suits) {
+				stack.push(new Card(suit, rank));
+			}
+		}
+		GoFishModel model = new GoFishModel(2, new Deck(stack), GameType.BASIC);
+		List<ModelChange> changes = new ArrayList<>();
+		model.addObserver((o, arg) -> changes.add((ModelChange) arg));
+		
+		// player 1 holds three queens and player 2 the fourth, so asking for queens makes 
+		// a book, empties the hand and draws one card
+		assertEquals(GoFishModel.BOOKED, model.applyMove(1, 12));
+		assertEquals(1, changes.size());
+		ModelChange change = changes.get(0);
+		assertEquals(0, change.getSeat());
+		assertEquals(1, change.getTargetSeat());
+		assertEquals(12, change.getRank());
+		assertEquals(GoFishModel.BOOKED, change.getResult());
+		assertEquals(1L << Card.of(Suit.CLUBS, 12).ordinal(), change.getCardsRemoved(1));
+		assertEquals(1 << 11, change.getBooksMade(0));
+		assertEquals(1, change.getCardsDrawn());
+		assertEquals(model.getPlayerDecks()[0].getHandMask(), change.getCardsAdded(0));
+		assertFalse(change.isTurnChanged());
+		
+		// every move after that is exactly one change, and the changes follow the turns
+		SplittableRandom random = new SplittableRandom(8);
+		RandomBot policy = new RandomBot();
+		for (int moves = 1; !model.checkGameOver() && moves < 40; moves++) {
+			int turn = model.getCurrentTurn();
+			if (model.getPlayerDecks()[turn].getNumOfCardsInDeck() == 0) break;
+			int move = policy.chooseMove(model.getView(), random);
+			model.applyMove(Strategy.targetSeat(move), Strategy.rank(move));
+			assertEquals(moves + 1, changes.size());
+			change = changes.get(moves);
+			assertEquals(turn, change.getPreviousTurn());
+			assertEquals(model.getCurrentTurn(), change.getCurrentTurn());
+			assertEquals(model.checkGameOver(), change.isGameOver());
+		}
+	}
+
+	@Test
+	void test_table_actor() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			TableActor actor = new TableActor(pool);
+			AtomicInteger running = new AtomicInteger();
+			AtomicInteger overlaps = new AtomicInteger();
+			int[] count = {0};
+			List<CompletableFuture<Integer>> results = new ArrayList<>();
+			List<Future<?>> senders = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				senders.add(pool.submit(() -> {
+					for (int i = 0; i < 1000; i++) {
+						CompletableFuture<Integer> result = actor.submit(() -> {
+							if (running.incrementAndGet() != 1) overlaps.incrementAndGet();
+							int value = ++count[0];
+							running.decrementAndGet();
+							return value;
+						});
+						synchronized (results) {
+							results.add(result);
+						}
+					}
+				}));
+			}
+			for (Future<?> sender : senders) sender.get();
+			Set<Integer> seen = new HashSet<>();
+			for (CompletableFuture<Integer> result : results) seen.add(result.get(10, TimeUnit.SECONDS));
+			// every command ran once, never two at a time
+			assertEquals(8000, actor.submit(() -> count[0]).get(10, TimeUnit.SECONDS));
+			assertEquals(8000, seen.size());
+			assertEquals(0, overlaps.get());
+			CompletableFuture<Object> failed = actor.submit(() -> {
+				throw new IllegalStateException("nope");
+			});
+			ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			// the queue keeps going after a command fails
+			assertEquals(8001, actor.submit(() -> ++count[0]).get(10, TimeUnit.SECONDS));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void test_bots() {
+		// the view only shows the hand of the player whose turn it is
+		GoFishModel model = new GoFishModel(3, GameType.BASIC, 11L);
+		model.setHeadless(true);
+		GameView view = model.getView();
+		assertSame(view, model.getView());
+		Player current = model.getPlayerDecks()[view.getCurrentTurn()];
+		assertEquals(current.getHandMask(), view.getHandMask());
+		for (int rank = 1; rank <= 13; rank++) {
+			assertEquals(current.countOfRank(rank), view.countOfRank(rank));
+			assertEquals(current.hasRank(rank), (view.getRanksHeld() & 1 << (rank - 1)) != 0);
+		}
+		
+		// every bot only asks other players for ranks it holds
+		SplittableRandom random = new SplittableRandom(4);
+		Strategy[] bots = {new RandomBot(), new GreedyBot(), new MemoryBot()};
+		for (Strategy bot : bots) {
+			for (int i = 0; i < 200; i++) {
+				GoFishModel game = new GoFishModel(2 + i % 3, GameType.values()[i % 3], random.nextLong());
+				game.setHeadless(true);
+				bot.newGame(game.getView(), game.getCurrentTurn());
+				int move = bot.chooseMove(game.getView(), random);
+				assertTrue(game.getPlayerDecks()[game.getCurrentTurn()].hasRank(Strategy.rank(move)));
+				assertTrue(Strategy.targetSeat(move) != game.getCurrentTurn());
+				assertTrue(Strategy.targetSeat(move) < game.getPlayerDecks().length);
+			}
+		}
+		
+		// greedy asks for the rank it has the most of
+		Stack<Card> stack = new Stack<>();
+		for (int i = 1; i <= 13; i++) {
+			stack.push(Card.of(Suit.HEARTS, i));
+		}
+		GoFishModel custom = new GoFishModel(2, new Deck(stack), GameType.BASIC, true);
+		custom.getPlayerDecks()[0].addCard(Card.of(Suit.CLUBS, 3));
+		custom.getPlayerDecks()[0].addCard(Card.of(Suit.CLUBS, 9));
+		custom.getPlayerDecks()[0].addCard(Card.of(Suit.SPADES, 9));
+		custom.getPlayerDecks()[1].addCard(Card.of(Suit.CLUBS, 5));
+		assertEquals(Strategy.move(1, 9), new GreedyBot().chooseMove(custom.getView(), random));
+		
+		// memory remembers that player 2 asked for 3s
+		MemoryBot memory = new MemoryBot();
+		custom.setBot(0, memory);
+		memory.moveMade(custom.getView(), 1, 0, 3, GoFishModel.NO_CARDS);
+		assertEquals(Strategy.move(1, 3), memory.chooseMove(custom.getView(), random));
+		
+		// seats marked as bots play until a person has the turn, and all bot games end
+		GoFishModel mixed = new GoFishModel(3, GameType.BASIC, 12L);
+		mixed.setHeadless(true);
+		mixed.setBot(1, new GreedyBot());
+		mixed.setBot(2, new MemoryBot());
+		assertFalse(mixed.isBot(0));
+		assertTrue(mixed.isBot(2));
+		mixed.playBots();
+		assertTrue(mixed.checkGameOver() || mixed.getCurrentTurn() == 0);
+		for (Strategy bot : bots) {
+			for (int i = 0; i < 50; i++) {
+				GoFishModel game = new GoFishModel(4, GameType.values()[i % 3], random.nextLong());
+				Strategy[] seats = {bot, new GreedyBot(), new MemoryBot(), new RandomBot()};
+				Simulator.playGame(game, seats, random);
+				assertTrue(game.checkGameOver() || game.getPlayerDecks()[game.getCurrentTurn()].getNumOfCardsInDeck() == 0);
+			}
+		}
+	}
+
+	@Test
+	void test_ismcts_bot() {
+		// a new deal keeps what the player to move can see and honors what is known
+		GoFishModel model = new GoFishModel(4, GameType.BASIC, 21L);
+		model.setHeadless(true);
+		SplittableRandom random = new SplittableRandom(6);
+		int seat = model.getCurrentTurn();
+		int[] known = new int[4];
+		Player[] players = model.getPlayerDecks();
+		int opponent = (seat + 1) % 4;
+		int rank = Card.ofOrdinal(Long.numberOfTrailingZeros(players[opponent].getHandMask())).getRank();
+		known[opponent] = 1 << (rank - 1);
+		// and a rank the next opponent really holds is dealt elsewhere when they are known to lack it
+		int[] lacking = new int[4];
+		int other = (seat + 2) % 4;
+		int missing = Card.ofOrdinal(Long.numberOfTrailingZeros(players[other].getHandMask())).getRank();
+		lacking[other] = 1 << (missing - 1);
+		for (int i = 0; i < 20; i++) {
+			GoFishModel deal = model.getView().determinize(known, lacking, random);
+			assertTrue(deal.isHeadless());
+			assertEquals(0, deal.countObservers());
+			Player[] dealt = deal.getPlayerDecks();
+			long all = deal.getDeck().getMask();
+			assertEquals(model.getDeck().size(), deal.getDeck().size());
+			for (int j = 0; j < 4; j++) {
+				assertEquals(players[j].getNumOfCardsInDeck(), dealt[j].getNumOfCardsInDeck());
+				assertEquals(players[j].getBookedCards(), dealt[j].getBookedCards());
+				assertEquals(0, all & dealt[j].getHandMask());
+				all |= dealt[j].getHandMask();
+			}
+			assertEquals(players[seat].getHandMask(), dealt[seat].getHandMask());
+			assertTrue(dealt[opponent].hasRank(rank));
+			assertFalse(dealt[other].hasRank(missing));
+			assertEquals(52 - 4 * countBooks(deal), Long.bitCount(all));
+			// moves on the deal do not touch the game
+			deal.applyMove(opponent, Card.ofOrdinal(Long.numberOfTrailingZeros(dealt[seat].getHandMask())).getRank());
+			assertEquals(0, model.getMoveCount());
+		}
+		
+		// the search stops at its iteration limit and picks a legal move
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			IsmctsBot bot = new IsmctsBot(10_000, 300, 2, pool);
+			model.setBot(seat, bot);
+			int move = bot.chooseMove(model.getView(), random);
+			assertEquals(300, bot.getLastIterations());
+			assertTrue(players[seat].hasRank(Strategy.rank(move)));
+			assertTrue(Strategy.targetSeat(move) != seat);
+			GoFishModel game = new GoFishModel(2, GameType.BASIC, 22L);
+			game.setHeadless(true);
+			game.setBot(0, new IsmctsBot(10_000, 50, 2, pool));
+			game.setBot(1, new RandomBot());
+			game.playBots(Simulator.MAX_MOVES, random);
+			assertTrue(game.checkGameOver() || game.getPlayerDecks()[game.getCurrentTurn()].getNumOfCardsInDeck() == 0);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void test_copy_on_write() {
+		// copies of a deck share cards until one of them pushes or shuffles
+		Deck deck = new Deck(new SplittableRandom(13));
+		Deck copy = new Deck(deck);
+		Card top = copy.pullCard();
+		assertEquals(Card.DECK_SIZE, deck.size());
+		assertTrue(deck.contains(top));
+		copy.addToDeck(Card.of(Suit.CLUBS, 1));
+		assertSame(top, deck.pullCard());
+		Deck other = new Deck(deck);
+		other.shuffle(new SplittableRandom(1));
+		assertSame(deck.getCards().get(0), new Deck(new SplittableRandom(13)).getCards().get(0));
+		assertEquals(deck.getMask(), other.getMask());
+
+		// a copy of a game plays on without touching the original or its snapshot
+		GoFishModel model = new GoFishModel(3, GameType.BASIC, 17L);
+		model.setHeadless(true);
+		Player booked = model.getPlayerDecks()[1];
+		booked.bookRank(booked.getHand().get(0).getRank());
+		GameSnapshot snapshot = model.snapshot();
+		String before = model.getPlayerDecks()[0].getHand() + " " + model.getDeck();
+		GoFishModel game = snapshot.toModel();
+		assertTrue(game.isHeadless());
+		int target = (game.getCurrentTurn() + 1) % 3;
+		for (int i = 0; i < 200 && game.getPlayerDecks()[game.getCurrentTurn()].getNumOfCardsInDeck() > 0; i++) {
+			Player player = game.getPlayerDecks()[game.getCurrentTurn()];
+			game.applyMove(target, player.getHand().get(0).getRank());
+			target = (target + 1) % 3;
+			if (target == game.getCurrentTurn()) target = (target + 1) % 3;
+		}
+		assertEquals(before, model.getPlayerDecks()[0].getHand() + " " + model.getDeck());
+		assertEquals(1, model.getPlayerDecks()[1].getBookedCards().size());
+		assertEquals(0, model.getMoveCount());
+		assertEquals(model.getDeck().getMask(), snapshot.getDeckMask());
+		assertEquals(1, snapshot.getBookCount(1));
+
+		// and moves on the original do not change the snapshot
+		long hand = snapshot.getHandMask(model.getCurrentTurn());
+		Player player = model.getPlayerDecks()[model.getCurrentTurn()];
+		model.applyMove((model.getCurrentTurn() + 1) % 3, player.getHand().get(0).getRank());
+		assertEquals(hand, snapshot.getHandMask(snapshot.getCurrentTurn()));
+		assertEquals(0, snapshot.getMoveCount());
+		assertEquals(snapshot.getDeckSize(), snapshot.toModel().getDeck().size());
+	}
+
+	@Test
+	void test_zobrist_hash() throws IOException {
+		// the hash kept move by move matches the hash worked out from scratch
+		SplittableRandom random = new SplittableRandom(8);
+		RandomBot bot = new RandomBot();
+		for (GameType type : GameType.values()) {
+			GoFishModel model = new GoFishModel(3, type, 31L);
+			model.setHeadless(true);
+			long start = model.getHash();
+			assertEquals(start, model.copy().getHash());
+			assertEquals(start, GameCodec.decode(GameCodec.encode(model)).getHash());
+			for (int i = 0; i < 300 && model.getPlayerDecks()[model.getCurrentTurn()].getNumOfCardsInDeck() > 0; i++) {
+				int move = bot.chooseMove(model.getView(), random);
+				model.applyMove(Strategy.targetSeat(move), Strategy.rank(move));
+				assertEquals(GameCodec.decode(GameCodec.encode(model)).getHash(), model.getHash());
+			}
+			assertTrue(model.getHash() != start);
+		}
+		// the turn and the rule set are part of it
+		assertFalse(new GoFishModel(2, GameType.BASIC, 5L).getHash() == new GoFishModel(2, GameType.VARIANT_2, 5L).getHash());
+
+		TranspositionTable<String> table = new TranspositionTable<>(100, 6);
+		assertEquals(128, table.capacity());
+		table.put(7, "seven");
+		assertEquals("seven", table.get(7));
+		assertEquals(null, table.get(7 + 128));
+		table.put(7 + 128, "pushed out");
+		assertEquals(null, table.get(7));
+		assertEquals("pushed out", table.get(7 + 128));
+		table.clear();
+		assertEquals(null, table.get(7 + 128));
+		// the hash has keys for four seats, so no game may have more
+		assertThrows(IllegalArgumentException.class, () -> new GoFishModel(GoFishModel.MAX_PLAYERS + 1, GameType.BASIC));
+		assertThrows(IllegalArgumentException.class, () -> new GoFishModel(1, GameType.BASIC));
+	}
+
+	@Test
+	void test_endgame_solver() {
+		// random games are played until the deck runs out, then the solver's moves are
+		// played and have to end with the books it worked out
+		SplittableRandom random = new SplittableRandom(9);
+		RandomBot bot = new RandomBot();
+		EndgameSolver solver = new EndgameSolver();
+		int solved = 0;
+		for (int game = 0; game < 60; game++) {
+			GameType type = GameType.values()[game % 3];
+			GoFishModel model = new GoFishModel(2 + game % 3, type, random.nextLong());
+			model.setHeadless(true);
+			assertFalse(EndgameSolver.canSolve(model));
+			assertThrows(IllegalArgumentException.class, () -> solver.solve(model));
+			for (int i = 0; i < 2000 && !EndgameSolver.canSolve(model) 
+					&& model.getPlayerDecks()[model.getCurrentTurn()].getNumOfCardsInDeck() > 0; i++) {
+				int move = bot.chooseMove(model.getView(), random);
+				model.applyMove(Strategy.targetSeat(move), Strategy.rank(move));
+			}
+			if (!EndgameSolver.canSolve(model)) continue;
+			solved++;
+			int[] books = solver.solve(model);
+			int total = 0;
+			for (int count : books) {
+				total += count;
+			}
+			int move;
+			while ((move = solver.bestMove(model)) >= 0) {
+				assertTrue(model.applyMove(Strategy.targetSeat(move), Strategy.rank(move)) != GoFishModel.NO_CARDS);
+			}
+			for (int seat = 0; seat < books.length; seat++) {
+				assertEquals(books[seat], model.getPlayerDecks()[seat].getBookedCards().size());
+			}
+			// only a stalled game in Ruleset 3 leaves ranks unbooked
+			assertTrue(total == GoFishModel.MAX_BOOKS || type == GameType.VARIANT_2);
+		}
+		assertTrue(solved > 30);
+		assertTrue(solver.getPositions() > 0);
+	}
+	
+	@Test
+	void test_game_stats() throws Exception {
+		// four threads record games while the main thread reads snapshots
+		GameStats stats = new GameStats();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			long seed = t;
+			futures.add(pool.submit(() -> {
+				SplittableRandom random = new SplittableRandom(seed);
+				Strategy[] seats = { new RandomBot(), new RandomBot(), new RandomBot() };
+				for (int game = 0; game < 150; game++) {
+					GoFishModel model = new GoFishModel(3, GameType.values()[game % 3], random.nextLong());
+					Simulator.playGame(model, seats, random);
+					int winners = model.getWinners();
+					int most = 0;
+					for (Player player : model.getPlayerDecks()) {
+						most = Math.max(most, player.getBookedCards().size());
+					}
+					for (int seat = 0; seat < 3; seat++) {
+						int books = model.getPlayerDecks()[seat].getBookedCards().size();
+						assertEquals(books == most && most > 0, (winners & 1 << seat) != 0);
+					}
+					stats.record(model);
+				}
+			}));
+		}
+		long seen = 0;
+		while (futures.stream().anyMatch(f -> !f.isDone())) {
+			long games = stats.snapshot().get(GameType.BASIC, 3).getGames();
+			assertTrue(games >= seen);
+			seen = games;
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		pool.shutdown();
+
+		GameStats.Snapshot snapshot = stats.snapshot();
+		for (GameType type : GameType.values()) {
+			GameStats.Totals totals = snapshot.get(type, 3);
+			assertEquals(200, totals.getGames());
+			long finished = totals.getGames() - totals.getStalled();
+			long wins = 0;
+			double books = 0;
+			for (int seat = 0; seat < 3; seat++) {
+				wins += totals.getWins(seat);
+				assertEquals(finished, totals.getBooks(seat).getCount());
+				books += totals.getBooks(seat).getMean() * finished;
+			}
+			assertEquals(finished, wins + totals.getTies());
+			assertEquals(finished, totals.getMoves().getCount());
+			assertEquals(GoFishModel.MAX_BOOKS * finished, Math.round(books));
+			assertEquals(0, snapshot.get(type, 2).getGames());
+		}
+		assertThrows(IllegalArgumentException.class, () -> snapshot.get(GameType.BASIC, 5));
+
+		// merging a snapshot with itself doubles the counts but keeps the shape
+		GameStats.Snapshot doubled = snapshot.merge(snapshot);
+		GameStats.Totals once = snapshot.get(GameType.VARIANT_1, 3);
+		GameStats.Totals twice = doubled.get(GameType.VARIANT_1, 3);
+		assertEquals(2 * once.getGames(), twice.getGames());
+		assertEquals(2 * once.getTies(), twice.getTies());
+		assertEquals(once.getWinRate(1), twice.getWinRate(1));
+		Histogram moves = once.getMoves();
+		assertEquals(2 * moves.getCount(), twice.getMoves().getCount());
+		assertEquals(moves.getMean(), twice.getMoves().getMean());
+		assertEquals(moves.getPercentile(90), twice.getMoves().getPercentile(90));
+		assertEquals(moves.getMax(), twice.getMoves().getMax());
+		assertTrue(moves.getPercentile(50) <= moves.getPercentile(99));
+		assertTrue(moves.getPercentile(99) <= moves.getMax());
+		assertFalse(moves.equals(twice.getMoves()));
+		assertEquals(moves, moves.merge(stats.snapshot().get(GameType.BASIC, 2).getMoves()));
+	}
+	
+	@Test
+	void test_metrics() throws Exception {
+		// every latency is read back to within a sixteenth of its size
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long nanos = 1; nanos <= 1_000_000; nanos++) {
+			histogram.record(nanos);
+		}
+		assertEquals(1_000_000, histogram.getCount());
+		assertEquals(1_000_000, histogram.getMax());
+		for (double percentile : new double[] { 1, 50, 90, 99, 99.9 }) {
+			long exact = (long) (percentile * 10_000);
+			long read = histogram.getPercentile(percentile);
+			assertTrue(read >= exact && read <= exact + exact / LatencyHistogram.SUB_BUCKETS, percentile + ": " + read);
+		}
+		assertTrue(Math.abs(histogram.getMean() - 500_000) < 500_000 / LatencyHistogram.SUB_BUCKETS);
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+		assertEquals(0, histogram.getPercentile(0));
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(50));
+		
+		// threads record into their own stripes, and a reading adds them all up
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		List<Future<?>> recorders = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			recorders.add(threads.submit(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					histogram.record(100);
+				}
+			}));
+		}
+		for (Future<?> recorder : recorders) {
+			recorder.get();
+		}
+		threads.shutdown();
+		assertEquals(40_000, histogram.getCount());
+		assertEquals(100, histogram.getPercentile(50), 100 / LatencyHistogram.SUB_BUCKETS);
+		histogram.reset();
+
+		// the model only counts when metrics are turned on
+		Metrics.reset();
+		GoFishModel model = new GoFishModel(2, GameType.BASIC, 3L);
+		model.setHeadless(true);
+		for (int i = 0; i < 20 && !model.checkGameOver(); i++) {
+			int rank = Long.numberOfTrailingZeros(model.getPlayerDecks()[model.getCurrentTurn()].getHandMask()) / 4 + 1;
+			model.applyMove(1 - model.getCurrentTurn(), rank);
+		}
+		assertEquals(Metrics.ENABLED, Metrics.get(Metrics.Counter.MOVES) == 20);
+		assertTrue(Metrics.dump().contains("BOOK_CHECK"));
+
+		Metrics.register();
+		Metrics.register();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+		assertEquals(Metrics.ENABLED, server.getAttribute(name, "Enabled"));
+		assertEquals(Metrics.get(Metrics.Counter.MOVES), server.getAttribute(name, "Moves"));
+		CompositeData latency = (CompositeData) server.getAttribute(name, "BookCheckLatency");
+		assertEquals(Metrics.get(Metrics.Timer.BOOK_CHECK).getCount(), latency.get("count"));
+		assertTrue(latency.containsKey("p99"));
+	}
+	
+	@Test
+	void test_flight_recorder_events(@TempDir Path dir) throws Exception {
+		GoFishModel model = new GoFishModel(3, GameType.BASIC, 12L);
+		model.setFileName(dir.resolve("save.bin").toString());
+		RandomBot bot = new RandomBot();
+		SplittableRandom random = new SplittableRandom(12);
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording()) {
+			for (String name : new String[] { "Move", "Book", "TurnChange", "Save", "Load" }) {
+				recording.enable("gofish." + name);
+			}
+			recording.start();
+			for (int i = 0; i < 2000 && !model.checkGameOver() 
+					&& model.getPlayerDecks()[model.getCurrentTurn()].getNumOfCardsInDeck() > 0; i++) {
+				int move = bot.chooseMove(model.getView(), random);
+				model.applyMove(Strategy.targetSeat(move), Strategy.rank(move));
+			}
+			model.saveModel();
+			model.loadModel();
+			recording.stop();
+			Path file = dir.resolve("game.jfr");
+			recording.dump(file);
+			events = RecordingFile.readAllEvents(file);
+		}
+		int moves = 0;
+		int books = 0;
+		int turns = 0;
+		for (RecordedEvent event : events) {
+			switch (event.getEventType().getName()) {
+			case "gofish.Move":
+				moves++;
+				assertTrue(event.getInt("result") >= GoFishModel.NO_CARDS && event.getInt("result") <= GoFishModel.BOOKED);
+				break;
+			case "gofish.Book":
+				books++;
+				assertEquals(books, event.getInt("books"));
+				break;
+			case "gofish.TurnChange":
+				turns++;
+				assertTrue(event.getInt("fromSeat") != event.getInt("toSeat"));
+				break;
+			case "gofish.Save":
+				assertTrue(event.getLong("bytes") > 0);
+				break;
+			case "gofish.Load":
+				assertTrue(event.getBoolean("loaded"));
+				assertEquals(model.getMoveCount(), event.getInt("moveCount"));
+				break;
+			}
+		}
+		assertEquals(model.getMoveCount(), moves);
+		assertEquals(countBooks(model), books);
+		assertTrue(turns > 0 && turns <= moves);
+		assertEquals(1, events.stream().filter(e -> e.getEventType().getName().equals("gofish.Save")).count());
+		assertEquals(1, events.stream().filter(e -> e.getEventType().getName().equals("gofish.Load")).count());
+	}
+	
+	@Test
+	void test_game_log(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("games.log");
+		Simulator simulator = new Simulator(3, MemoryBot::new, ForkJoinPool.commonPool(), 4L);
+		SimulationResult result;
+		try (GameLogWriter log = new GameLogWriter(file)) {
+			simulator.setLog(log);
+			result = simulator.run(200, GameType.values());
+			assertEquals(600, log.getGames());
+		}
+
+		// every game is read back and plays out again the same way
+		try (GameLogReader reader = new GameLogReader(file)) {
+			AtomicInteger games = new AtomicInteger();
+			reader.forEach(game -> {
+				games.incrementAndGet();
+				assertEquals(3, game.getNumOfPlayers());
+				GoFishModel replayed = game.replay();
+				assertEquals(game.getMoveCount(), replayed.getMoveCount());
+				assertEquals(game.isFinished(), replayed.checkGameOver());
+				assertEquals(game.getWinners(), replayed.getWinners());
+				for (int seat = 0; seat < 3; seat++) {
+					assertEquals(game.getBooks(seat), replayed.getPlayerDecks()[seat].getBookedCards().size());
+				}
+			});
+			assertEquals(600, games.get());
+			for (GameType type : GameType.values()) {
+				SimulationResult.Outcome outcome = result.getOutcome(type);
+				assertEquals(outcome.getGames() - outcome.getStalled(), reader.stream(false)
+						.filter(game -> game.getGameType() == type && game.isFinished()).count());
+			}
+		}
+
+		// enough games to fill several blocks, read in parallel
+		GoFishModel model = new GoFishModel(2, GameType.BASIC, 8L);
+		model.setHeadless(true);
+		byte[] moves = new byte[40];
+		int count = 0;
+		for (; count < moves.length && model.getPlayerDecks()[model.getCurrentTurn()].getNumOfCardsInDeck() > 0; count++) {
+			int rank = Long.numberOfTrailingZeros(model.getPlayerDecks()[model.getCurrentTurn()].getHandMask()) / 4 + 1;
+			moves[count] = GameLog.encodeMove(1 - model.getCurrentTurn(), rank);
+			model.applyMove(1 - model.getCurrentTurn(), rank);
+		}
+		// the first game is the one played, then fresh deals with seeds 1, 2, ...
+		int games = 3 * GameLog.BLOCK_SIZE / GameLog.GAME_HEADER_SIZE;
+		try (GameLogWriter log = new GameLogWriter(file)) {
+			log.write(model, moves, count);
+			for (int seed = 1; seed < games; seed++) {
+				log.write(new GoFishModel(2, GameType.BASIC, seed), moves, 0);
+			}
+		}
+		try (GameLogReader reader = new GameLogReader(file)) {
+			assertEquals(4, reader.getBlocks());
+			long[] seeds = reader.stream(true).mapToLong(GameLogReader.Game::getSeed).toArray();
+			assertEquals(games, seeds.length);
+			assertEquals(8L, seeds[0]);
+			for (int i = 1; i < games; i++) {
+				assertEquals(i, seeds[i]);
+			}
+			GameLogReader.Game first = reader.stream(false).findFirst().get();
+			assertEquals(count, first.getMoveCount());
+			for (int i = 0; i < count; i++) {
+				assertEquals(GameLog.rank(moves[i]), first.getRank(i));
+				assertEquals(GameLog.targetSeat(moves[i]), first.getTargetSeat(i));
+			}
+			assertEquals(describe(model), describe(first.replay()));
+			long books = 0;
+			for (int seed = 1; seed < games; seed++) {
+				books += new GoFishModel(2, GameType.BASIC, seed).getPlayerDecks()[0].getBookedCards().size();
+			}
+			assertEquals(books + model.getPlayerDecks()[0].getBookedCards().size(),
+					reader.stream(true).mapToLong(game -> game.getBooks(0)).sum());
+		}
+
+		// a move count no writer could have written ends its block like a cut off game
+		byte[] bytes = Files.readAllBytes(file);
+		int second = GameLog.FILE_HEADER_SIZE + GameLog.GAME_HEADER_SIZE + count;
+		// the move count is 16 bytes into a game
+		for (int moveCount : new int[] {-1, GameLog.MAX_MOVES + 1, Integer.MAX_VALUE}) {
+			ByteBuffer.wrap(bytes).putInt(second + 16, moveCount);
+			Files.write(file, bytes);
+			try (GameLogReader reader = new GameLogReader(file)) {
+				long[] seeds = reader.stream(false).mapToLong(GameLogReader.Game::getSeed).toArray();
+				assertEquals(8L, seeds[0]);
+				// the rest of the first block is skipped, the other blocks are still read
+				assertEquals((GameLog.BLOCK_SIZE - second) / GameLog.GAME_HEADER_SIZE + 1, seeds[1]);
+				assertEquals(games - 1, seeds[seeds.length - 1]);
+			}
+		}
+
+		Files.write(file, new byte[64]);
+		assertThrows(IOException.class, () -> new GameLogReader(file));
+	}
+	
+	@Test
+	void test_game_log_columns(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("games.log");
+		Simulator simulator = new Simulator(3, MemoryBot::new, ForkJoinPool.commonPool(), 5L);
+		try (GameLogWriter log = new GameLogWriter(file)) {
+			simulator.setLog(log);
+			simulator.run(100, GameType.values());
+		}
+		Path columns = dir.resolve("columns");
+		assertEquals(300, ColumnarExporter.export(file, columns));
+
+		// what the queries should find, worked out from the log and replays
+		long variantGames = 0;
+		long variantBooks = 0;
+		long moves = 0;
+		long[] results = new long[3];
+		long booksOfFinishedSeat1 = 0;
+		long seat1Asks = 0;
+		try (GameLogReader reader = new GameLogReader(file)) {
+			for (GameLogReader.Game game : (Iterable<GameLogReader.Game>) reader.stream(false)::iterator) {
+				if (game.getGameType() == GameType.VARIANT_2) {
+					variantGames++;
+					variantBooks += game.getBooks(0);
+				}
+				GoFishModel model = new GoFishModel(3, game.getGameType(), game.getSeed());
+				model.setHeadless(true);
+				for (int i = 0; i < game.getMoveCount(); i++) {
+					int seat = model.getCurrentTurn();
+					int moveResult = model.applyMove(game.getTargetSeat(i), game.getRank(i));
+					moves++;
+					results[moveResult]++;
+					if (seat == 1 && game.isFinished()) {
+						seat1Asks++;
+						booksOfFinishedSeat1 += game.getBooks(1);
+					}
+				}
+			}
+		}
+
+		try (ColumnStore store = new ColumnStore(columns)) {
+			// only the columns a query names are read
+			assertEquals(variantBooks / (double) variantGames, store.query()
+					.where(Column.GAME_TYPE, GameType.VARIANT_2.ordinal()).average(Column.BOOKS_0), 1e-9);
+			long read = Files.size(columns.resolve("game_type.col")) + Files.size(columns.resolve("books_0.col"));
+			assertEquals(read, store.getBytesMapped());
+			// every game has three players, one run
+			assertTrue(Files.size(columns.resolve("players.col")) < ColumnarExporter.HEADER_SIZE + 4);
+
+			assertEquals(300, store.query().where(Column.PLAYERS, 3).count());
+			assertEquals(0, store.query().where(Column.PLAYERS, 2).count());
+			assertEquals(moves, store.query().sum(Column.MOVE_COUNT));
+			assertTrue(Arrays.equals(results, store.query().countBy(Column.MOVE_RESULT)));
+			// a move query with game conditions skips the moves of the other games
+			assertEquals(seat1Asks, store.query().where(Column.FINISHED, 1).where(Column.MOVE_SEAT, 1).count());
+			assertEquals(booksOfFinishedSeat1, store.query().where(Column.MOVE_SEAT, 1).where(Column.FINISHED, 1)
+					.sum(Column.BOOKS_1));
+			assertEquals(0, store.query().where(Column.GAME_TYPE, 99).where(Column.MOVE_SEAT, 1).count());
+			assertThrows(IllegalArgumentException.class, () -> store.query().countBy(Column.SEED));
+		}
+	}
+	
+	private static int countBooks(GoFishModel model) {
+		int books = 0;
+		for (Player player : model.getPlayerDecks()) {
+			books += player.getBookedCards().size();
+		}
+		return books;
+	}
+
 }
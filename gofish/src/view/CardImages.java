@@ -0,0 +1,124 @@
+package view;
+
+import java.nio.IntBuffer;
+
+import goFish.Card;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritablePixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *		Decodes the 52 card faces and the card back once, already scaled to the size
+ *		they are drawn at, and packs them into one atlas image. Card faces are laid out
+ *		by ordinal, one column per rank and one row per suit, and the back is in the
+ *		last column. Every card on the table is an ImageView of the atlas with the
+ *		viewport of its card, so no PNG is ever decoded on the UI thread and all the
+ *		cards share one texture.
+ *
+ *		{@link #preload()} starts the decoding on a background thread. Views made before
+ *		it finishes are empty and fill in as soon as the atlas is published.
+ */
+final class CardImages {
+	static final int CARD_WIDTH = 70;
+	static final int CARD_HEIGHT = 102;
+	private static final int COLUMNS = 14;
+	private static final int ROWS = 4;
+	private static final int BACK = Card.DECK_SIZE;
+
+	private static final ReadOnlyObjectWrapper<Image> ATLAS = new ReadOnlyObjectWrapper<>();
+	private static final Rectangle2D[] VIEWPORTS = new Rectangle2D[Card.DECK_SIZE + 1];
+	private static Thread loader;
+
+	static {
+		for (int i = 0; i <= Card.DECK_SIZE; i++) {
+			VIEWPORTS[i] = new Rectangle2D(column(i) * CARD_WIDTH, row(i) * CARD_HEIGHT, CARD_WIDTH, CARD_HEIGHT);
+		}
+	}
+
+	private CardImages() {
+	}
+
+	/**
+	 * Starts building the atlas on a background thread. Only the first call does anything.
+	 */
+	static synchronized void preload() {
+		if (loader != null) return;
+		loader = new Thread(() -> {
+			Image atlas = buildAtlas();
+			Platform.runLater(() -> ATLAS.set(atlas));
+		}, "card-images");
+		loader.setDaemon(true);
+		loader.start();
+	}
+
+	/**
+	 * Returns where a card face is in the atlas
+	 * @param card
+	 * 		the card
+	 * @return
+	 * 		the viewport of the face
+	 */
+	static Rectangle2D face(Card card) {
+		return VIEWPORTS[card.ordinal()];
+	}
+
+	/**
+	 * @return
+	 * 		the viewport of the card back
+	 */
+	static Rectangle2D back() {
+		return VIEWPORTS[BACK];
+	}
+
+	/**
+	 * Makes a view of one card of the atlas. The view follows the atlas, so it can be
+	 * made before the atlas is done loading. Must be called on the UI thread.
+	 * @param viewport
+	 * 		from {@link #face(Card)} or {@link #back()}
+	 * @return
+	 * 		the view
+	 */
+	static ImageView makeView(Rectangle2D viewport) {
+		preload();
+		ImageView view = new ImageView();
+		view.imageProperty().bind(ATLAS);
+		view.setViewport(viewport);
+		return view;
+	}
+
+	/**
+	 * Decodes every card at its drawn size and copies it into its cell of the atlas
+	 */
+	private static Image buildAtlas() {
+		WritableImage atlas = new WritableImage(COLUMNS * CARD_WIDTH, ROWS * CARD_HEIGHT);
+		int[] pixels = new int[CARD_WIDTH * CARD_HEIGHT];
+		WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
+		for (int i = 0; i <= Card.DECK_SIZE; i++) {
+			String name = i == BACK ? "back" : Card.ofOrdinal(i).getId();
+			Image image = new Image(CardImages.class.getResource("/images/" + name + ".png").toString(),
+					CARD_WIDTH, CARD_HEIGHT, false, true);
+			if (image.isError()) {
+				image.getException().printStackTrace();
+				continue;
+			}
+			image.getPixelReader().getPixels(0, 0, CARD_WIDTH, CARD_HEIGHT, format, pixels, 0, CARD_WIDTH);
+			atlas.getPixelWriter().setPixels(column(i) * CARD_WIDTH, row(i) * CARD_HEIGHT, CARD_WIDTH, CARD_HEIGHT,
+					format, pixels, 0, CARD_WIDTH);
+		}
+		return atlas;
+	}
+
+	private static int column(int index) {
+		return index == BACK ? COLUMNS - 1 : index / ROWS;
+	}
+
+	private static int row(int index) {
+		return index == BACK ? 0 : index % ROWS;
+	}
+}
@@ -1,16 +1,13 @@
 package view;
 
-import java.net.URL;
-import java.util.List;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Optional;
 
+import bot.MemoryBot;
 import controller.GoFishController;
-import goFish.Card;
 import goFish.GameType;
-import goFish.Player;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -27,12 +24,8 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
-import javafx.scene.control.ScrollPane;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
-import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.Border;
@@ -41,16 +34,18 @@ import javafx.scene.layout.BorderStroke;
 import javafx.scene.layout.BorderStrokeStyle;
 import javafx.scene.layout.BorderWidths;
 import javafx.scene.layout.CornerRadii;
-import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
-import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontPosture;
 import javafx.stage.Stage;
+import metrics.Metrics;
+import metrics.Metrics.Timer;
+import metrics.ViewRebuildEvent;
 import model.GoFishModel;
+import model.ModelChange;
 
 /**
  * @author Jackson, Davlat, Matthew, Zach
@@ -70,15 +65,25 @@ public class GoFishGUIView extends Application implements Observer{
 	private Scene turnBuffer;
 	private BorderPane turnPane;
 	private GridPane tablePane, menuPane, bookPane;
-	private FlowPane currentPlayerPane;
+	private TableLayer layer;
 	private HBox playersSetting;
 	private HBox ruleSetting;
+	private HBox botSetting;
+	private boolean botOpponents;
 	private int numOfPlayers = 4;
 	private final int WINDOW_WIDTH = 1050;
 	private final int WINDOW_HEIGHT = 800;
 	private int lastPlayer = 0;
 	private GameType currRuleset = GameType.BASIC;
 	
+	/**
+	 * Starts decoding the card images in the background before the window is shown
+	 */
+	@Override
+	public void init() {
+		CardImages.preload();
+	}
+	
 	/**
 	 * Initialize the GUI components
 	 * @param stage The stage element of the application
@@ -103,6 +108,26 @@ public class GoFishGUIView extends Application implements Observer{
 		table = new Scene(tablePane,WINDOW_WIDTH,WINDOW_HEIGHT);
 		table.getStylesheets().add(getClass().getResource("view.css").toExternalForm());
 		
+		// the card, seat and indicator nodes are made once and kept for the whole run
+		layer = new TableLayer(tablePane, bookPane, id -> selectedCard = id, seat -> {
+			if(selectedCard!=null) {
+				GoFishModel mod = controller.getModel();
+				controller.handleUserMove(mod.getPlayerDecks()[seat], selectedCard);
+				controller.playBots();
+			}
+		});
+		
+		// set up the save button in the top right corner
+		Button saveButton = new Button("Save Game");
+		GridPane.setHalignment(saveButton, HPos.CENTER);
+		saveButton.getStyleClass().add("saveButton");
+		saveButton.setOnAction(new EventHandler<ActionEvent>() {
+			public void handle(ActionEvent a) {
+				controller.getModel().saveModel();
+			}
+		});
+		tablePane.add(saveButton, 2, 0);
+		
 		// input on key "b" allows for player to switch between the book and table panes
 		table.setOnKeyPressed(new EventHandler<KeyEvent>(){
 			@Override
@@ -148,350 +173,50 @@ public class GoFishGUIView extends Application implements Observer{
 	}
 	
 	/**
-	 * This sets up the visual representation of the cards by creating labels for them. 
-	 * @param card
-	 * 		The card that we are instantiating 
-	 * @param playerHand
-	 * 		boolean that indicates if the card we are making is in the player hand 
-	 * @param onTable
-	 * 		boolean that indicates if the card we are making is displayed on the table or book table
-	 * @return
-	 * 		returns a label of the card. 
+	 * Called when the window is closed. Writes any moves that have not been saved yet.
 	 */
-	private Label makeCardView(Card card,boolean playerHand, boolean onTable) {
-		Label ret;
-		
-		// if card is null then this is a placeholder card. Else get id from card and place in label
-		if(card==null) {
-			ret = new Label("");
-			ret.getStyleClass().add("placeholder");
-		} else if((onTable&&playerHand)||(!onTable)){
-			ret = new Label(card.getId());
-			ret.getStyleClass().add("card"+card.getId());
-		} else if((onTable && !playerHand)){
-			ret = new Label("");
-			ret.setText("");
-			ret.getStyleClass().add("cardBack");
-			ret.getStyleClass().add("card"+card.getId());
-		} else {
-			ret = new Label("");
-		}
-		ret.getStyleClass().add("card");
-		ret.applyCss();
-		
-		// if this is a playerhand and it's on the table, then set up the input event that 
-		// allows for the card to be selected by player and set selectedcard to the card id. 
-		if(playerHand && onTable) {
-			ret.setOnMouseClicked(new EventHandler<MouseEvent>() {
-				public void handle(MouseEvent me) {
-					selectedCard = ret.getText();
-					for(int i=0;i<currentPlayerPane.getChildren().size();i++) {
-						currentPlayerPane.getChildren().get(i).getStyleClass().remove("selected");
-					}
-					ret.getStyleClass().add("selected");
-				}
-			});
-		}
-		return ret;
-	}
-	
-	/**
-	 * This method sets up everything about visual representation of the "playerzones"
-	 *  or 4 panes where players are placed.
-	 * 
-	 * @param mod
-	 * 		the GoFishModel that we are basing this view off of.
-	 */
-	private void setPlayerZones(GoFishModel mod) {
-		// First get number of players and then make the flowpane for the bottom / current player. 
-		int numPlayers = mod.getPlayerDecks().length;
-		FlowPane tablePlayerPane = (FlowPane)makePlayerZone(true,mod.getPlayerDecks()[mod.getCurrentTurn()],true);
-		tablePlayerPane.getStyleClass().add("bottomPane");
-		
-		// iterate through the cards of the current player, make labels of them, and add them to the flowpane
-		// if they have no cards then make it empty
-		List<Card> cards = mod.getPlayerDecks()[mod.getCurrentTurn()].getHand();
-		for(int j=0;j<cards.size();j++) {
-			tablePlayerPane.getChildren().add(makeCardView(cards.get(j),true,true));
-		}
-		if(cards.size()==0) {
-			for(int i=0;i<4;i++) {
-				tablePlayerPane.getChildren().add(makeCardView(null,true,true));
-			}
-		}
-		
-		ScrollPane playerScroll = new ScrollPane();
-		playerScroll.getStyleClass().add("scrollPane");
-		playerScroll.setContent(tablePlayerPane);
-		tablePane.add(playerScroll,1,2);//bottom
-		currentPlayerPane = tablePlayerPane; // set currPlayerPane so we can set up click inputs for cards
-		
-		// now set up the books for the book view for the bottom pane
-		FlowPane bookPlayerPane = (FlowPane)makePlayerZone(true,mod.getPlayerDecks()[mod.getCurrentTurn()],false);
-		bookPlayerPane.getStyleClass().add("bottomPane");
-		cards = mod.getPlayerDecks()[mod.getCurrentTurn()].getBookedCards();
-		for(int j=0;j<cards.size();j++) {
-			bookPlayerPane.getChildren().add(makeCardView(cards.get(j),true,false));
-		}
-		if(cards.size()==0) {
-			for(int i=0;i<4;i++) {
-				bookPlayerPane.getChildren().add(makeCardView(null,true,false));
-			}
-		}
-		ScrollPane playerBookScroll = new ScrollPane();
-		playerBookScroll.getStyleClass().add("scrollPaneBook");
-		playerBookScroll.setContent(bookPlayerPane);
-		bookPane.add(playerBookScroll, 1, 2);//bottom
-		
-		// these next two big for loops set up the views for the other players. 
-		// this first for loop goes through index of the current player to the index of the last player 
-		// and sets up their views 
-		int i;
-		for(i=mod.getCurrentTurn()+1;i<4;i++) {
-			int diff = i-mod.getCurrentTurn(); // difference between index and current player. 
-			// check to see if index is greater than number of players. If it is then make their pane blank
-			// else then make their pane accordingly 
-			ScrollPane opponentScroll = new ScrollPane();
-			opponentScroll.getStyleClass().add("scrollPane");
-			ScrollPane opponentScrollBook = new ScrollPane();
-			opponentScrollBook.getStyleClass().add("scrollPaneBook");
-			if (i >= numPlayers) {
-				tablePlayerPane = (FlowPane)makePlayerZone(false,mod.getPlayerDecks()[0], false);
-				bookPlayerPane = (FlowPane)makePlayerZone(false,mod.getPlayerDecks()[0],false);
-			}
-			else { 
-				tablePlayerPane = (FlowPane)makePlayerZone(false,mod.getPlayerDecks()[i],true);
-				bookPlayerPane = (FlowPane)makePlayerZone(false,mod.getPlayerDecks()[i],false);
-			}
-			// this switch statement uses the difference between the current index and current turn index 
-			// to decide which pane to set the player flow pane in. 
-			switch(diff) {
-			case 1:
-				//tablePlayerPane.getStyleClass().add("leftPane");
-				opponentScroll.setContent(tablePlayerPane);
-				tablePane.add(opponentScroll,0,1);//left
-				//bookPlayerPane.getStyleClass().add("leftPane");
-				opponentScrollBook.setContent(bookPlayerPane);
-				bookPane.add(opponentScrollBook, 0, 1);//left
-				break;
-			case 2:
-				opponentScroll.setContent(tablePlayerPane);
-				//tablePlayerPane.getStyleClass().add("topPane");
-				tablePane.add(opponentScroll,1,0);//top
-				//bookPlayerPane.getStyleClass().add("topPane");
-				opponentScrollBook.setContent(bookPlayerPane);
-				bookPane.add(opponentScrollBook, 1, 0);//top
-				break;
-			case 3:
-				opponentScroll.setContent(tablePlayerPane);
-				//tablePlayerPane.getStyleClass().add("rightPane");
-				tablePane.add(opponentScroll,2,1);//right
-				//bookPlayerPane.getStyleClass().add("rightPane");
-				opponentScrollBook.setContent(bookPlayerPane);
-				bookPane.add(opponentScrollBook, 2, 1);//right
-				break;
-			}
-			// this places the labels of the cards into the pane. If the index is greater 
-			// than or equal to the numPlayers, then it sets blank cards in the pane
-			if(i<numPlayers) {
-				cards = mod.getPlayerDecks()[i].getHand();
-				for(int j=0;j<cards.size();j++) {
-					tablePlayerPane.getChildren().add(makeCardView(cards.get(j),false,true));
-				}
-				if(cards.size()==0) {
-					for(int k=0;k<4;k++) {
-						tablePlayerPane.getChildren().add(makeCardView(null,false,true));
-					}
-				}
-				cards = mod.getPlayerDecks()[i].getBookedCards();
-				for(int j=0;j<cards.size();j++) {
-					bookPlayerPane.getChildren().add(makeCardView(cards.get(j),false,false));
-				}
-				if(cards.size()==0) {
-					for(int k=0;k<4;k++) {
-						bookPlayerPane.getChildren().add(makeCardView(null,false,false));
-					}
-				}
-			}
-			else {
-				for (int k = 0; k<4; k++) {
-					tablePlayerPane.getChildren().add(makeCardView(null, false, true));
-				}
-			}
-		}
-		// this for loop sets the panes for the players whose indices are less than that of the current
-		// player's. 
-		for(i=0;i<mod.getCurrentTurn();i++) {
-			int diff = i+4-mod.getCurrentTurn();
-			tablePlayerPane = (FlowPane)makePlayerZone(false,mod.getPlayerDecks()[i],true);
-			bookPlayerPane = (FlowPane)makePlayerZone(false,mod.getPlayerDecks()[i],false);
-			ScrollPane opponentScroll = new ScrollPane();
-			opponentScroll.getStyleClass().add("scrollPane");
-			ScrollPane opponentScrollBook = new ScrollPane();
-			opponentScrollBook.getStyleClass().add("scrollPaneBook");
-			
-			switch(diff) {
-			case 1:
-				opponentScroll.setContent(tablePlayerPane);
-				//tablePlayerPane.getStyleClass().add("leftPane");
-				tablePane.add(opponentScroll,0,1);//left
-				//bookPlayerPane.getStyleClass().add("leftPane");
-				opponentScrollBook.setContent(bookPlayerPane);
-				bookPane.add(opponentScrollBook, 0, 1);//left
-				break;
-			case 2:
-				opponentScroll.setContent(tablePlayerPane);
-				//tablePlayerPane.getStyleClass().add("topPane");
-				tablePane.add(opponentScroll,1,0);//top
-				//bookPlayerPane.getStyleClass().add("topPane");
-				opponentScrollBook.setContent(bookPlayerPane);
-				bookPane.add(opponentScrollBook, 1, 0);//top
-				break;
-			case 3:
-				opponentScroll.setContent(tablePlayerPane);
-				//tablePlayerPane.getStyleClass().add("rightPane");
-				tablePane.add(opponentScroll,2,1);//right
-				//bookPlayerPane.getStyleClass().add("rightPane");
-				opponentScrollBook.setContent(bookPlayerPane);
-				bookPane.add(opponentScrollBook, 2, 1);//right
-				break;
-			}
-			cards = mod.getPlayerDecks()[i].getHand();
-			for(int j=0;j<cards.size();j++) {
-				tablePlayerPane.getChildren().add(makeCardView(cards.get(j),false,true));
-			}
-			if(cards.size()==0) {
-				for(int k=0;k<4;k++) {
-					tablePlayerPane.getChildren().add(makeCardView(null,false,true));
-				}
-			}
-			cards = mod.getPlayerDecks()[i].getBookedCards();
-			for(int j=0;j<cards.size();j++) {
-				bookPlayerPane.getChildren().add(makeCardView(cards.get(j),false,false));
-			}
-			if(cards.size()==0) {
-				for(int k=0;k<4;k++) {
-					bookPlayerPane.getChildren().add(makeCardView(null,false,false));
-				}
-			}
-		}
+	@Override
+	public void stop() {
+		controller.flushSave();
 	}
 	
-	/**
-	 * Set up a player indicator on the table view to label each player on the board
-	 * @param currentTurn The index of the player whose turn it is
-	 * @param numPlayers The total number of players in the game
-	 */
-	private void setPlayerIndicator(int currentTurn, int numPlayers) {
-		BorderPane ind = new BorderPane();
-		BorderPane bInd = new BorderPane();
-		Label playerLabel = new Label("Player "+ (currentTurn + 1));
-		Label bookLabel = new Label("Player "+(currentTurn+1));
-		BorderPane.setAlignment(bookLabel,Pos.CENTER);
-		BorderPane.setAlignment(playerLabel, Pos.CENTER);
-		playerLabel.getStyleClass().add("playerLabel");
-		bookLabel.getStyleClass().add("bookLabel");
-		bInd.setBottom(bookLabel);
-		ind.setBottom(playerLabel);
-		
-		// this works the same as the two big for loops in the setPlayerZones method
-		for(int i=currentTurn+1;i<4;i++) {
-			if(i<numPlayers) {
-				playerLabel = new Label("Player "+ (i + 1));
-				bookLabel = new Label("Player "+(i+1));
-			} else {
-				playerLabel = new Label("");
-				bookLabel = new Label("");
-			}
-			BorderPane.setAlignment(playerLabel, Pos.CENTER);
-			playerLabel.getStyleClass().add("playerLabel");
-			BorderPane.setAlignment(bookLabel, Pos.CENTER);
-			bookLabel.getStyleClass().add("bookLabel");
-			int diff = i-currentTurn;
-			switch(diff) {
-			case 1:
-				ind.setLeft(playerLabel);
-				bInd.setLeft(bookLabel);
-				break;
-			case 2:
-				ind.setTop(playerLabel);
-				bInd.setTop(bookLabel);
-				break;
-			case 3:
-				ind.setRight(playerLabel);
-				bInd.setRight(bookLabel);
-				break;
-			}
-		}
-		for(int i=0;i<currentTurn;i++) {
-			playerLabel = new Label("Player "+(i+1));
-			BorderPane.setAlignment(playerLabel, Pos.CENTER);
-			playerLabel.getStyleClass().add("playerLabel");
-			bookLabel = new Label("Player "+(i+1));
-			BorderPane.setAlignment(bookLabel, Pos.CENTER);
-			bookLabel.getStyleClass().add("bookLabel");
-			int diff = i+4-currentTurn;
-			switch(diff) {
-			case 1:
-				ind.setLeft(playerLabel);
-				bInd.setLeft(bookLabel);
-				break;
-			case 2:
-				ind.setTop(playerLabel);
-				bInd.setTop(bookLabel);
-				break;
-			case 3:
-				ind.setRight(playerLabel);
-				bInd.setRight(bookLabel);
-				break;
-			}
-		}
-		bookPane.add(bInd, 1, 1);
-		tablePane.add(ind, 1, 1);
-		
-  }
-  /**
-	 * Sets up an indicator to show how many cards are remaining in the deck
-	 * @param numCards The number of cards remaining in the deck
-	 */
-	private void setDeckIndicator(int numCards) {
-		Label deck = new Label(""+numCards);
-		deck.getStyleClass().add("deckIndicator");
-		deck.setAlignment(Pos.CENTER);
-		URL resource = GoFishGUIView.class.getResource("/images/back.png");
-		Image img = new Image(resource.toString());
-		ImageView view = new ImageView(img);
-		view.setFitHeight(100);
-		view.setFitWidth(65);
-		deck.setGraphic(view);
-		GridPane.setHalignment(deck, HPos.CENTER);
-		tablePane.add(deck,2,2);
-	}
-
 	/**
 	 * Update the table view with appropriate player zones from the model
 	 * @param o The model object being observed
-	 * @param arg An object used to pass data to observers - Not used
+	 * @param arg The ModelChange of the move that was made, or null to show the whole model
 	 */
 	@Override
 	public void update(Observable o, Object arg) {
+		long start = Metrics.start(Timer.VIEW_UPDATE);
 		GoFishModel mod = (GoFishModel) o;
 		
 		// First check to see if the game is over and alert if true. 
 		if(mod.checkGameOver()) {
 			ButtonType close = new ButtonType("Close");
-			Alert al = new Alert(AlertType.INFORMATION, "Player "+(mod.getWinningPlayer()+1)+" has won!\nGame over." , close );
+			Alert al = new Alert(AlertType.INFORMATION, winnerText(mod.getWinners())+"\nGame over." , close );
 			Optional<ButtonType> result = al.showAndWait();
 			if (result.isPresent() && result.get() == close) {
-				Platform.exit();
-				System.exit(0);
+				// after this update returns, so nothing the move was holding is held
+				Platform.runLater(() -> {
+					controller.flushSave();
+					Platform.exit();
+					System.exit(0);
+				});
 			}
 		}
 		
-		// clear the panes so they can be changed. 
-		turnPane.getChildren().clear();
-		tablePane.getChildren().clear();
-		bookPane.getChildren().clear();
+		// only the nodes of what changed are touched. A null arg means a new or loaded game
+		if (arg instanceof ModelChange) layer.apply(mod, (ModelChange) arg);
+		else {
+			ViewRebuildEvent event = new ViewRebuildEvent();
+			event.begin();
+			layer.show(mod);
+			if (event.shouldCommit()) {
+				event.players = mod.getPlayerDecks().length;
+				event.nodes = layer.countNodes();
+				event.commit();
+			}
+		}
 		
 		// set up the buffer. The if prevents the buffer from displaying when you first start 
 		if(lastPlayer!=mod.getCurrentTurn()) {
@@ -502,22 +227,7 @@ public class GoFishGUIView extends Application implements Observer{
 			turnPane.setCenter(bufferLabel);
 			mainStage.setScene(turnBuffer);
 		}
-		
-		// then set all of the player zones, the player indicators, and the deck indicator
-		setPlayerZones(mod);
-		setPlayerIndicator(mod.getCurrentTurn(),mod.getPlayerDecks().length);
-		setDeckIndicator(mod.getDeck().size());
-		
-		// set up the save button in the top right corner
-		Button saveButton = new Button("Save Game");
-		GridPane.setHalignment(saveButton, HPos.CENTER);
-		saveButton.getStyleClass().add("saveButton");
-		saveButton.setOnAction(new EventHandler<ActionEvent>() {
-			public void handle(ActionEvent a) {
-				mod.saveModel();
-			}
-		});
-		tablePane.add(saveButton, 2, 0);
+		Metrics.stop(Timer.VIEW_UPDATE, start);
 	}
 	
 	/**
@@ -544,9 +254,12 @@ public class GoFishGUIView extends Application implements Observer{
 		Button loadGame = new Button("Load Game");
 		loadGame.setOnAction((event)->{
 			GoFishModel mod = controller.loadModel();
+			seatBots(mod);
 			mod.addObserver(this);
 			update(mod, null);
 			mainStage.setScene(table);
+			// the save may have been made on a bot's turn
+			controller.playBots();
 			
 		});
 		loadGame.getStyleClass().add("startLoadButton");
@@ -567,6 +280,7 @@ public class GoFishGUIView extends Application implements Observer{
 				playersSetting.getChildren().get(i).getStyleClass().remove("selected");
 			}
 			twoP.getStyleClass().add("selected");
+			seatBots(mod);
 			mod.addObserver(this);
 			controller.setModel(mod);
 			update(mod, null);
@@ -578,6 +292,7 @@ public class GoFishGUIView extends Application implements Observer{
 				playersSetting.getChildren().get(i).getStyleClass().remove("selected");
 			}
 			threeP.getStyleClass().add("selected");
+			seatBots(mod);
 			mod.addObserver(this);
 			controller.setModel(mod);
 			update(mod, null);
@@ -589,6 +304,7 @@ public class GoFishGUIView extends Application implements Observer{
 				playersSetting.getChildren().get(i).getStyleClass().remove("selected");
 			}
 			fourP.getStyleClass().add("selected");
+			seatBots(mod);
 			mod.addObserver(this);
 			controller.setModel(mod);
 			update(mod, null);
@@ -613,6 +329,7 @@ public class GoFishGUIView extends Application implements Observer{
 			r1.getStyleClass().add("selected");
 			currRuleset = GameType.BASIC;
 			GoFishModel mod = new GoFishModel(numOfPlayers, currRuleset);
+			seatBots(mod);
 			mod.addObserver(this);
 			controller.setModel(mod);
 			update(mod, null);
@@ -624,6 +341,7 @@ public class GoFishGUIView extends Application implements Observer{
 			r2.getStyleClass().add("selected");
 			currRuleset = GameType.VARIANT_1;
 			GoFishModel mod = new GoFishModel(numOfPlayers, currRuleset);
+			seatBots(mod);
 			mod.addObserver(this);
 			controller.setModel(mod);
 			update(mod, null);
@@ -635,39 +353,72 @@ public class GoFishGUIView extends Application implements Observer{
 			r3.getStyleClass().add("selected");
 			currRuleset = GameType.VARIANT_2;
 			GoFishModel mod = new GoFishModel(numOfPlayers, currRuleset);
+			seatBots(mod);
 			mod.addObserver(this);
 			controller.setModel(mod);
 			update(mod, null);
 		});		
+		// everyone but player 1 can be played by a bot
+		botSetting = new HBox();
+		botSetting.setAlignment(Pos.CENTER);
+		botSetting.setSpacing(10);
+		Button humans = new Button("Human Opponents");
+		humans.getStyleClass().addAll("menuButton", "selected");
+		Button bots = new Button("Bot Opponents");
+		bots.getStyleClass().add("menuButton");
+		humans.setOnAction((event) -> {
+			bots.getStyleClass().remove("selected");
+			humans.getStyleClass().add("selected");
+			botOpponents = false;
+			seatBots(controller.getModel());
+		});
+		bots.setOnAction((event) -> {
+			humans.getStyleClass().remove("selected");
+			bots.getStyleClass().add("selected");
+			botOpponents = true;
+			seatBots(controller.getModel());
+		});
+		botSetting.getChildren().add(humans);
+		botSetting.getChildren().add(bots);
+		
 		toReturn.add(title, 0, 0);
 		toReturn.add(newGame, 0, 1);
 		toReturn.add(loadGame, 0, 2);
 		toReturn.add(playersSetting, 0, 3);
 		toReturn.add(ruleSetting, 0, 4);
+		toReturn.add(botSetting, 0, 5);
 		
 		return toReturn;
 	}
 	
 	/**
-	 * Create a Pane object representing a player's hand for the table or book views
-	 * @param myTurn If it is currently this player's turn
-	 * @param player The player object being represented
-	 * @param isTable True to make a pane for the table view, false for the books view
-	 * @return A Pane object for the Table or Book views
+	 * Hands every seat but the first to a bot, or back to people, depending on the menu setting
+	 * @param mod
+	 * 		the game
 	 */
-	private Pane makePlayerZone(boolean myTurn,Player player,boolean isTable) {
-		Pane ret = new FlowPane();
-		ret.getStyleClass().add("playerZone");
-		if(!myTurn && isTable) {
-			ret.setOnMouseReleased(new EventHandler<MouseEvent>() {
-				public void handle(MouseEvent me) {
-					if(selectedCard!=null) {
-						controller.handleUserMove(player, selectedCard);
-					}
-				}
-			});
+	private void seatBots(GoFishModel mod) {
+		for (int i = 1; i < mod.getPlayerDecks().length; i++) {
+			mod.setBot(i, botOpponents ? new MemoryBot() : null);
+		}
+	}
+	
+	/**
+	 * Says who won, or who tied
+	 * @param winners
+	 * 		mask of the players with the most books
+	 * @return
+	 * 		the message
+	 */
+	private static String winnerText(int winners) {
+		if (Integer.bitCount(winners) == 1) {
+			return "Player "+(Integer.numberOfTrailingZeros(winners)+1)+" has won!";
+		}
+		StringBuilder text = new StringBuilder("Players ");
+		for (int seat = 0; winners != 0; seat++, winners >>>= 1) {
+			if ((winners & 1) == 0) continue;
+			text.append(seat + 1).append(winners == 1 ? " tied!" : Integer.bitCount(winners) == 2 ? " and " : ", ");
 		}
-		return ret;
+		return text.toString();
 	}
 	
 	/**
@@ -675,6 +426,7 @@ public class GoFishGUIView extends Application implements Observer{
 	 * @param args Command line arguments - Not used
 	 */
 	public static void main(String[] args) {
+		Metrics.install();
 		launch();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,357 @@
+package view;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import goFish.Card;
+import javafx.geometry.HPos;
+import javafx.geometry.Pos;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.GridPane;
+import model.GoFishModel;
+import model.ModelChange;
+
+/**
+ * @author Jackson, Davlat, Matthew, Zach
+ *		Keeps the nodes of the table and book views alive between moves. Every card has
+ *		one label for the hands and one for the books, every seat has one hand pane and
+ *		one book pane, and each of the four places at the table has one scroll pane.
+ *		After a move only the cards that changed are added to or removed from the panes,
+ *		and when the turn passes the seat panes are moved to their new places instead
+ *		of being built again.
+ */
+class TableLayer {
+	/** Grid cells of the four places at the table: bottom, left, top, right */
+	private static final int[] COLUMNS = {1, 0, 1, 2};
+	private static final int[] ROWS = {2, 1, 0, 1};
+	private static final int SEATS = 4;
+	private static final int PLACEHOLDERS = 4;
+
+	private final Consumer<String> onSelect;
+	private final IntConsumer onAsk;
+	private final Label[] handCards = new Label[Card.DECK_SIZE];
+	private final Label[] bookCards = new Label[Card.DECK_SIZE];
+	private final FlowPane[] handPanes = new FlowPane[SEATS];
+	private final FlowPane[] bookPanes = new FlowPane[SEATS];
+	private final Label[][] placeholders = new Label[SEATS][PLACEHOLDERS];
+	private final Label[][] bookPlaceholders = new Label[SEATS][PLACEHOLDERS];
+	private final long[] shownHands = new long[SEATS];
+	private final int[] shownBooks = new int[SEATS];
+	private final boolean[] shownEmpty = new boolean[SEATS];
+	private final ScrollPane[] tableScrolls = new ScrollPane[SEATS];
+	private final ScrollPane[] bookScrolls = new ScrollPane[SEATS];
+	private final Label[] playerLabels = new Label[SEATS];
+	private final Label[] bookLabels = new Label[SEATS];
+	private final Label deckIndicator;
+	private int numPlayers;
+	private int currentTurn = -1;
+
+	/**
+	 * Builds the nodes and places them in the grids. Nothing is shown until
+	 * {@link #show(GoFishModel)} is called.
+	 * @param tablePane
+	 * 		the grid of the table view
+	 * @param bookPane
+	 * 		the grid of the book view
+	 * @param onSelect
+	 * 		called with the card ID when the current player clicks one of their cards
+	 * @param onAsk
+	 * 		called with the seat of the player the current player dropped a card on
+	 */
+	TableLayer(GridPane tablePane, GridPane bookPane, Consumer<String> onSelect, IntConsumer onAsk) {
+		this.onSelect = onSelect;
+		this.onAsk = onAsk;
+		for (int seat = 0; seat < SEATS; seat++) {
+			handPanes[seat] = makeZone(seat, true);
+			bookPanes[seat] = makeZone(seat, false);
+			for (int i = 0; i < PLACEHOLDERS; i++) {
+				placeholders[seat][i] = makePlaceholder();
+				bookPlaceholders[seat][i] = makePlaceholder();
+			}
+		}
+		BorderPane ind = new BorderPane();
+		BorderPane bInd = new BorderPane();
+		for (int place = 0; place < SEATS; place++) {
+			tableScrolls[place] = new ScrollPane();
+			tableScrolls[place].getStyleClass().add("scrollPane");
+			tablePane.add(tableScrolls[place], COLUMNS[place], ROWS[place]);
+			bookScrolls[place] = new ScrollPane();
+			bookScrolls[place].getStyleClass().add("scrollPaneBook");
+			bookPane.add(bookScrolls[place], COLUMNS[place], ROWS[place]);
+
+			playerLabels[place] = new Label("");
+			playerLabels[place].getStyleClass().add("playerLabel");
+			BorderPane.setAlignment(playerLabels[place], Pos.CENTER);
+			bookLabels[place] = new Label("");
+			bookLabels[place].getStyleClass().add("bookLabel");
+			BorderPane.setAlignment(bookLabels[place], Pos.CENTER);
+		}
+		ind.setBottom(playerLabels[0]);
+		ind.setLeft(playerLabels[1]);
+		ind.setTop(playerLabels[2]);
+		ind.setRight(playerLabels[3]);
+		bInd.setBottom(bookLabels[0]);
+		bInd.setLeft(bookLabels[1]);
+		bInd.setTop(bookLabels[2]);
+		bInd.setRight(bookLabels[3]);
+		tablePane.add(ind, 1, 1);
+		bookPane.add(bInd, 1, 1);
+
+		deckIndicator = new Label("");
+		deckIndicator.getStyleClass().add("deckIndicator");
+		deckIndicator.setAlignment(Pos.CENTER);
+		ImageView view = CardImages.makeView(CardImages.back());
+		view.setFitHeight(100);
+		view.setFitWidth(65);
+		deckIndicator.setGraphic(view);
+		GridPane.setHalignment(deckIndicator, HPos.CENTER);
+		tablePane.add(deckIndicator, 2, 2);
+	}
+
+	/**
+	 * Shows a whole model, for a new or loaded game
+	 * @param mod
+	 * 		the model to show
+	 */
+	void show(GoFishModel mod) {
+		numPlayers = mod.getPlayerDecks().length;
+		for (int seat = 0; seat < SEATS; seat++) {
+			handPanes[seat].getChildren().clear();
+			bookPanes[seat].getChildren().clear();
+			handPanes[seat].getStyleClass().remove("bottomPane");
+			bookPanes[seat].getStyleClass().remove("bottomPane");
+			shownHands[seat] = 0;
+			shownBooks[seat] = 0;
+			shownEmpty[seat] = false;
+		}
+		currentTurn = -1;
+		for (int seat = 0; seat < SEATS; seat++) {
+			syncHand(mod, seat);
+			syncBooks(mod, seat);
+		}
+		setTurn(mod.getCurrentTurn());
+		deckIndicator.setText("" + mod.getDeck().size());
+	}
+
+	/**
+	 * Counts the cards and placeholders in the hand and book panes
+	 * @return
+	 * 		number of nodes shown in the panes
+	 */
+	int countNodes() {
+		int nodes = 0;
+		for (int seat = 0; seat < SEATS; seat++) {
+			nodes += handPanes[seat].getChildren().size() + bookPanes[seat].getChildren().size();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Applies the changes of one move
+	 * @param mod
+	 * 		the model after the move
+	 * @param change
+	 * 		what the move changed
+	 */
+	void apply(GoFishModel mod, ModelChange change) {
+		if (mod.getPlayerDecks().length != numPlayers) {
+			show(mod);
+			return;
+		}
+		// take cards out first, so a card moving between hands is never in two panes
+		for (int seat = 0; seat < numPlayers; seat++) {
+			if (change.isHandChanged(seat)) removeCards(seat, change.getCardsRemoved(seat));
+		}
+		for (int seat = 0; seat < numPlayers; seat++) {
+			if (change.isHandChanged(seat)) syncHand(mod, seat);
+			if (change.getBooksMade(seat) != 0) syncBooks(mod, seat);
+		}
+		if (change.getCurrentTurn() != currentTurn) setTurn(change.getCurrentTurn());
+		else clearSelection();
+		if (change.getCardsDrawn() != 0) deckIndicator.setText("" + mod.getDeck().size());
+	}
+
+	/**
+	 * Makes the hand pane of a seat match its hand in the model
+	 */
+	private void syncHand(GoFishModel mod, int seat) {
+		FlowPane pane = handPanes[seat];
+		long hand = seat < numPlayers ? mod.getPlayerDecks()[seat].getHandMask() : 0;
+		removeCards(seat, shownHands[seat] & ~hand);
+		if (hand == 0) {
+			if (!shownEmpty[seat]) pane.getChildren().setAll(placeholders[seat]);
+			shownEmpty[seat] = true;
+			return;
+		}
+		if (shownEmpty[seat]) {
+			pane.getChildren().clear();
+			shownEmpty[seat] = false;
+		}
+		boolean faceUp = seat == currentTurn;
+		for (long added = hand & ~shownHands[seat]; added != 0; added &= added - 1) {
+			int ordinal = Long.numberOfTrailingZeros(added);
+			Label card = handCard(ordinal);
+			setFaceUp(card, ordinal, faceUp);
+			// the hand is shown in ordinal order, the same order as Player.getHand()
+			pane.getChildren().add(Long.bitCount(shownHands[seat] & ((1L << ordinal) - 1)), card);
+			shownHands[seat] |= 1L << ordinal;
+		}
+	}
+
+	/**
+	 * Takes cards out of the hand pane of a seat
+	 */
+	private void removeCards(int seat, long cards) {
+		for (long removed = cards & shownHands[seat]; removed != 0; removed &= removed - 1) {
+			int ordinal = Long.numberOfTrailingZeros(removed);
+			handPanes[seat].getChildren().remove(handCards[ordinal]);
+			handCards[ordinal].getStyleClass().remove("selected");
+		}
+		shownHands[seat] &= ~cards;
+	}
+
+	/**
+	 * Adds the books a seat made since they were last shown. Books are never taken away
+	 * during a game.
+	 */
+	private void syncBooks(GoFishModel mod, int seat) {
+		if (seat >= numPlayers) return;
+		FlowPane pane = bookPanes[seat];
+		List<Card> books = mod.getPlayerDecks()[seat].getBookedCards();
+		if (books.isEmpty()) {
+			pane.getChildren().setAll(bookPlaceholders[seat]);
+			return;
+		}
+		if (shownBooks[seat] == 0) pane.getChildren().clear();
+		for (int i = shownBooks[seat]; i < books.size(); i++) {
+			pane.getChildren().add(bookCard(books.get(i).ordinal()));
+		}
+		shownBooks[seat] = books.size();
+	}
+
+	/**
+	 * Moves the seat panes to their places for the player whose turn it is. The current
+	 * player is at the bottom and the others follow clockwise.
+	 */
+	private void setTurn(int turn) {
+		int previous = currentTurn;
+		currentTurn = turn;
+		if (previous >= 0 && previous < numPlayers) {
+			handPanes[previous].getStyleClass().remove("bottomPane");
+			bookPanes[previous].getStyleClass().remove("bottomPane");
+			flipHand(previous, false);
+		}
+		handPanes[turn].getStyleClass().add("bottomPane");
+		bookPanes[turn].getStyleClass().add("bottomPane");
+		flipHand(turn, true);
+		// empty every place first, so no pane is ever the content of two scroll panes
+		for (int place = 0; place < SEATS; place++) {
+			tableScrolls[place].setContent(null);
+			bookScrolls[place].setContent(null);
+		}
+		for (int place = 0; place < SEATS; place++) {
+			int seat = (turn + place) % SEATS;
+			tableScrolls[place].setContent(handPanes[seat]);
+			bookScrolls[place].setContent(bookPanes[seat]);
+			String text = seat < numPlayers ? "Player " + (seat + 1) : "";
+			playerLabels[place].setText(text);
+			bookLabels[place].setText(text);
+		}
+	}
+
+	private void flipHand(int seat, boolean faceUp) {
+		for (long cards = shownHands[seat]; cards != 0; cards &= cards - 1) {
+			int ordinal = Long.numberOfTrailingZeros(cards);
+			setFaceUp(handCards[ordinal], ordinal, faceUp);
+		}
+	}
+
+	private void clearSelection() {
+		if (currentTurn < 0) return;
+		for (long cards = shownHands[currentTurn]; cards != 0; cards &= cards - 1) {
+			handCards[Long.numberOfTrailingZeros(cards)].getStyleClass().remove("selected");
+		}
+	}
+
+	/**
+	 * The current player sees their own cards, everyone else's cards are face down
+	 */
+	private void setFaceUp(Label card, int ordinal, boolean faceUp) {
+		card.getStyleClass().remove("selected");
+		ImageView view = (ImageView) card.getGraphic();
+		if (faceUp) {
+			card.setText(Card.ofOrdinal(ordinal).getId());
+			view.setViewport(CardImages.face(Card.ofOrdinal(ordinal)));
+		} else {
+			card.setText("");
+			view.setViewport(CardImages.back());
+		}
+	}
+
+	/**
+	 * Returns the hand label of a card, making it the first time it is needed
+	 */
+	private Label handCard(int ordinal) {
+		if (handCards[ordinal] == null) {
+			Label ret = makeCard(Card.ofOrdinal(ordinal));
+			ret.setOnMouseClicked(me -> {
+				// only the current player's cards can be picked
+				if (currentTurn < 0 || ret.getParent() != handPanes[currentTurn]) return;
+				clearSelection();
+				ret.getStyleClass().add("selected");
+				onSelect.accept(ret.getText());
+			});
+			handCards[ordinal] = ret;
+		}
+		return handCards[ordinal];
+	}
+
+	/**
+	 * Returns the book label of a card, making it the first time it is needed
+	 */
+	private Label bookCard(int ordinal) {
+		if (bookCards[ordinal] == null) {
+			bookCards[ordinal] = makeCard(Card.ofOrdinal(ordinal));
+		}
+		return bookCards[ordinal];
+	}
+
+	/**
+	 * Makes a card label that shows the face of the card from the image atlas. The text 
+	 * is the card ID, which is what a click selects, but only the image is shown.
+	 */
+	private static Label makeCard(Card card) {
+		Label ret = new Label(card.getId(), CardImages.makeView(CardImages.face(card)));
+		ret.setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+		ret.getStyleClass().add("card");
+		ret.applyCss();
+		return ret;
+	}
+
+	private static Label makePlaceholder() {
+		Label ret = new Label("");
+		ret.getStyleClass().addAll("placeholder", "card");
+		return ret;
+	}
+
+	/**
+	 * Makes the pane for one seat's hand or books
+	 */
+	private FlowPane makeZone(int seat, boolean isTable) {
+		FlowPane ret = new FlowPane();
+		ret.getStyleClass().add("playerZone");
+		if (isTable) {
+			ret.setOnMouseReleased(me -> {
+				if (seat != currentTurn && seat < numPlayers) onAsk.accept(seat);
+			});
+		}
+		return ret;
+	}
+
+}